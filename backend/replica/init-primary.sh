@@ -0,0 +1,3 @@
+#!/bin/sh
+# Replikationsverbindungen vom Replikat-Container erlauben (Standard-pg_hba erlaubt nur lokal)
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
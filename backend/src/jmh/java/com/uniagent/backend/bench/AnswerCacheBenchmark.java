@@ -0,0 +1,65 @@
+package com.uniagent.backend.bench;
+
+import com.uniagent.backend.service.AnswerCache;
+import com.uniagent.backend.service.QuestionNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kosten des AnswerCache vor n8n: Treffer, Fehlschlag und die Normalisierung der Frage.
+ * Ein Treffer spart einen kompletten n8n-Durchlauf (Sekunden), ein Fehlschlag kostet nur den Lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnswerCacheBenchmark {
+
+    private static final int CACHED_QUESTIONS = 5000;
+
+    private AnswerCache cache;
+    private String hitQuestion;
+    private String missQuestion;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new AnswerCache(true, 86_400, 16 * 1024 * 1024, 300);
+        for (int i = 0; i < CACHED_QUESTIONS; i++) {
+            cache.put(Fixtures.sentence(i) + " #" + i, "Antwort " + i + ": " + Fixtures.sentence(i + 1));
+        }
+        hitQuestion = "  " + Fixtures.sentence(42).toUpperCase() + " #42 ";
+        missQuestion = Fixtures.sentence(42) + " #nicht-im-cache";
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return QuestionNormalizer.canonicalize(hitQuestion);
+    }
+
+    @Benchmark
+    public String getHit() {
+        return cache.get(hitQuestion);
+    }
+
+    @Benchmark
+    public String getMiss() {
+        return cache.get(missQuestion);
+    }
+
+    /**
+     * get() ist synchronized – Treffer unter gleichzeitigen /ask-Requests.
+     */
+    @Benchmark
+    @Threads(4)
+    public String getHitContended() {
+        return cache.get(hitQuestion);
+    }
+}
@@ -0,0 +1,108 @@
+package com.uniagent.backend.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.controller.ChatController;
+import com.uniagent.backend.dto.AddMessageRequest;
+import com.uniagent.backend.dto.AddMessageResponse;
+import com.uniagent.backend.dto.AddMessagesBatchRequest;
+import com.uniagent.backend.dto.AddMessagesBatchResponse;
+import com.uniagent.backend.dto.BatchMessageDto;
+import com.uniagent.backend.dto.ChatMessageDto;
+import com.uniagent.backend.dto.ChatSummaryDto;
+import com.uniagent.backend.service.ChatService;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatService (und ChatController) ohne Datenbank und n8n: Token-Auflösung, Validierung,
+ * Normalisierung der Suchanfrage, Batch-Aufbereitung. Die Datenbank liefert fertige Listen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChatServiceBenchmark {
+
+    @Param({"50", "500"})
+    public int size;
+
+    private ChatService chatService;
+    private ChatController chatController;
+    private String token;
+    private String chatId;
+    private AddMessageRequest addRequest;
+    private AddMessagesBatchRequest batchRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SupabaseDatabaseClient db = new Fixtures.InMemoryDatabaseClient(Fixtures.chats(size), Fixtures.messages(size));
+        chatService = Fixtures.chatService(
+                Fixtures.authClient(Fixtures.supabaseConfig("http://localhost:1"), objectMapper), db, objectMapper
+        );
+        chatController = new ChatController(chatService);
+
+        token = Fixtures.accessToken(UUID.randomUUID());
+        chatId = UUID.randomUUID().toString();
+
+        addRequest = new AddMessageRequest();
+        addRequest.setSender("user");
+        addRequest.setContent(Fixtures.sentence(1));
+
+        List<BatchMessageDto> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BatchMessageDto item = new BatchMessageDto();
+            item.setSender((i % 2 == 0) ? "user" : "bot");
+            item.setContent(Fixtures.sentence(i));
+            items.add(item);
+        }
+        batchRequest = new AddMessagesBatchRequest();
+        batchRequest.setMessages(items);
+    }
+
+    @Benchmark
+    public List<ChatSummaryDto> listChats() {
+        return chatService.listChats(token);
+    }
+
+    @Benchmark
+    public List<ChatMessageDto> getMessages() {
+        return chatService.getMessages(token, chatId);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<ChatMessageDto>> getMessagesViaController() {
+        return chatController.getMessages("Bearer " + token, chatId, null, null, null, null);
+    }
+
+    @Benchmark
+    public AddMessageResponse addMessage() {
+        return chatService.addMessage(token, chatId, addRequest);
+    }
+
+    @Benchmark
+    public SupabaseDatabaseClient.Page<ChatSummaryDto> searchChats() {
+        return chatService.searchChats(token, "Rückmeldefrist Wintersemester \"Prüfungsanmeldung\"", 50, 0);
+    }
+
+    /**
+     * size Nachrichten validieren, ids und Zeitstempel vergeben.
+     */
+    @Benchmark
+    public AddMessagesBatchResponse addMessagesBatch() {
+        return chatService.addMessagesBatch(token, chatId, batchRequest);
+    }
+}
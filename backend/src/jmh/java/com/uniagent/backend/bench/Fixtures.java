@@ -0,0 +1,209 @@
+package com.uniagent.backend.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.config.N8nConfig;
+import com.uniagent.backend.config.SupabaseConfig;
+import com.uniagent.backend.dto.ChatMessageDto;
+import com.uniagent.backend.dto.ChatSummaryDto;
+import com.uniagent.backend.service.AccessTokenCache;
+import com.uniagent.backend.service.AnswerCache;
+import com.uniagent.backend.service.ChatExporter;
+import com.uniagent.backend.service.ChatListCache;
+import com.uniagent.backend.service.ChatOwnerCache;
+import com.uniagent.backend.service.ChatService;
+import com.uniagent.backend.service.FaqAggregator;
+import com.uniagent.backend.service.MemoryChatListStore;
+import com.uniagent.backend.service.MessageClock;
+import com.uniagent.backend.service.MessageWriteBehind;
+import com.uniagent.backend.service.N8nChatClient;
+import com.uniagent.backend.service.SupabaseAuthClient;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import com.uniagent.backend.service.SupabaseJwtVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Gemeinsame Bausteine der Benchmarks: Konfiguration ohne Spring-Kontext, HS256-Tokens,
+ * ChatService mit einem SupabaseDatabaseClient, der fertige Daten aus dem Speicher liefert.
+ */
+public final class Fixtures {
+
+    public static final String JWT_SECRET = "benchmark-secret-benchmark-secret";
+
+    private static final String[] WORDS = {
+            "Rückmeldung", "Prüfungsanmeldung", "Frist", "Semesterbeitrag", "Bibliothek",
+            "Modulhandbuch", "Praktikum", "Stundenplan", "Immatrikulation", "Wintersemester"
+    };
+
+    private Fixtures() {}
+
+    public static SupabaseConfig supabaseConfig(String projectUrl) {
+        SupabaseConfig config = new SupabaseConfig();
+        ReflectionTestUtils.setField(config, "projectUrl", projectUrl);
+        ReflectionTestUtils.setField(config, "anonKey", "anon");
+        ReflectionTestUtils.setField(config, "serviceRoleKey", "service-role");
+        ReflectionTestUtils.setField(config, "usersTable", "users");
+        ReflectionTestUtils.setField(config, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(config, "jwtAudience", "authenticated");
+        ReflectionTestUtils.setField(config, "jwksRefreshSeconds", 600L);
+        return config;
+    }
+
+    public static N8nConfig n8nConfig() {
+        N8nConfig config = new N8nConfig();
+        ReflectionTestUtils.setField(config, "webhookUrl", "http://localhost:1/webhook");
+        ReflectionTestUtils.setField(config, "streamTimeoutMs", 180_000L);
+        return config;
+    }
+
+    /**
+     * Access Token wie von Supabase (HS256, aud=authenticated, 1 h gültig).
+     */
+    public static String accessToken(UUID authUserId) {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String header = b64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String claims = b64.encodeToString((
+                "{\"sub\":\"" + authUserId + "\",\"aud\":\"authenticated\",\"role\":\"authenticated\","
+                        + "\"email\":\"bench@uni.de\",\"exp\":" + (Instant.now().getEpochSecond() + 3600) + "}"
+        ).getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(JWT_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] sig = mac.doFinal((header + "." + claims).getBytes(StandardCharsets.US_ASCII));
+            return header + "." + claims + "." + b64.encodeToString(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String sentence(int i) {
+        return "Wie funktioniert die " + WORDS[i % WORDS.length] + " für das " + WORDS[(i * 7 + 3) % WORDS.length]
+                + " im Wintersemester? Bitte mit Details zur " + WORDS[(i * 3 + 1) % WORDS.length] + ".";
+    }
+
+    public static List<ChatMessageDto> messages(int count) {
+        List<ChatMessageDto> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ChatMessageDto(
+                    UUID.randomUUID().toString(),
+                    (i % 2 == 0) ? "user" : "bot",
+                    sentence(i),
+                    "2026-10-01 12:" + String.format("%02d:%02d", (i / 60) % 60, i % 60) + ".123456+00"
+            ));
+        }
+        return list;
+    }
+
+    public static List<ChatSummaryDto> chats(int count) {
+        List<ChatSummaryDto> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ChatSummaryDto(
+                    UUID.randomUUID().toString(),
+                    "Chat " + i,
+                    sentence(i),
+                    "2026-10-01 12:00:00.123456+00",
+                    "2026-09-01 12:00:00.123456+00"
+            ));
+        }
+        return list;
+    }
+
+    public static SupabaseAuthClient authClient(SupabaseConfig config, ObjectMapper objectMapper) {
+        RestTemplate restTemplate = new RestTemplate();
+        return new SupabaseAuthClient(
+                config,
+                restTemplate,
+                new SupabaseJwtVerifier(config, restTemplate, objectMapper),
+                new AccessTokenCache(300, 10_000),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    /**
+     * ChatService wie in der Anwendung, nur ohne Datenbank und n8n; Write-Behind und Chatlisten-Cache aus
+     * (listChats misst den Weg über den SupabaseDatabaseClient).
+     */
+    public static ChatService chatService(SupabaseAuthClient authClient, SupabaseDatabaseClient db, ObjectMapper objectMapper) {
+        N8nConfig n8nConfig = n8nConfig();
+        MessageClock clock = new MessageClock();
+        ChatOwnerCache ownerCache = new ChatOwnerCache(100_000);
+        ChatListCache chatListCache = new ChatListCache(new MemoryChatListStore(1, 60), false);
+        return new ChatService(
+                authClient,
+                db,
+                ownerCache,
+                chatListCache,
+                new N8nChatClient(new RestTemplate(), objectMapper, n8nConfig),
+                new SyncTaskExecutor(),
+                new AnswerCache(true, 86_400, 16 * 1024 * 1024, 300),
+                new FaqAggregator(db, 10, 50_000, 5, 5000, 90),
+                new MessageWriteBehind(db, ownerCache, chatListCache, objectMapper, clock, false,
+                        1, 1, 50, 100, 2000, "./target/jmh/journal", false, 8 * 1024 * 1024, 1000),
+                clock,
+                new ChatExporter(db, objectMapper, 500),
+                n8nConfig
+        );
+    }
+
+    /**
+     * Liefert fertige Listen statt zu fragen – gemessen wird nur, was ChatService selbst tut.
+     */
+    public static final class InMemoryDatabaseClient extends SupabaseDatabaseClient {
+
+        private final List<ChatSummaryDto> chats;
+        private final List<ChatMessageDto> messages;
+
+        public InMemoryDatabaseClient(List<ChatSummaryDto> chats, List<ChatMessageDto> messages) {
+            super(null, null, new SimpleMeterRegistry(), null);
+            this.chats = chats;
+            this.messages = messages;
+        }
+
+        @Override
+        public List<ChatSummaryDto> listChats(UUID authUserId) {
+            return chats;
+        }
+
+        @Override
+        public List<ChatMessageDto> getMessages(UUID authUserId, UUID chatId) {
+            return messages;
+        }
+
+        @Override
+        public ContentVersion chatListVersion(UUID authUserId) {
+            return new ContentVersion(chats.size(), 1_790_000_000_000_000L, 1);
+        }
+
+        @Override
+        public Optional<ContentVersion> messagesVersion(UUID authUserId, UUID chatId) {
+            return Optional.of(new ContentVersion(messages.size(), 1_790_000_000_000_000L, 1));
+        }
+
+        @Override
+        public AddedMessage addMessage(UUID authUserId, UUID chatId, String sender, String content) {
+            return new AddedMessage(UUID.randomUUID().toString(), "2026-10-01 12:00:00.123456+00", "Chat", 2);
+        }
+
+        @Override
+        public String addMessagesBatch(UUID authUserId, UUID chatId, List<NewMessage> newMessages) {
+            return "Chat";
+        }
+
+        @Override
+        public Page<ChatSummaryDto> searchChats(UUID authUserId, String q, List<String> tokens, int limit, int offset) {
+            return new Page<>(chats.subList(0, Math.min(limit, chats.size())), null);
+        }
+    }
+}
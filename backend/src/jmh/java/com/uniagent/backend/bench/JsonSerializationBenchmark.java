@@ -0,0 +1,75 @@
+package com.uniagent.backend.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.uniagent.backend.dto.ChatMessageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON des Nachrichtenverlaufs (GET /api/chats/{chatId}/messages) – Serialisierung großer Listen.
+ *
+ * objectMapper* entspricht dem, was MappingJackson2HttpMessageConverter pro Response tut;
+ * objectWriter* nutzt einen vorab für den Typ gebauten Writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    private static final TypeReference<List<ChatMessageDto>> MESSAGE_LIST = new TypeReference<>() {};
+
+    @Param({"100", "1000", "10000"})
+    public int messages;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private List<ChatMessageDto> history;
+    private byte[] historyJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        listWriter = objectMapper.writerFor(MESSAGE_LIST);
+        listReader = objectMapper.readerFor(MESSAGE_LIST);
+        history = Fixtures.messages(messages);
+        historyJson = objectMapper.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public byte[] objectMapperWrite() throws IOException {
+        return objectMapper.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public byte[] objectWriterWrite() throws IOException {
+        return listWriter.writeValueAsBytes(history);
+    }
+
+    @Benchmark
+    public String objectMapperWriteString() throws IOException {
+        return objectMapper.writeValueAsString(history);
+    }
+
+    /**
+     * Gegenrichtung für den Batch-Endpoint (Request-Body mit vielen Nachrichten).
+     */
+    @Benchmark
+    public List<ChatMessageDto> objectReaderRead() throws IOException {
+        return listReader.readValue(historyJson);
+    }
+}
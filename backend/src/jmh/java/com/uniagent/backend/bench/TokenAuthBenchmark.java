@@ -0,0 +1,117 @@
+package com.uniagent.backend.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.uniagent.backend.config.SupabaseConfig;
+import com.uniagent.backend.service.AccessTokenCache;
+import com.uniagent.backend.service.SupabaseAuthClient;
+import com.uniagent.backend.service.SupabaseJwtVerifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token → User: lokale HS256-Prüfung und Cache-Treffer gegen den früheren GET /auth/v1/user.
+ *
+ * Der Auth-Server ist ein lokaler Stub ohne Netzlatenz; remoteAuthServer ist daher die
+ * Untergrenze – gegen Supabase kommen pro Call noch mindestens ein RTT dazu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenAuthBenchmark {
+
+    private HttpServer authServer;
+    private ExecutorService authServerThreads;
+    private HttpClient httpClient;
+    private SupabaseJwtVerifier verifier;
+    private SupabaseAuthClient authClient;
+    private String token;
+    private String bearerHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        UUID userId = UUID.randomUUID();
+        byte[] userJson = ("{\"id\":\"" + userId + "\",\"email\":\"bench@uni.de\"}").getBytes(StandardCharsets.UTF_8);
+
+        // Ohne TCP_NODELAY wartet jede Antwort auf das Delayed-ACK (~40 ms) statt auf den Server
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        authServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        authServer.createContext("/auth/v1/user", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, userJson.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(userJson);
+            }
+        });
+        authServerThreads = Executors.newFixedThreadPool(4);
+        authServer.setExecutor(authServerThreads);
+        authServer.start();
+
+        // Wie in HttpClientConfig; der Stub spricht nur HTTP/1.1, der Client bleibt dann bei Keep-Alive
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        RestTemplate restTemplate = new RestTemplate(new JdkClientHttpRequestFactory(httpClient));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        SupabaseConfig config = Fixtures.supabaseConfig("http://127.0.0.1:" + authServer.getAddress().getPort());
+        verifier = new SupabaseJwtVerifier(config, restTemplate, objectMapper);
+        authClient = new SupabaseAuthClient(
+                config, restTemplate, verifier, new AccessTokenCache(300, 10_000), new SimpleMeterRegistry()
+        );
+
+        token = Fixtures.accessToken(userId);
+        bearerHeader = "Bearer " + token;
+        authClient.getUserFromAccessToken(token);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        authServer.stop(0);
+        authServerThreads.shutdownNow();
+    }
+
+    /**
+     * Signatur, exp und aud lokal prüfen (erster Request mit einem Token).
+     */
+    @Benchmark
+    public SupabaseJwtVerifier.Result verifyLocally() {
+        return verifier.verify(token);
+    }
+
+    /**
+     * Weg eines Chat-Requests: Bearer-Header auswerten, dann AccessTokenCache.
+     */
+    @Benchmark
+    public SupabaseAuthClient.SupabaseUser bearerHeaderCached() {
+        String t = bearerHeader.startsWith("Bearer ") ? bearerHeader.substring(7) : null;
+        return authClient.getUserFromAccessToken(t);
+    }
+
+    /**
+     * Früherer Weg: jeder Request fragt /auth/v1/user.
+     */
+    @Benchmark
+    public SupabaseAuthClient.SupabaseUser remoteAuthServer() {
+        return authClient.fetchUserFromAuthServer(token);
+    }
+}
@@ -0,0 +1,80 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.bench.Fixtures;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.dao.EmptyResultDataAccessException;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nachricht speichern: ein Statement (Ownership, Insert, Vorschau/Anzahl/Titel) gegen die
+ * frühere Folge COUNT-Check, INSERT, UPDATE updated_at und maybeAutoTitle.
+ * Jeder Aufruf braucht im alten Weg vier Roundtrips – gegen eine entfernte Datenbank zählt vor allem das.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AddMessageBenchmark {
+
+    private BenchDatabase db;
+    private UUID chatId;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = BenchDatabase.connect();
+        db.seed(10, 20);
+        chatId = db.anyChat();
+        content = Fixtures.sentence(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public SupabaseDatabaseClient.AddedMessage singleStatement() {
+        return db.client().addMessage(db.authUserId(), chatId, "user", content);
+    }
+
+    @Benchmark
+    public String legacySequence() {
+        String authUserId = db.authUserId().toString();
+        String chat = chatId.toString();
+
+        Integer cnt = db.jdbc().queryForObject(
+                "SELECT COUNT(*) FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
+                Integer.class, chat, authUserId
+        );
+        if (cnt == null || cnt == 0) {
+            throw new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung.");
+        }
+
+        db.jdbc().update(
+                "INSERT INTO public.chat_messages (chat_id, sender, content, created_at) VALUES (?::uuid, ?, ?, now())",
+                chat, "user", content
+        );
+        db.jdbc().update("UPDATE public.chats SET updated_at = now() WHERE id = ?::uuid", chat);
+
+        // maybeAutoTitle: Titel lesen, nur bei "Neuer Chat" ersetzen
+        try {
+            return db.jdbc().queryForObject(
+                    "SELECT title FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
+                    String.class, chat, authUserId
+            );
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+}
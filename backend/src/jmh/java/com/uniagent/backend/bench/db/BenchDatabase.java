@@ -0,0 +1,154 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.service.ReplicaRouter;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+/**
+ * Verbindung und Testdaten für die Datenbank-Benchmarks.
+ *
+ * Erwartet eine Postgres-Datenbank mit dem Schema aus db/migration (per Flyway, z. B. durch einmaliges Starten des Backends mit DB_MIGRATE=true), z. B. ein
+ * Supabase-Branch oder ein lokales Postgres:
+ *   BENCH_DB_URL=jdbc:postgresql://localhost:5432/uniagent BENCH_DB_USER=… BENCH_DB_PASSWORD=…
+ * Die Daten hängen an einer zufälligen auth_user_id und werden im TearDown wieder gelöscht.
+ */
+public final class BenchDatabase implements AutoCloseable {
+
+    private static final String WORDS = """
+            ARRAY['Rückmeldung', 'Prüfungsanmeldung', 'Frist', 'Semesterbeitrag', 'Bibliothek',
+                  'Modulhandbuch', 'Praktikum', 'Stundenplan', 'Immatrikulation', 'Wintersemester']
+            """;
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SupabaseDatabaseClient client;
+    private final UUID authUserId = UUID.randomUUID();
+
+    private BenchDatabase(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.client = new SupabaseDatabaseClient(
+                jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                new SimpleMeterRegistry(),
+                ReplicaRouter.primaryOnly(dataSource)
+        );
+    }
+
+    /**
+     * @param prepareThreshold wie DB_PREPARE_THRESHOLD im pooler-Profil (0 = keine Server-Side Prepared Statements)
+     */
+    public static BenchDatabase connect(int prepareThreshold) {
+        String url = System.getenv("BENCH_DB_URL");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("BENCH_DB_URL fehlt (siehe BenchDatabase).");
+        }
+
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("uniagent-bench");
+        ds.setJdbcUrl(url);
+        ds.setUsername(System.getenv("BENCH_DB_USER"));
+        ds.setPassword(System.getenv("BENCH_DB_PASSWORD"));
+        ds.setMaximumPoolSize(4);
+        ds.addDataSourceProperty("prepareThreshold", String.valueOf(prepareThreshold));
+        ds.addDataSourceProperty("reWriteBatchedInserts", "true");
+        ds.addDataSourceProperty("ApplicationName", "uniagent-bench");
+        return new BenchDatabase(ds);
+    }
+
+    public static BenchDatabase connect() {
+        return connect(5);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbcTemplate;
+    }
+
+    public SupabaseDatabaseClient client() {
+        return client;
+    }
+
+    public UUID authUserId() {
+        return authUserId;
+    }
+
+    /**
+     * chats Chats mit je messagesPerChat Nachrichten; Vorschau und Anzahl wie nach V2.
+     * Schlägt das Anlegen fehl, wird aufgeräumt – JMH ruft TearDown nach einem fehlgeschlagenen Setup nicht auf.
+     */
+    public void seed(int chats, int messagesPerChat) {
+        try {
+            insert(chats, messagesPerChat);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void insert(int chats, int messagesPerChat) {
+        jdbcTemplate.update("""
+                INSERT INTO public.chats (id, auth_user_id, title, created_at, updated_at)
+                SELECT gen_random_uuid(), ?, 'Chat ' || g,
+                       now() - g * interval '1 hour', now() - g * interval '1 minute'
+                FROM generate_series(1, ?) g
+                """, authUserId, chats);
+
+        jdbcTemplate.update("""
+                INSERT INTO public.chat_messages (chat_id, sender, content, created_at)
+                SELECT c.id,
+                       CASE WHEN g % 2 = 0 THEN 'user' ELSE 'bot' END,
+                       'Wie funktioniert die ' || w[1 + g % 10] || ' für das ' || w[1 + (g * 7 + 3) % 10]
+                         || ' im Wintersemester? Bitte mit Details zur ' || w[1 + (g * 3 + 1) % 10]
+                         || ' (' || g || ').',
+                       c.created_at + g * interval '1 second'
+                FROM public.chats c
+                CROSS JOIN generate_series(1, ?) g
+                CROSS JOIN (SELECT :words AS w) words
+                WHERE c.auth_user_id = ?
+                """.replace(":words", WORDS), messagesPerChat, authUserId);
+
+        jdbcTemplate.update("""
+                UPDATE public.chats c
+                SET last_message_preview = left(s.content, 160),
+                    message_count        = s.cnt
+                FROM (
+                    SELECT DISTINCT ON (m.chat_id)
+                           m.chat_id, m.content, count(*) OVER (PARTITION BY m.chat_id) AS cnt
+                    FROM public.chat_messages m
+                    JOIN public.chats ch ON ch.id = m.chat_id
+                    WHERE ch.auth_user_id = ?
+                    ORDER BY m.chat_id, m.created_at DESC
+                ) s
+                WHERE c.id = s.chat_id
+                """, authUserId);
+
+        jdbcTemplate.execute("ANALYZE public.chats");
+        jdbcTemplate.execute("ANALYZE public.chat_messages");
+    }
+
+    /**
+     * Neuester Chat des Benchmark-Users.
+     */
+    public UUID anyChat() {
+        return jdbcTemplate.queryForObject(
+                "SELECT id FROM public.chats WHERE auth_user_id = ? ORDER BY updated_at DESC LIMIT 1",
+                UUID.class,
+                authUserId
+        );
+    }
+
+    @Override
+    public void close() {
+        try {
+            jdbcTemplate.update("DELETE FROM public.chats WHERE auth_user_id = ?", authUserId);
+        } finally {
+            dataSource.close();
+        }
+    }
+}
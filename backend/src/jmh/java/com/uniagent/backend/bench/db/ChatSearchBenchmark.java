@@ -0,0 +1,94 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.dto.ChatSummaryDto;
+import com.uniagent.backend.service.QuestionNormalizer;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat-Suche bei 100k Nachrichten eines Users: Volltextsuche (GIN auf search_tsv) gegen das
+ * frühere ILIKE '%…%' über title und jede Nachricht.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChatSearchBenchmark {
+
+    // Suche vor V4
+    private static final String ILIKE_SQL = """
+            SELECT
+              c.id::text AS id,
+              c.title AS title,
+              COALESCE(c.last_message_preview, '') AS last_message,
+              c.updated_at::text AS updated_at,
+              c.created_at::text AS created_at
+            FROM public.chats c
+            WHERE c.auth_user_id = ?::uuid
+              AND (
+                c.title ILIKE ?
+                OR EXISTS (
+                  SELECT 1
+                  FROM public.chat_messages m
+                  WHERE m.chat_id = c.id AND m.content ILIKE ?
+                )
+              )
+            ORDER BY c.updated_at DESC
+            LIMIT 50
+            """;
+
+    /**
+     * Häufiges Wort (jede Nachricht) und seltener Treffer (eine Nachricht pro Chat).
+     */
+    @Param({"Praktikum", "(777)"})
+    public String query;
+
+    private BenchDatabase db;
+    private List<String> tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = BenchDatabase.connect();
+        db.seed(100, 1000);
+        String canonical = QuestionNormalizer.canonicalize(query);
+        tokens = Arrays.asList(canonical.split(" "));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public SupabaseDatabaseClient.Page<ChatSummaryDto> fullText() {
+        return db.client().searchChats(db.authUserId(), query, tokens, 50, 0);
+    }
+
+    @Benchmark
+    public List<ChatSummaryDto> ilike() {
+        String like = "%" + query + "%";
+        return db.jdbc().query(
+                ILIKE_SQL,
+                (rs, rowNum) -> new ChatSummaryDto(
+                        rs.getString("id"),
+                        rs.getString("title"),
+                        rs.getString("last_message"),
+                        rs.getString("updated_at"),
+                        rs.getString("created_at")
+                ),
+                db.authUserId().toString(), like, like
+        );
+    }
+}
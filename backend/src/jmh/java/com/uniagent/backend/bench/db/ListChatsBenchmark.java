@@ -0,0 +1,88 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.dto.ChatSummaryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sidebar (GET /api/chats) abhängig von der Anzahl Chats: gespeicherte Vorschau an chats
+ * gegen die frühere korrelierte Subquery auf chat_messages pro Chat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ListChatsBenchmark {
+
+    // Abfrage vor last_message_preview (V2)
+    private static final String LEGACY_SQL = """
+            SELECT
+              c.id::text AS id,
+              c.title AS title,
+              COALESCE((
+                SELECT m.content
+                FROM public.chat_messages m
+                WHERE m.chat_id = c.id
+                ORDER BY m.created_at DESC
+                LIMIT 1
+              ), '') AS last_message,
+              c.updated_at::text AS updated_at,
+              c.created_at::text AS created_at
+            FROM public.chats c
+            WHERE c.auth_user_id = ?::uuid
+            ORDER BY c.updated_at DESC
+            """;
+
+    @Param({"100", "1000"})
+    public int chats;
+
+    @Param({"50"})
+    public int messagesPerChat;
+
+    private BenchDatabase db;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = BenchDatabase.connect();
+        db.seed(chats, messagesPerChat);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public List<ChatSummaryDto> denormalized() {
+        return db.client().listChats(db.authUserId());
+    }
+
+    @Benchmark
+    public List<ChatSummaryDto> correlatedSubquery() {
+        List<Map<String, Object>> rows = db.jdbc().queryForList(LEGACY_SQL, db.authUserId().toString());
+
+        List<ChatSummaryDto> result = new ArrayList<>();
+        for (Map<String, Object> r : rows) {
+            result.add(new ChatSummaryDto(
+                    String.valueOf(r.get("id")),
+                    String.valueOf(r.get("title")),
+                    String.valueOf(r.get("last_message")),
+                    String.valueOf(r.get("updated_at")),
+                    String.valueOf(r.get("created_at"))
+            ));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.dto.ChatMessageDto;
+import com.uniagent.backend.dto.ChatSummaryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * prepareThreshold des pooler-Profils: 5 (Session Pooler, Server-Side Prepared Statements ab
+ * der fünften Ausführung) gegen 0 (Transaction Pooler, jedes Statement wird neu geplant).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreparedStatementBenchmark {
+
+    @Param({"0", "5"})
+    public int prepareThreshold;
+
+    private BenchDatabase db;
+    private UUID chatId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = BenchDatabase.connect(prepareThreshold);
+        db.seed(50, 100);
+        chatId = db.anyChat();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public List<ChatSummaryDto> listChats() {
+        return db.client().listChats(db.authUserId());
+    }
+
+    @Benchmark
+    public List<ChatMessageDto> getMessages() {
+        return db.client().getMessages(db.authUserId(), chatId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.uniagent.backend.bench.db;
+
+import com.uniagent.backend.dto.ChatMessageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nachrichtenverlauf lesen, gleiche Abfrage: queryForList mit einer Map pro Zeile
+ * gegen RowMapper direkt auf das DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowMappingBenchmark {
+
+    private static final String SQL = """
+            SELECT id::text AS id, sender, content, created_at::text AS created_at
+            FROM public.chat_messages
+            WHERE chat_id = ?
+            ORDER BY created_at ASC
+            """;
+
+    private static final RowMapper<ChatMessageDto> MAPPER = (rs, rowNum) -> new ChatMessageDto(
+            rs.getString("id"),
+            rs.getString("sender"),
+            rs.getString("content"),
+            rs.getString("created_at")
+    );
+
+    @Param({"200", "2000"})
+    public int messages;
+
+    private BenchDatabase db;
+    private UUID chatId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = BenchDatabase.connect();
+        db.seed(1, messages);
+        chatId = db.anyChat();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public List<ChatMessageDto> queryForListMap() {
+        List<Map<String, Object>> rows = db.jdbc().queryForList(SQL, chatId);
+
+        List<ChatMessageDto> result = new ArrayList<>();
+        for (Map<String, Object> r : rows) {
+            result.add(new ChatMessageDto(
+                    String.valueOf(r.get("id")),
+                    String.valueOf(r.get("sender")),
+                    String.valueOf(r.get("content")),
+                    String.valueOf(r.get("created_at"))
+            ));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<ChatMessageDto> rowMapper() {
+        return db.jdbc().query(SQL, MAPPER, chatId);
+    }
+}
@@ -0,0 +1,186 @@
+package com.uniagent.backend.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Das gebaute Jar in einer eigenen JVM, verdrahtet mit Stub-Server und Test-Datenbank.
+ * Ausgabe der Anwendung: report-dir/app.log.
+ */
+@Slf4j
+public class BackendProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+
+    private final Process process;
+    private final int port;
+    private final int managementPort;
+    private final Path logFile;
+    private final long startedNanos;
+
+    private BackendProcess(Process process, int port, int managementPort, Path logFile, long startedNanos) {
+        this.process = process;
+        this.port = port;
+        this.managementPort = managementPort;
+        this.logFile = logFile;
+        this.startedNanos = startedNanos;
+    }
+
+    public static BackendProcess start(
+            LoadTestOptions options,
+            StubServer stub,
+            String jwtSecret,
+            TestDatabase db
+    ) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(options.appJar())) {
+            throw new IllegalStateException("Jar nicht gefunden: " + options.appJar() + " (mvn -Ploadtest verify baut es)");
+        }
+
+        List<String> launcher = javaCommand(options.jvmArgs(), options.appJar());
+        BackendProcess backend = launch(options, launcher, "app.log", stub, jwtSecret, db);
+        backend.awaitReady();
+        log.info("Backend läuft auf Port {} (Management {}), Profile: {}", backend.port, backend.managementPort,
+                options.profiles().isBlank() ? "-" : options.profiles());
+        return backend;
+    }
+
+    /**
+     * Startet launcher + Properties, ohne auf die Bereitschaft zu warten (für Startzeit-Messungen).
+     */
+    public static BackendProcess launch(
+            LoadTestOptions options,
+            List<String> launcher,
+            String logName,
+            StubServer stub,
+            String jwtSecret,
+            TestDatabase db
+    ) throws IOException {
+        int port = freePort();
+        int managementPort = freePort();
+
+        // Reihenfolge: Standardwerte des Lasttests, dann Properties aus den Optionen
+        Map<String, String> props = new LinkedHashMap<>();
+        props.put("server.port", String.valueOf(port));
+        props.put("management.server.port", String.valueOf(managementPort));
+        props.put("supabase.url", stub.baseUrl());
+        props.put("supabase.anon-key", "loadtest-anon");
+        props.put("supabase.service-role-key", "loadtest-service-role");
+        props.put("supabase.users-table", "users");
+        props.put("supabase.jwt-secret", jwtSecret);
+        props.put("spring.datasource.url", db.jdbcUrl());
+        props.put("spring.datasource.username", db.user());
+        props.put("spring.datasource.password", db.password());
+        props.put("spring.datasource.driver-class-name", "org.postgresql.Driver");
+        // Vorhandene Datenbank (db-url): Schema bringt das Backend auf Stand
+        props.put("spring.flyway.enabled", "true");
+        props.put("n8n.webhook.url", stub.baseUrl() + StubServer.WEBHOOK_PATH);
+        props.put("app.write-behind.journal-dir", options.reportDir().resolve("journal").toString());
+        props.put("management.metrics.tags.application", "uniagent-loadtest");
+        if (!options.profiles().isBlank()) props.put("spring.profiles.active", options.profiles());
+        props.putAll(options.appProperties());
+
+        List<String> command = new ArrayList<>(launcher);
+        props.forEach((k, v) -> command.add("--" + k + "=" + v));
+
+        Files.createDirectories(options.reportDir());
+        Path logFile = options.reportDir().resolve(logName);
+        long startedNanos = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+
+        return new BackendProcess(process, port, managementPort, logFile, startedNanos);
+    }
+
+    public static List<String> javaCommand(List<String> jvmArgs, Path jar) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        return command;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    public String managementUrl() {
+        return "http://127.0.0.1:" + managementPort;
+    }
+
+    // System.nanoTime() unmittelbar vor dem Prozessstart
+    public long startedNanos() {
+        return startedNanos;
+    }
+
+    public Path logFile() {
+        return logFile;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Wartet auf das Prozessende (z.B. Trainingslauf mit -Dspring.context.exit=onRefresh), liefert den Exit-Code.
+     */
+    public int awaitExit() throws InterruptedException {
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            close();
+            throw new IllegalStateException("Backend nicht rechtzeitig beendet, siehe " + logFile);
+        }
+        return process.exitValue();
+    }
+
+    private void awaitReady() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(managementUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Backend beendet mit Exit-Code " + process.exitValue() + ", siehe " + logFile);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // noch nicht gestartet
+            }
+            Thread.sleep(500);
+        }
+        close();
+        throw new IllegalStateException("Backend nicht rechtzeitig bereit, siehe " + logFile);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
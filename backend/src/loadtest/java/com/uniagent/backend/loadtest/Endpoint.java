@@ -0,0 +1,39 @@
+package com.uniagent.backend.loadtest;
+
+/**
+ * Gemessene Endpunkte von AuthController, ChatController und FaqController (Reihenfolge = Bericht).
+ */
+public enum Endpoint {
+
+    REGISTER("POST", "/api/auth/register"),
+    LOGIN("POST", "/api/auth/login"),
+    CHANGE_PASSWORD("POST", "/api/auth/change-password"),
+    UPDATE_PROFILE("PUT", "/api/auth/profile"),
+
+    LIST_CHATS("GET", "/api/chats"),
+    LIST_CHATS_PAGE("GET", "/api/chats?limit"),
+    CREATE_CHAT("POST", "/api/chats"),
+    GET_MESSAGES("GET", "/api/chats/{chatId}/messages"),
+    GET_MESSAGES_PAGE("GET", "/api/chats/{chatId}/messages?limit"),
+    ADD_MESSAGE("POST", "/api/chats/{chatId}/messages"),
+    ADD_MESSAGES_BATCH("POST", "/api/chats/{chatId}/messages:batch"),
+    // Zeit bis zum ersten Antwort-Token (SSE-Event "token") und bis zum Ende des Streams
+    ASK_FIRST_TOKEN("POST", "/api/chats/{chatId}/ask (erstes Token)"),
+    ASK("POST", "/api/chats/{chatId}/ask"),
+    SEARCH("GET", "/api/chats/search"),
+    DELETE_CHAT("DELETE", "/api/chats/{chatId}"),
+
+    FAQ_TOP("GET", "/api/faq/top");
+
+    private final String method;
+    private final String path;
+
+    Endpoint(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    public String label() {
+        return method + " " + path;
+    }
+}
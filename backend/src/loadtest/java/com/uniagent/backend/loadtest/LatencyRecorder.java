@@ -0,0 +1,114 @@
+package com.uniagent.backend.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sammelt alle Antwortzeiten pro Endpunkt (exakte Perzentile, keine Histogramm-Buckets).
+ * Aufgezeichnet wird erst nach dem Hochlauf, siehe start().
+ */
+public class LatencyRecorder {
+
+    private final Map<Endpoint, Samples> samples = new EnumMap<>(Endpoint.class);
+    private volatile boolean recording = false;
+    private volatile long startedAtNanos;
+    private volatile long stoppedAtNanos;
+
+    public record Summary(
+            Endpoint endpoint,
+            long count,
+            long errors,
+            double perSecond,
+            double p50Millis,
+            double p95Millis,
+            double p99Millis,
+            double maxMillis
+    ) {}
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size = 0;
+        private long errors = 0;
+
+        synchronized void add(long value) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+        }
+
+        synchronized void error() {
+            errors++;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+    }
+
+    public LatencyRecorder() {
+        for (Endpoint e : Endpoint.values()) samples.put(e, new Samples());
+    }
+
+    public void start() {
+        startedAtNanos = System.nanoTime();
+        recording = true;
+    }
+
+    public void stop() {
+        recording = false;
+        stoppedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * @param ok false bei unerwartetem Status oder Exception; Fehler zählen nicht in die Perzentile
+     */
+    public void record(Endpoint endpoint, long startNanos, boolean ok) {
+        if (!recording || startNanos < startedAtNanos) return;
+        Samples s = samples.get(endpoint);
+        if (ok) {
+            s.add(System.nanoTime() - startNanos);
+        } else {
+            s.error();
+        }
+    }
+
+    public double measuredSeconds() {
+        return (stoppedAtNanos - startedAtNanos) / 1e9;
+    }
+
+    public List<Summary> summarize() {
+        double seconds = measuredSeconds();
+        List<Summary> result = new ArrayList<>();
+        for (Map.Entry<Endpoint, Samples> e : samples.entrySet()) {
+            long[] sorted = e.getValue().sorted();
+            long errors = e.getValue().errors();
+            if (sorted.length == 0 && errors == 0) continue;
+            result.add(new Summary(
+                    e.getKey(),
+                    sorted.length,
+                    errors,
+                    sorted.length / seconds,
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.95),
+                    percentile(sorted, 0.99),
+                    (sorted.length == 0) ? 0 : sorted[sorted.length - 1] / 1e6
+            ));
+        }
+        return result;
+    }
+
+    // Nearest-Rank
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,175 @@
+package com.uniagent.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lasttest: Postgres, Stub-Server, Backend-Jar starten, Studierende simulieren,
+ * Durchsatz und p50/p95/p99 pro Endpunkt ausgeben.
+ *
+ * Ergebnis: Tabelle auf stdout, report-dir/loadtest-<Zeit>.json, dazu der Prometheus-Stand
+ * des Backends am Ende (report-dir/prometheus-<Zeit>.txt) und dessen Log (report-dir/app.log).
+ */
+@Slf4j
+public class LoadTest {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        String jwtSecret = HexFormat.of().formatHex(secret);
+
+        try (TestDatabase db = TestDatabase.start(options);
+             StubServer stub = new StubServer(options, jwtSecret)) {
+            stub.start();
+
+            LatencyRecorder recorder = new LatencyRecorder();
+            try (BackendProcess backend = BackendProcess.start(options, stub, jwtSecret, db)) {
+                run(options, runId, backend, recorder);
+                writeReport(options, backend, recorder, stub);
+            } finally {
+                if (!options.embeddedDatabase()) db.deleteUsers(stub.accountIds());
+            }
+        }
+    }
+
+    private static void run(LoadTestOptions options, String runId, BackendProcess backend, LatencyRecorder recorder)
+            throws InterruptedException {
+        log.info("{} Studierende, Hochlauf {} s, Messung {} s, Denkzeit {} ms",
+                options.users(), options.rampUpSeconds(), options.durationSeconds(), options.thinkMillis());
+
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientThreads)
+                .build();
+
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(options.rampUpSeconds());
+        long deadlineNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+
+        try (ExecutorService students = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.users(); i++) {
+                long startAt = startNanos + TimeUnit.SECONDS.toNanos(options.rampUpSeconds()) * i / options.users();
+                StudentSession session = new StudentSession(
+                        i, runId, backend.baseUrl(), http, recorder, options, deadlineNanos
+                );
+                students.submit(() -> {
+                    sleepUntil(startAt);
+                    session.run();
+                });
+            }
+
+            sleepUntil(measureFromNanos);
+            recorder.start();
+            log.info("Hochlauf beendet, Messung läuft");
+            sleepUntil(deadlineNanos);
+            recorder.stop();
+            log.info("Messung beendet, warte auf laufende Requests");
+        } finally {
+            clientThreads.shutdownNow();
+        }
+    }
+
+    private static void writeReport(LoadTestOptions options, BackendProcess backend, LatencyRecorder recorder, StubServer stub)
+            throws Exception {
+        List<LatencyRecorder.Summary> summaries = recorder.summarize();
+        printTable(summaries, recorder.measuredSeconds());
+
+        String stamp = FILE_TIME.format(Instant.now());
+        Files.createDirectories(options.reportDir());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("users", options.users());
+        report.put("durationSeconds", options.durationSeconds());
+        report.put("rampUpSeconds", options.rampUpSeconds());
+        report.put("thinkMillis", options.thinkMillis());
+        report.put("profiles", options.profiles());
+        report.put("jvmArgs", options.jvmArgs());
+        report.put("appProperties", options.appProperties());
+        report.put("database", options.embeddedDatabase() ? "embedded" : options.dbUrl());
+        Map<String, Object> stubReport = new LinkedHashMap<>();
+        stubReport.put("authLatencyMillis", options.authLatencyMillis());
+        stubReport.put("n8nFirstChunkMillis", options.n8nFirstChunkMillis());
+        stubReport.put("n8nChunks", options.n8nChunks());
+        stubReport.put("n8nChunkMillis", options.n8nChunkMillis());
+        stubReport.put("n8nCalls", stub.n8nCalls());
+        report.put("stub", stubReport);
+        report.put("measuredSeconds", recorder.measuredSeconds());
+        report.put("endpoints", summaries.stream().map(s -> {
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("endpoint", s.endpoint().label());
+            e.put("count", s.count());
+            e.put("errors", s.errors());
+            e.put("perSecond", s.perSecond());
+            e.put("p50Millis", s.p50Millis());
+            e.put("p95Millis", s.p95Millis());
+            e.put("p99Millis", s.p99Millis());
+            e.put("maxMillis", s.maxMillis());
+            return e;
+        }).toList());
+
+        Path json = options.reportDir().resolve("loadtest-" + stamp + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+        log.info("Bericht: {}", json);
+
+        // Stand der Backend-Metriken (Pool-Auslastung, Caches, GC) zum Vergleich mit den Latenzen
+        HttpResponse<String> prometheus = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(backend.managementUrl() + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString()
+        );
+        if (prometheus.statusCode() == 200) {
+            Files.writeString(options.reportDir().resolve("prometheus-" + stamp + ".txt"), prometheus.body());
+        }
+    }
+
+    private static void printTable(List<LatencyRecorder.Summary> summaries, double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%nMessdauer %.1f s%n", seconds));
+        out.append(String.format("%-50s %8s %7s %9s %9s %9s %9s %9s%n",
+                "Endpunkt", "Anzahl", "Fehler", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (LatencyRecorder.Summary s : summaries) {
+            out.append(String.format("%-50s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    s.endpoint().label(), s.count(), s.errors(), s.perSecond(),
+                    s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis()));
+        }
+        System.out.println(out);
+    }
+
+    private static void sleepUntil(long nanos) {
+        long remaining = nanos - System.nanoTime();
+        if (remaining <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
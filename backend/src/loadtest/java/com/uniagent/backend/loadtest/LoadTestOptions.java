@@ -0,0 +1,114 @@
+package com.uniagent.backend.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optionen als key=value (z. B. users=200 duration=120 profiles=virtual).
+ *
+ * Schlüssel mit Punkt (app.write-behind.enabled=true, spring.datasource.hikari.maximum-pool-size=20)
+ * werden unverändert als Property an die Anwendung durchgereicht.
+ */
+public record LoadTestOptions(
+        Path appJar,
+        Path reportDir,
+        // Gleichzeitige Studierende, Messdauer und Hochlauf (nicht gemessen)
+        int users,
+        int durationSeconds,
+        int rampUpSeconds,
+        // Mittlere Denkzeit zwischen zwei Aktionen (exponentialverteilt)
+        int thinkMillis,
+        long seed,
+        // Stand-ins: Antwortzeit von Supabase Auth, n8n bis zum ersten Stück, Anzahl/Abstand der Stücke
+        int authLatencyMillis,
+        int n8nFirstChunkMillis,
+        int n8nChunks,
+        int n8nChunkMillis,
+        // Anwendung
+        String profiles,
+        List<String> jvmArgs,
+        Map<String, String> appProperties,
+        // Externe Datenbank statt eingebettetem Postgres
+        String dbUrl,
+        String dbUser,
+        String dbPassword
+) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Option ohne Wert: " + arg + " (erwartet key=value)");
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            if (key.contains(".")) {
+                appProperties.put(key, value);
+            } else {
+                values.put(key, value);
+            }
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                Path.of(required(values, "app-jar")),
+                Path.of(values.getOrDefault("report-dir", "target/loadtest")),
+                intValue(values, "users", 50),
+                intValue(values, "duration", 60),
+                intValue(values, "ramp-up", 10),
+                intValue(values, "think-ms", 1000),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                intValue(values, "auth-latency-ms", 40),
+                intValue(values, "n8n-first-chunk-ms", 800),
+                intValue(values, "n8n-chunks", 20),
+                intValue(values, "n8n-chunk-ms", 40),
+                values.getOrDefault("profiles", ""),
+                splitJvmArgs(values.getOrDefault("jvm-args", "")),
+                appProperties,
+                values.get("db-url"),
+                values.getOrDefault("db-user", "postgres"),
+                values.getOrDefault("db-password", "")
+        );
+
+        values.keySet().removeAll(List.of(
+                "app-jar", "report-dir", "users", "duration", "ramp-up", "think-ms", "seed",
+                "auth-latency-ms", "n8n-first-chunk-ms", "n8n-chunks", "n8n-chunk-ms",
+                "profiles", "jvm-args", "db-url", "db-user", "db-password"
+        ));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unbekannte Optionen: " + values.keySet());
+        }
+        if (options.users() < 1 || options.durationSeconds() < 1) {
+            throw new IllegalArgumentException("users und duration müssen mindestens 1 sein.");
+        }
+        return options;
+    }
+
+    public boolean embeddedDatabase() {
+        return dbUrl == null || dbUrl.isBlank();
+    }
+
+    private static String required(Map<String, String> values, String key) {
+        String v = values.get(key);
+        if (v == null || v.isBlank()) throw new IllegalArgumentException("Option fehlt: " + key);
+        return v;
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        String v = values.get(key);
+        return (v == null || v.isBlank()) ? defaultValue : Integer.parseInt(v.trim());
+    }
+
+    // jvm-args=-Xmx512m,-XX:+UseZGC (Komma, weil Leerzeichen schon die Optionen trennen)
+    private static List<String> splitJvmArgs(String raw) {
+        List<String> list = new ArrayList<>();
+        for (String part : raw.split(",")) {
+            if (!part.isBlank()) list.add(part.trim());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,273 @@
+package com.uniagent.backend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Startzeit bis zur ersten erfolgreichen Antwort von GET /api/chats, je Startvariante:
+ * jvm (Fat-Jar wie bisher), cds (entpackt + AppCDS), aot (Spring AOT), aot-cds (wie im Dockerfile)
+ * und native (nur mit native-binary=…).
+ *
+ * Zusätzliche Optionen zu denen des Lasttests: runs=5 (Starts je Variante), native-binary=target/uniagent-backend.
+ * Ergebnis: Tabelle auf stdout und report-dir/startup-<Zeit>.json.
+ */
+@Slf4j
+public class StartupTime {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(120);
+
+    record Mode(String name, List<String> launcher) {
+    }
+
+    record Result(String mode, List<Long> millis) {
+
+        long min() {
+            return millis.stream().mapToLong(Long::longValue).min().orElse(0);
+        }
+
+        long median() {
+            List<Long> sorted = millis.stream().sorted().toList();
+            return sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Eigene Optionen herausnehmen, der Rest geht an LoadTestOptions
+        int runs = 3;
+        String nativeBinary = null;
+        List<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("runs=")) {
+                runs = Integer.parseInt(arg.substring(5).trim());
+            } else if (arg.startsWith("native-binary=")) {
+                nativeBinary = arg.substring(14).trim();
+            } else {
+                rest.add(arg);
+            }
+        }
+        LoadTestOptions options = LoadTestOptions.parse(rest.toArray(String[]::new));
+        if (!Files.isRegularFile(options.appJar())) {
+            throw new IllegalStateException("Jar nicht gefunden: " + options.appJar() + " (mvn -Paot,loadtest verify baut es)");
+        }
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        String jwtSecret = HexFormat.of().formatHex(secret);
+
+        try (TestDatabase db = TestDatabase.start(options);
+             StubServer stub = new StubServer(options, jwtSecret)) {
+            stub.start();
+            String token = stub.accessTokenForNewAccount("startup@loadtest.invalid");
+
+            List<Mode> modes = prepareModes(options, nativeBinary, stub, jwtSecret, db);
+            List<Result> results = new ArrayList<>();
+            for (Mode mode : modes) {
+                List<Long> millis = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    millis.add(measure(options, mode, i, stub, jwtSecret, db, token));
+                }
+                Result result = new Result(mode.name(), millis);
+                log.info("{}: Median {} ms, min {} ms", mode.name(), result.median(), result.min());
+                results.add(result);
+            }
+
+            writeReport(options, runs, results);
+        }
+    }
+
+    // =========================================================
+    // Varianten
+    // =========================================================
+
+    private static List<Mode> prepareModes(
+            LoadTestOptions options,
+            String nativeBinary,
+            StubServer stub,
+            String jwtSecret,
+            TestDatabase db
+    ) throws IOException, InterruptedException {
+        Path work = options.reportDir().resolve("startup");
+        Path extracted = work.resolve("extracted");
+        deleteRecursively(extracted);
+        Files.createDirectories(work);
+
+        // Wie im Dockerfile: app.jar + lib/ statt verschachtelter Jars
+        List<String> extract = BackendProcess.javaCommand(List.of("-Djarmode=tools"), options.appJar());
+        extract.addAll(List.of("extract", "--destination", extracted.toString()));
+        Process p = new ProcessBuilder(extract).redirectErrorStream(true).redirectOutput(work.resolve("extract.log").toFile()).start();
+        if (p.waitFor() != 0) throw new IllegalStateException("Entpacken fehlgeschlagen, siehe " + work.resolve("extract.log"));
+        Path jar = extracted.resolve(options.appJar().getFileName());
+
+        List<String> jvmArgs = options.jvmArgs();
+        List<Mode> modes = new ArrayList<>();
+        modes.add(new Mode("jvm", BackendProcess.javaCommand(jvmArgs, options.appJar())));
+
+        Path jsa = work.resolve("app.jsa");
+        train(options, jvmArgs, jar, jsa, "startup-train-cds.log", stub, jwtSecret, db);
+        modes.add(new Mode("cds", BackendProcess.javaCommand(with(jvmArgs, "-XX:SharedArchiveFile=" + jsa), jar)));
+
+        if (hasAotCode(options.appJar())) {
+            List<String> aotArgs = with(jvmArgs, "-Dspring.aot.enabled=true");
+            modes.add(new Mode("aot", BackendProcess.javaCommand(aotArgs, jar)));
+
+            Path aotJsa = work.resolve("app-aot.jsa");
+            train(options, aotArgs, jar, aotJsa, "startup-train-aot-cds.log", stub, jwtSecret, db);
+            modes.add(new Mode("aot-cds", BackendProcess.javaCommand(with(aotArgs, "-XX:SharedArchiveFile=" + aotJsa), jar)));
+        } else {
+            log.warn("Jar ohne AOT-Code, aot und aot-cds entfallen (mit -Paot bauen)");
+        }
+
+        if (nativeBinary != null && !nativeBinary.isBlank()) {
+            modes.add(new Mode("native", List.of(Path.of(nativeBinary).toAbsolutePath().toString())));
+        }
+        return modes;
+    }
+
+    /**
+     * Trainingslauf für das CDS-Archiv: Kontext hochfahren, nach dem Refresh beenden.
+     */
+    private static void train(
+            LoadTestOptions options,
+            List<String> jvmArgs,
+            Path jar,
+            Path jsa,
+            String logName,
+            StubServer stub,
+            String jwtSecret,
+            TestDatabase db
+    ) throws IOException, InterruptedException {
+        Files.deleteIfExists(jsa);
+        List<String> launcher = BackendProcess.javaCommand(
+                with(with(jvmArgs, "-XX:ArchiveClassesAtExit=" + jsa), "-Dspring.context.exit=onRefresh"), jar);
+        int exit = BackendProcess.launch(options, launcher, logName, stub, jwtSecret, db).awaitExit();
+        if (exit != 0 || !Files.isRegularFile(jsa)) {
+            throw new IllegalStateException("CDS-Trainingslauf fehlgeschlagen (Exit " + exit + "), siehe "
+                    + options.reportDir().resolve(logName));
+        }
+        log.info("CDS-Archiv: {} ({} MB)", jsa, Files.size(jsa) / (1024 * 1024));
+    }
+
+    private static boolean hasAotCode(Path jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            return zip.stream().anyMatch(e -> e.getName().endsWith("__ApplicationContextInitializer.class"));
+        }
+    }
+
+    // =========================================================
+    // Messung
+    // =========================================================
+
+    private static long measure(
+            LoadTestOptions options,
+            Mode mode,
+            int run,
+            StubServer stub,
+            String jwtSecret,
+            TestDatabase db,
+            String token
+    ) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(200))
+                .build();
+
+        String logName = "startup-" + mode.name() + "-" + run + ".log";
+        try (BackendProcess backend = BackendProcess.launch(options, mode.launcher(), logName, stub, jwtSecret, db)) {
+            HttpRequest chats = HttpRequest.newBuilder(URI.create(backend.baseUrl() + "/api/chats"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+
+            long deadline = backend.startedNanos() + READY_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!backend.isAlive()) {
+                    throw new IllegalStateException(mode.name() + ": Backend beendet, siehe " + backend.logFile());
+                }
+                try {
+                    if (client.send(chats, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return (System.nanoTime() - backend.startedNanos()) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // Port noch nicht offen
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(mode.name() + ": keine Antwort von /api/chats, siehe " + backend.logFile());
+        }
+    }
+
+    // =========================================================
+    // Bericht
+    // =========================================================
+
+    private static void writeReport(LoadTestOptions options, int runs, List<Result> results) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%nErste erfolgreiche Antwort von GET /api/chats ab Prozessstart (%d Starts je Variante)%n", runs));
+        out.append(String.format("%-10s %10s %10s   %s%n", "Variante", "Median ms", "min ms", "Einzelwerte"));
+        for (Result r : results) {
+            out.append(String.format("%-10s %10d %10d   %s%n", r.mode(), r.median(), r.min(), r.millis()));
+        }
+        System.out.println(out);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("runs", runs);
+        report.put("profiles", options.profiles());
+        report.put("jvmArgs", options.jvmArgs());
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("modes", results.stream().map(r -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("mode", r.mode());
+            m.put("medianMillis", r.median());
+            m.put("minMillis", r.min());
+            m.put("millis", r.millis());
+            return m;
+        }).toList());
+
+        Path json = options.reportDir().resolve("startup-" + FILE_TIME.format(Instant.now()) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(json.toFile(), report);
+        log.info("Bericht: {}", json);
+    }
+
+    // =========================================================
+    // Hilfsfunktionen
+    // =========================================================
+
+    private static List<String> with(List<String> args, String extra) {
+        List<String> list = new ArrayList<>(args);
+        list.add(extra);
+        return list;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
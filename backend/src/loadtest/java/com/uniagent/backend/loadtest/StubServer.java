@@ -0,0 +1,255 @@
+package com.uniagent.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in für Supabase Auth (/auth/v1/…) und den n8n-Webhook, mit einstellbarer Latenz.
+ *
+ * Auth: Admin-Signup, Passwort-Login (HS256-Token wie Supabase), /user, Admin-Update, leere JWKS.
+ * n8n: NDJSON-Streaming (begin, item…, end) wie der Webhook mit aktiviertem Streaming.
+ * Jede Anfrage läuft auf einem eigenen virtuellen Thread, damit die Latenz nicht durch den Stub begrenzt wird.
+ */
+public class StubServer implements AutoCloseable {
+
+    public static final String WEBHOOK_PATH = "/webhook/uniagent";
+
+    private final LoadTestOptions options;
+    private final String jwtSecret;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Account> accountsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsById = new ConcurrentHashMap<>();
+    private final AtomicLong n8nCalls = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService threads;
+
+    private static final class Account {
+        final String id;
+        final String email;
+        volatile String password;
+
+        Account(String id, String email, String password) {
+            this.id = id;
+            this.email = email;
+            this.password = password;
+        }
+    }
+
+    public StubServer(LoadTestOptions options, String jwtSecret) {
+        this.options = options;
+        this.jwtSecret = jwtSecret;
+    }
+
+    public void start() throws IOException {
+        // Antworten sofort senden statt auf das Delayed-ACK des Clients zu warten
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/auth/v1/admin/users", this::handleAdminUsers);
+        server.createContext("/auth/v1/token", this::handleToken);
+        server.createContext("/auth/v1/user", this::handleUser);
+        server.createContext("/auth/v1/.well-known/jwks.json", ex -> sendJson(ex, 200, Map.of("keys", List.of())));
+        server.createContext(WEBHOOK_PATH, this::handleWebhook);
+
+        threads = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(threads);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long n8nCalls() {
+        return n8nCalls.get();
+    }
+
+    public List<UUID> accountIds() {
+        return accountsById.keySet().stream().map(UUID::fromString).toList();
+    }
+
+    /**
+     * Legt ein Konto ohne Signup an und liefert dessen Access-Token (für Messungen ohne Registrierung).
+     */
+    public String accessTokenForNewAccount(String email) {
+        Account account = new Account(UUID.randomUUID().toString(), email, "");
+        accountsByEmail.put(email, account);
+        accountsById.put(account.id, account);
+        return accessToken(account);
+    }
+
+    @Override
+    public void close() {
+        if (server != null) server.stop(0);
+        if (threads != null) threads.shutdownNow();
+    }
+
+    // =========================================================
+    // Supabase Auth
+    // =========================================================
+
+    // POST /auth/v1/admin/users (Signup), PUT /auth/v1/admin/users/{id} (Passwort/Profil)
+    private void handleAdminUsers(HttpExchange ex) throws IOException {
+        sleep(options.authLatencyMillis());
+        JsonNode body = readJson(ex);
+
+        if ("POST".equals(ex.getRequestMethod())) {
+            String email = body.path("email").asText("");
+            Account account = new Account(UUID.randomUUID().toString(), email, body.path("password").asText(""));
+            if (accountsByEmail.putIfAbsent(email, account) != null) {
+                sendJson(ex, 422, Map.of("msg", "A user with this email address has already been registered"));
+                return;
+            }
+            accountsById.put(account.id, account);
+            sendJson(ex, 200, Map.of("id", account.id, "email", email));
+            return;
+        }
+
+        if ("PUT".equals(ex.getRequestMethod())) {
+            String path = ex.getRequestURI().getPath();
+            Account account = accountsById.get(path.substring(path.lastIndexOf('/') + 1));
+            if (account == null) {
+                sendJson(ex, 404, Map.of("msg", "User not found"));
+                return;
+            }
+            if (body.hasNonNull("password")) account.password = body.get("password").asText();
+            sendJson(ex, 200, Map.of("id", account.id, "email", account.email));
+            return;
+        }
+
+        sendJson(ex, 405, Map.of());
+    }
+
+    // POST /auth/v1/token?grant_type=password
+    private void handleToken(HttpExchange ex) throws IOException {
+        sleep(options.authLatencyMillis());
+        JsonNode body = readJson(ex);
+        Account account = accountsByEmail.get(body.path("email").asText(""));
+        if (account == null || !account.password.equals(body.path("password").asText())) {
+            sendJson(ex, 400, Map.of("error", "invalid_grant", "error_description", "Invalid login credentials"));
+            return;
+        }
+        sendJson(ex, 200, Map.of(
+                "access_token", accessToken(account),
+                "token_type", "bearer",
+                "expires_in", 3600,
+                "user", Map.of("id", account.id, "email", account.email)
+        ));
+    }
+
+    // GET /auth/v1/user – nur wenn die lokale Prüfung im Backend nicht greift
+    private void handleUser(HttpExchange ex) throws IOException {
+        sleep(options.authLatencyMillis());
+        String auth = ex.getRequestHeaders().getFirst("Authorization");
+        Account account = null;
+        if (auth != null && auth.startsWith("Bearer ")) {
+            String[] parts = auth.substring(7).split("\\.");
+            if (parts.length == 3) {
+                JsonNode claims = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+                account = accountsById.get(claims.path("sub").asText(""));
+            }
+        }
+        if (account == null) {
+            sendJson(ex, 401, Map.of("msg", "invalid JWT"));
+            return;
+        }
+        sendJson(ex, 200, Map.of("id", account.id, "email", account.email));
+    }
+
+    private String accessToken(Account account) {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String header = b64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String claims = b64.encodeToString((
+                "{\"sub\":\"" + account.id + "\",\"aud\":\"authenticated\",\"role\":\"authenticated\","
+                        + "\"email\":\"" + account.email + "\",\"exp\":" + (Instant.now().getEpochSecond() + 3600) + "}"
+        ).getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] sig = mac.doFinal((header + "." + claims).getBytes(StandardCharsets.US_ASCII));
+            return header + "." + claims + "." + b64.encodeToString(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // =========================================================
+    // n8n Webhook
+    // =========================================================
+
+    private void handleWebhook(HttpExchange ex) throws IOException {
+        n8nCalls.incrementAndGet();
+        String question = readJson(ex).path("chatInput").asText("");
+        String[] words = ("Zu deiner Frage \"" + question + "\" findest du alle Informationen im Studierendenportal "
+                + "unter Studium und Lehre sowie im Modulhandbuch deines Studiengangs.").split(" ");
+
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, 0);
+        try (OutputStream out = ex.getResponseBody()) {
+            sleep(options.n8nFirstChunkMillis());
+            writeLine(out, Map.of("type", "begin"));
+            int chunks = Math.max(1, options.n8nChunks());
+            for (int i = 0; i < chunks; i++) {
+                if (i > 0) sleep(options.n8nChunkMillis());
+                int from = i * words.length / chunks;
+                int to = (i + 1) * words.length / chunks;
+                StringBuilder part = new StringBuilder();
+                for (int w = from; w < to; w++) part.append(words[w]).append(' ');
+                writeLine(out, Map.of("type", "item", "content", part.toString()));
+            }
+            writeLine(out, Map.of("type", "end"));
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+        out.flush();
+    }
+
+    // =========================================================
+    // Hilfsfunktionen
+    // =========================================================
+
+    private JsonNode readJson(HttpExchange ex) throws IOException {
+        byte[] bytes = ex.getRequestBody().readAllBytes();
+        return (bytes.length == 0) ? objectMapper.createObjectNode() : objectMapper.readTree(bytes);
+    }
+
+    private void sendJson(HttpExchange ex, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(int millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
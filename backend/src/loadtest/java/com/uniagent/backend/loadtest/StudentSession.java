@@ -0,0 +1,314 @@
+package com.uniagent.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Ein simulierter Studierender: einmal registrieren, dann bis zum Ende Sitzungen wie im Frontend –
+ * Login, Startseite (Top-FAQ, Chatliste), Chat anlegen oder fortsetzen, Fragen per /ask, Suche,
+ * gelegentlich Profil, Passwort, Löschen und Import per Batch.
+ */
+public class StudentSession implements Runnable {
+
+    static final String PASSWORD = "Lasttest1!";
+
+    // Häufige Einstiegsfragen (treffen den Antwort-Cache und die Top-FAQ)
+    private static final String[] COMMON_QUESTIONS = {
+            "Wann ist die Rückmeldefrist?",
+            "Wie melde ich mich zur Prüfung an?",
+            "Wo finde ich das Modulhandbuch?",
+            "Wie hoch ist der Semesterbeitrag?",
+            "Wann beginnt das Wintersemester?",
+            "Wie verlängere ich Bücher in der Bibliothek?",
+            "Wie beantrage ich ein Urlaubssemester?",
+            "Wo finde ich meinen Stundenplan?",
+            "Wie funktioniert die Anerkennung von Prüfungsleistungen?",
+            "Brauche ich für das Praktikum eine Bescheinigung?"
+    };
+
+    private static final String[] TOPICS = {
+            "Rückmeldung", "Prüfungsanmeldung", "Frist", "Semesterbeitrag", "Bibliothek",
+            "Modulhandbuch", "Praktikum", "Stundenplan", "Immatrikulation", "Wintersemester"
+    };
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final int index;
+    private final String baseUrl;
+    private final HttpClient http;
+    private final LatencyRecorder recorder;
+    private final LoadTestOptions options;
+    private final long deadlineNanos;
+    private final Random random;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String runId;
+    private String email;
+    private int accounts = 0;
+    private String password = PASSWORD;
+    private String token;
+
+    public StudentSession(
+            int index,
+            String runId,
+            String baseUrl,
+            HttpClient http,
+            LatencyRecorder recorder,
+            LoadTestOptions options,
+            long deadlineNanos
+    ) {
+        this.index = index;
+        this.baseUrl = baseUrl;
+        this.http = http;
+        this.recorder = recorder;
+        this.options = options;
+        this.deadlineNanos = deadlineNanos;
+        this.random = new Random(options.seed() * 31 + index);
+        this.runId = runId;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!register()) return;
+            while (!timeUp()) {
+                session();
+                think(3);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean timeUp() {
+        return System.nanoTime() >= deadlineNanos;
+    }
+
+    // =========================================================
+    // Ablauf
+    // =========================================================
+
+    /**
+     * Neues Konto; im Lauf wechseln gelegentlich Studierende auf ein frisches Konto (Neuregistrierung).
+     */
+    private boolean register() throws InterruptedException {
+        email = "student-" + index + "-" + (accounts++) + "-" + runId + "@loadtest.invalid";
+        password = PASSWORD;
+        JsonNode resp = send(Endpoint.REGISTER, post("/api/auth/register", Map.of(
+                "firstName", "Lasttest",
+                "lastName", "Student" + index,
+                "email", email,
+                "password", password
+        )));
+        return resp != null && resp.path("success").asBoolean();
+    }
+
+    private void session() throws InterruptedException {
+        if (chance(0.03) && !register()) return;
+
+        JsonNode login = send(Endpoint.LOGIN, post("/api/auth/login", Map.of("email", email, "password", password)));
+        if (login == null || !login.hasNonNull("token")) return;
+        token = login.get("token").asText();
+
+        // Startseite
+        if (chance(0.5)) send(Endpoint.FAQ_TOP, get("/api/faq/top", false));
+        List<String> chatIds = chatIds(chance(0.3)
+                ? send(Endpoint.LIST_CHATS_PAGE, get("/api/chats?limit=20", true))
+                : send(Endpoint.LIST_CHATS, get("/api/chats", true)));
+        think(1);
+
+        String chatId;
+        if (chatIds.isEmpty() || chance(0.5)) {
+            JsonNode created = send(Endpoint.CREATE_CHAT, post("/api/chats", Map.of("title", "Neuer Chat")));
+            if (created == null || !created.hasNonNull("chatId")) return;
+            chatId = created.get("chatId").asText();
+        } else {
+            chatId = chatIds.get(random.nextInt(chatIds.size()));
+            if (chance(0.3)) {
+                send(Endpoint.GET_MESSAGES_PAGE, get("/api/chats/" + chatId + "/messages?limit=50", true));
+            } else {
+                send(Endpoint.GET_MESSAGES, get("/api/chats/" + chatId + "/messages", true));
+            }
+        }
+        think(1);
+
+        int questions = 1 + random.nextInt(4);
+        for (int i = 0; i < questions && !timeUp(); i++) {
+            ask(chatId, question(i == 0));
+            think(2);
+        }
+
+        if (chance(0.1)) {
+            send(Endpoint.ADD_MESSAGE, post("/api/chats/" + chatId + "/messages",
+                    Map.of("sender", "user", "content", question(false))));
+        }
+        if (chance(0.05)) importChat();
+        if (chance(0.3)) {
+            String q = URLEncoder.encode(TOPICS[random.nextInt(TOPICS.length)], StandardCharsets.UTF_8);
+            send(Endpoint.SEARCH, get("/api/chats/search?q=" + q, true));
+            think(1);
+        }
+        if (chatIds.size() > 5 && chance(0.1)) {
+            String old = chatIds.get(chatIds.size() - 1);
+            send(Endpoint.DELETE_CHAT, request("/api/chats/" + old, true).DELETE());
+        }
+        if (chance(0.05)) {
+            send(Endpoint.UPDATE_PROFILE, request("/api/auth/profile", true)
+                    .header("Content-Type", "application/json")
+                    .PUT(json(Map.of("firstName", "Lasttest", "lastName", "Student" + index, "email", email))));
+        }
+        if (chance(0.02)) changePassword();
+    }
+
+    private void ask(String chatId, String question) {
+        HttpRequest request = post("/api/chats/" + chatId + "/ask", Map.of("question", question))
+                .header("Accept", "text/event-stream")
+                .build();
+        long start = System.nanoTime();
+        boolean ok = false;
+        boolean firstToken = false;
+        try {
+            HttpResponse<InputStream> resp = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resp.body(), StandardCharsets.UTF_8))) {
+                if (resp.statusCode() != 200) return;
+                String line;
+                boolean failed = false;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("event:")) {
+                        String event = line.substring(6).trim();
+                        if (!firstToken && event.equals("token")) {
+                            firstToken = true;
+                            recorder.record(Endpoint.ASK_FIRST_TOKEN, start, true);
+                        }
+                        if (event.equals("error")) failed = true;
+                    }
+                }
+                ok = !failed && firstToken;
+            }
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!firstToken) recorder.record(Endpoint.ASK_FIRST_TOKEN, start, false);
+            recorder.record(Endpoint.ASK, start, ok);
+        }
+    }
+
+    // Import eines Verlaufs über den Batch-Endpoint (neuer Chat mit 10 Nachrichten)
+    private void importChat() throws InterruptedException {
+        JsonNode created = send(Endpoint.CREATE_CHAT, post("/api/chats", Map.of("title", "Import")));
+        if (created == null || !created.hasNonNull("chatId")) return;
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add(Map.of("sender", (i % 2 == 0) ? "user" : "bot", "content", question(false)));
+        }
+        send(Endpoint.ADD_MESSAGES_BATCH, post("/api/chats/" + created.get("chatId").asText() + "/messages:batch",
+                Map.of("messages", messages)));
+    }
+
+    private void changePassword() throws InterruptedException {
+        String next = PASSWORD.equals(password) ? PASSWORD + "x" : PASSWORD;
+        JsonNode resp = send(Endpoint.CHANGE_PASSWORD, post("/api/auth/change-password", Map.of(
+                "email", email, "oldPassword", password, "newPassword", next
+        )));
+        if (resp != null && resp.path("success").asBoolean()) password = next;
+    }
+
+    private String question(boolean firstInChat) {
+        if (firstInChat && chance(0.6)) {
+            // Zipf-ähnlich: die ersten Fragen deutlich häufiger
+            int i = (int) Math.min(COMMON_QUESTIONS.length - 1, Math.floor(-Math.log(random.nextDouble()) * 2.5));
+            return COMMON_QUESTIONS[i];
+        }
+        return "Was muss ich zur " + TOPICS[random.nextInt(TOPICS.length)] + " im Fach "
+                + TOPICS[random.nextInt(TOPICS.length)] + " wissen? (" + UUID.randomUUID().toString().substring(0, 8) + ")";
+    }
+
+    private List<String> chatIds(JsonNode list) {
+        List<String> ids = new ArrayList<>();
+        if (list != null && list.isArray()) {
+            for (JsonNode chat : list) ids.add(chat.path("id").asText());
+        }
+        return ids;
+    }
+
+    // =========================================================
+    // HTTP
+    // =========================================================
+
+    private HttpRequest.Builder request(String path, boolean authenticated) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+        if (authenticated && token != null) b.header("Authorization", "Bearer " + token);
+        return b;
+    }
+
+    private HttpRequest.Builder get(String path, boolean authenticated) {
+        return request(path, authenticated).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        return request(path, true).header("Content-Type", "application/json").POST(json(body));
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sendet, misst und liefert den JSON-Body bei 2xx; null bei Fehler (wird als Fehler gezählt).
+     */
+    private JsonNode send(Endpoint endpoint, HttpRequest.Builder request) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> resp = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            boolean ok = resp.statusCode() / 100 == 2;
+            recorder.record(endpoint, start, ok);
+            if (!ok || resp.body().length == 0) return null;
+            return objectMapper.readTree(resp.body());
+        } catch (IOException e) {
+            recorder.record(endpoint, start, false);
+            return null;
+        }
+    }
+
+    // =========================================================
+    // Zufall
+    // =========================================================
+
+    private boolean chance(double p) {
+        return random.nextDouble() < p;
+    }
+
+    /**
+     * Denkzeit: factor × exponentialverteilt um think-ms, höchstens bis zum Ende des Laufs.
+     */
+    private void think(int factor) throws InterruptedException {
+        if (options.thinkMillis() <= 0) return;
+        long millis = (long) (-Math.log(1 - random.nextDouble()) * options.thinkMillis() * factor);
+        long remaining = (deadlineNanos - System.nanoTime()) / 1_000_000;
+        Thread.sleep(Math.max(0, Math.min(millis, remaining)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.uniagent.backend.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Postgres für den Lasttest: eingebettet (zonky, ohne Container) mit dem Schema aus db/migration,
+ * oder eine vorhandene Datenbank (db-url); deren Schema bringt das Backend beim Start per Flyway auf Stand
+ * (BackendProcess setzt spring.flyway.enabled=true).
+ *
+ * In der vorhandenen Datenbank werden am Ende nur die Zeilen der Lasttest-User gelöscht.
+ */
+@Slf4j
+public class TestDatabase implements AutoCloseable {
+
+    private final EmbeddedPostgres embedded;
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+
+    private TestDatabase(EmbeddedPostgres embedded, String jdbcUrl, String user, String password) {
+        this.embedded = embedded;
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+    }
+
+    public static TestDatabase start(LoadTestOptions options) throws IOException, SQLException {
+        if (!options.embeddedDatabase()) {
+            TestDatabase db = new TestDatabase(null, options.dbUrl(), options.dbUser(), options.dbPassword());
+            try (Connection c = db.connect()) {
+                log.info("Externe Datenbank: {} ({})", options.dbUrl(), c.getMetaData().getDatabaseProductVersion());
+            }
+            return db;
+        }
+
+        EmbeddedPostgres pg = EmbeddedPostgres.builder()
+                .setServerConfig("max_connections", "300")
+                .setServerConfig("shared_buffers", "256MB")
+                .start();
+        TestDatabase db = new TestDatabase(pg, pg.getJdbcUrl("postgres", "postgres"), "postgres", "postgres");
+        db.migrate();
+        return db;
+    }
+
+    public String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String user() {
+        return user;
+    }
+
+    public String password() {
+        return password;
+    }
+
+    public Connection connect() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, user, password);
+    }
+
+    /**
+     * Schema per Flyway aus db/migration, mit denselben spring.flyway.*-Einstellungen wie application.properties
+     * (das Backend hat beim Start danach nichts mehr zu tun).
+     */
+    private void migrate() {
+        MigrateResult result = Flyway.configure()
+                .dataSource(jdbcUrl, user, password)
+                .locations("classpath:db/migration")
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        log.info("{} Migrationen angewendet, Schema-Version {}", result.migrationsExecuted, result.targetSchemaVersion);
+    }
+
+    /**
+     * Zeilen der Lasttest-User entfernen (chat_messages per ON DELETE CASCADE).
+     */
+    public void deleteUsers(Collection<UUID> authUserIds) throws SQLException {
+        if (authUserIds.isEmpty()) return;
+        try (Connection c = connect()) {
+            Array ids = c.createArrayOf("uuid", authUserIds.toArray());
+            try (PreparedStatement chats = c.prepareStatement("DELETE FROM public.chats WHERE auth_user_id = ANY (?)");
+                 PreparedStatement users = c.prepareStatement("DELETE FROM public.users WHERE auth_user_id = ANY (?)")) {
+                chats.setArray(1, ids);
+                chats.executeUpdate();
+                users.setArray(1, ids);
+                users.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (embedded != null) embedded.close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.uniagent.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.service.ChatListStore;
+import com.uniagent.backend.service.MemoryChatListStore;
+import com.uniagent.backend.service.RedisChatListStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Speicher des ChatListCache, Einstellungen app.chat-list-cache.* in application.properties.
+ *
+ * Auswahl zur Laufzeit statt über @ConditionalOnProperty, damit ein AOT-Build beide Varianten kann.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ChatListCacheConfig {
+
+    @Bean
+    public ChatListStore chatListStore(
+            ObjectMapper objectMapper,
+            @Value("${app.chat-list-cache.backend:memory}") String backend,
+            @Value("${app.chat-list-cache.max-users:20000}") int maxUsers,
+            @Value("${app.chat-list-cache.idle-seconds:1800}") long idleSeconds,
+            @Value("${app.chat-list-cache.redis.url:redis://localhost:6379}") String redisUrl,
+            @Value("${app.chat-list-cache.redis.key-prefix:uniagent:chat-list:}") String redisKeyPrefix,
+            @Value("${app.chat-list-cache.redis.timeout-ms:500}") long redisTimeoutMillis
+    ) {
+        return switch (backend.trim().toLowerCase()) {
+            case "memory" -> new MemoryChatListStore(maxUsers, idleSeconds);
+            case "redis" -> new RedisChatListStore(redisUrl, redisKeyPrefix, idleSeconds, redisTimeoutMillis, objectMapper);
+            default -> throw new IllegalStateException(
+                    "app.chat-list-cache.backend: unbekannter Wert '" + backend + "' (memory oder redis)");
+        };
+    }
+}
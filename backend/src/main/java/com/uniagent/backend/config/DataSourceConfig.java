@@ -0,0 +1,106 @@
+package com.uniagent.backend.config;
+
+import com.uniagent.backend.service.ReplicaRouter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primary (spring.datasource.*) plus optionale Lesereplikate, Einstellungen app.replicas.* in application.properties.
+ *
+ * Die Primary wird wie von Spring Boot gebaut (Hikari, spring.datasource.hikari.*), die DataSource
+ * für JdbcTemplate, Transaktionen und Flyway ist die Routing-DataSource des ReplicaRouter.
+ * Immer angelegt, auch ohne Replikate: die Entscheidung fällt zur Laufzeit (AOT-Build).
+ */
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRouter replicaRouter(
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.replicas.urls:}") String urls,
+            @Value("${app.replicas.username:}") String username,
+            @Value("${app.replicas.password:}") String password,
+            @Value("${app.replicas.pool-size:0}") int poolSize,
+            @Value("${app.replicas.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+            @Value("${app.replicas.max-lag-ms:2000}") long maxLagMillis
+    ) {
+        List<String> jdbcUrls = Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(u -> !u.isEmpty())
+                .toList();
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < jdbcUrls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariConfig config = replicaConfig(primaryDataSource, name, jdbcUrls.get(i), poolSize, connectionTimeoutMillis);
+            config.setUsername(StringUtils.hasText(username) ? username : primaryDataSource.getUsername());
+            config.setPassword(StringUtils.hasText(password) ? password : primaryDataSource.getPassword());
+            config.setMetricRegistry(meterRegistry);
+            replicas.put(name, new HikariDataSource(config));
+        }
+        return new ReplicaRouter(primaryDataSource, replicas, maxLagMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return replicaRouter.dataSource();
+    }
+
+    /**
+     * Pool-Einstellungen der Primary übernehmen (Treiber-Properties wie prepareThreshold, Lebensdauer),
+     * Größe und Verbindungs-Timeout eigen: ein hängendes Replikat soll Lesezugriffe nicht lange aufhalten.
+     */
+    private static HikariConfig replicaConfig(HikariDataSource primary, String name, String jdbcUrl,
+                                              int poolSize, long connectionTimeoutMillis) {
+        HikariConfig config = new HikariConfig();
+        String primaryPool = StringUtils.hasText(primary.getPoolName()) ? primary.getPoolName() : "uniagent-db";
+        config.setPoolName(primaryPool + "-" + name);
+        config.setJdbcUrl(jdbcUrl);
+        if (primary.getDriverClassName() != null) {
+            config.setDriverClassName(primary.getDriverClassName());
+        }
+
+        // Ohne Angabe steht maximumPoolSize vor dem Start des Pools noch auf -1 (dann Hikari-Standard 10)
+        int size = (poolSize > 0) ? poolSize : (primary.getMaximumPoolSize() > 0 ? primary.getMaximumPoolSize() : 10);
+        config.setMaximumPoolSize(size);
+        if (primary.getMinimumIdle() >= 0) {
+            config.setMinimumIdle(Math.min(primary.getMinimumIdle(), size));
+        }
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        config.setMaxLifetime(primary.getMaxLifetime());
+        config.setKeepaliveTime(primary.getKeepaliveTime());
+        config.setIdleTimeout(primary.getIdleTimeout());
+        config.setRegisterMbeans(primary.isRegisterMbeans());
+        config.setDataSourceProperties(primary.getDataSourceProperties());
+        config.setReadOnly(true);
+        // Start auch ohne erreichbares Replikat; probe() nimmt es auf, sobald es antwortet
+        config.setInitializationFailTimeout(-1);
+        return config;
+    }
+}
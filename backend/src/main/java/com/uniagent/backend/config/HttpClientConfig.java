@@ -0,0 +1,143 @@
+package com.uniagent.backend.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP-Client für die Calls an Supabase (Auth/Admin, JWKS).
+ *
+ * - java.net.http.HttpClient mit HTTP/2: handelt der Server h2 per ALPN aus, laufen alle Requests
+ *   gemultiplext über eine Verbindung pro Host (ein TLS-Handshake, kein Pool-Limit pro Host);
+ *   sonst HTTP/1.1 mit Keep-Alive
+ * - Timeouts: Connect und Gesamtzeit bis zur Antwort
+ *
+ * n8n hat einen eigenen Pool (N8nConfig, HttpClient5 mit HTTP/1.1): ein /ask-Stream hält seine
+ * Verbindung minutenlang, auf einem gemeinsamen Client würden volle Streams die Token-Prüfung aushungern.
+ * buildConnectionManager/buildClient sind dafür da.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${app.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${app.http.total-timeout-ms:15000}")
+    private long totalTimeoutMs;
+
+    @Value("${app.http.idle-timeout-seconds:30}")
+    private long idleTimeoutSeconds;
+
+    @Bean(destroyMethod = "close")
+    public HttpClient supabaseHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Pool mit den gemeinsamen Connect-/Read-Timeouts; schließen muss ihn die eigene Bean.
+     */
+    PoolingHttpClientConnectionManager buildConnectionManager(int maxTotal, int maxPerHost) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerHost)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService httpDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "http-deadline");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Client auf einem Pool-Bean; der Pool selbst wird nur über seine eigene Bean geschlossen.
+     */
+    CloseableHttpClient buildClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            ScheduledExecutorService deadlineScheduler,
+            RequestConfig requestConfig,
+            long totalTimeoutMillis
+    ) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+                // Gesamt-Timeout: Request abbrechen, wenn bis dahin keine Antwort da ist
+                .addExecInterceptorFirst("total-timeout", (request, scope, chain) -> {
+                    if (!(scope.originalRequest instanceof Cancellable cancellable)) {
+                        return chain.proceed(request, scope);
+                    }
+                    ScheduledFuture<?> deadline = deadlineScheduler.schedule(
+                            cancellable::cancel,
+                            totalTimeoutMillis,
+                            TimeUnit.MILLISECONDS
+                    );
+                    try {
+                        return chain.proceed(request, scope);
+                    } finally {
+                        deadline.cancel(false);
+                    }
+                })
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(
+            RestTemplateBuilder builder,
+            @Qualifier("supabaseHttpClient") HttpClient supabaseHttpClient
+    ) {
+        return builder
+                .requestFactory(() -> {
+                    JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(supabaseHttpClient);
+                    // Der JDK-Client kennt nur einen Timeout pro Request: bis die Antwort da ist
+                    factory.setReadTimeout(Duration.ofMillis(totalTimeoutMs));
+                    // Kleine JSON-Bodies puffern, damit sie wie bisher mit Content-Length statt chunked rausgehen
+                    return new BufferingClientHttpRequestFactory(factory);
+                })
+                .build();
+    }
+}
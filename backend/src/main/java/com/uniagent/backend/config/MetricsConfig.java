@@ -0,0 +1,217 @@
+package com.uniagent.backend.config;
+
+import com.uniagent.backend.service.AccessTokenCache;
+import com.uniagent.backend.service.AnswerCache;
+import com.uniagent.backend.service.ChatListCache;
+import com.uniagent.backend.service.ChatOwnerCache;
+import com.uniagent.backend.service.FaqAggregator;
+import com.uniagent.backend.service.MessageArchiver;
+import com.uniagent.backend.service.MessageWriteBehind;
+import com.uniagent.backend.service.ReplicaRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metriken für Prometheus (/actuator/prometheus auf dem Management-Port, Einstellungen in application.properties).
+ *
+ * Automatisch über Spring Boot: HTTP-Server (http.server.requests), RestTemplate-Calls
+ * (http.client.requests), Hikari (hikaricp.*), JVM, Tomcat.
+ * Eigene Timer: uniagent.db.query (SupabaseDatabaseClient), uniagent.supabase.auth (SupabaseAuthClient).
+ * Hier: Auslastung des n8n-HTTP-Pools (Supabase läuft über HTTP/2 ohne Pool) und des /ask-Executors, Kennzahlen der Caches, der Top-FAQ,
+ * des Write-Behind, der Archivierung, der Lesereplikate und des Pinning-Monitors.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder n8nHttpPoolMetrics(
+            @Qualifier("n8nConnectionManager") PoolingHttpClientConnectionManager n8nConnectionManager
+    ) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(n8nConnectionManager, "n8n");
+    }
+
+    /**
+     * Nur im Thread-Modus; virtuelle Threads haben keinen Pool, der volllaufen kann.
+     */
+    @Bean
+    public MeterBinder askExecutorMetrics(@Qualifier("askExecutor") TaskExecutor askExecutor) {
+        return registry -> {
+            if (!(askExecutor instanceof ThreadPoolTaskExecutor pool)) return;
+            Gauge.builder("uniagent.ask.executor.active", pool, ThreadPoolTaskExecutor::getActiveCount)
+                    .description("Laufende /ask-Streams")
+                    .register(registry);
+            Gauge.builder("uniagent.ask.executor.queued", pool, ThreadPoolTaskExecutor::getQueueSize)
+                    .description("Wartende /ask-Streams")
+                    .register(registry);
+            Gauge.builder("uniagent.ask.executor.max", pool, ThreadPoolTaskExecutor::getMaxPoolSize)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder accessTokenCacheMetrics(AccessTokenCache tokenCache) {
+        return registry -> {
+            FunctionCounter.builder("uniagent.token_cache.hits", tokenCache, c -> c.stats().hits())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.token_cache.misses", tokenCache, c -> c.stats().misses())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.token_cache.evictions", tokenCache, c -> c.stats().evictions())
+                    .register(registry);
+            Gauge.builder("uniagent.token_cache.entries", tokenCache, c -> c.stats().size())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder answerCacheMetrics(AnswerCache answerCache) {
+        return registry -> {
+            FunctionCounter.builder("uniagent.answer_cache.hits", answerCache, c -> c.stats().hits())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.answer_cache.misses", answerCache, c -> c.stats().misses())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.answer_cache.evictions", answerCache, c -> c.stats().evictions())
+                    .register(registry);
+            Gauge.builder("uniagent.answer_cache.entries", answerCache, c -> c.stats().entries())
+                    .register(registry);
+            Gauge.builder("uniagent.answer_cache.bytes", answerCache, c -> c.stats().bytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder chatOwnerCacheMetrics(ChatOwnerCache chatOwnerCache) {
+        return registry -> {
+            FunctionCounter.builder("uniagent.chat_owner_cache.hits", chatOwnerCache, c -> c.stats().hits())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.chat_owner_cache.misses", chatOwnerCache, c -> c.stats().misses())
+                    .register(registry);
+            Gauge.builder("uniagent.chat_owner_cache.entries", chatOwnerCache, c -> c.stats().entries())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder chatListCacheMetrics(ChatListCache chatListCache) {
+        return registry -> {
+            if (!chatListCache.isEnabled()) return;
+            FunctionCounter.builder("uniagent.chat_list_cache.hits", chatListCache, c -> c.stats().hits())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.chat_list_cache.misses", chatListCache, c -> c.stats().misses())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.chat_list_cache.updates", chatListCache, c -> c.stats().updates())
+                    .description("Write-through-Änderungen an gespeicherten Listen")
+                    .register(registry);
+            FunctionCounter.builder("uniagent.chat_list_cache.discarded_loads", chatListCache, c -> c.stats().discardedLoads())
+                    .description("Aus Postgres geladene Listen, die wegen gleichzeitiger Änderungen nicht gespeichert wurden")
+                    .register(registry);
+            FunctionCounter.builder("uniagent.chat_list_cache.errors", chatListCache, c -> c.stats().errors())
+                    .register(registry);
+            // Nur In-Memory; Redis zählt seine Schlüssel selbst
+            if (chatListCache.stats().users() >= 0) {
+                Gauge.builder("uniagent.chat_list_cache.users", chatListCache, c -> c.stats().users())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder faqMetrics(FaqAggregator faqAggregator) {
+        return registry -> Gauge.builder("uniagent.faq.questions", faqAggregator, FaqAggregator::trackedQuestions)
+                .description("Verschiedene gezählte Fragen")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder writeBehindMetrics(MessageWriteBehind writeBehind) {
+        return registry -> {
+            if (!writeBehind.isEnabled()) return;
+            FunctionCounter.builder("uniagent.write_behind.accepted", writeBehind, w -> w.stats().accepted())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.write_behind.flushed", writeBehind, w -> w.stats().flushed())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.write_behind.batches", writeBehind, w -> w.stats().batches())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.write_behind.sync_writes", writeBehind, w -> w.stats().syncWrites())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.write_behind.flush_errors", writeBehind, w -> w.stats().flushErrors())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.write_behind.dead_letters", writeBehind, w -> w.stats().deadLetters())
+                    .description("Von Postgres dauerhaft abgelehnte Nachrichten (dead-letter.jsonl)")
+                    .register(registry);
+            Gauge.builder("uniagent.write_behind.queued", writeBehind, w -> w.stats().queued())
+                    .register(registry);
+            // Annahme bis Flush; Rate von sum/count = mittlere Latenz im Zeitfenster
+            FunctionTimer.builder("uniagent.write_behind.flush_latency", writeBehind,
+                            w -> w.stats().flushed(), w -> w.stats().totalFlushLatencyMillis(), TimeUnit.MILLISECONDS)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder archiverMetrics(MessageArchiver archiver) {
+        return registry -> {
+            if (!archiver.isEnabled()) return;
+            FunctionCounter.builder("uniagent.archive.messages", archiver, a -> a.stats().messages())
+                    .description("Archivierte Nachrichten seit Start")
+                    .register(registry);
+            FunctionCounter.builder("uniagent.archive.chats", archiver, a -> a.stats().chats())
+                    .register(registry);
+            FunctionCounter.builder("uniagent.archive.raw_bytes", archiver, a -> a.stats().rawBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("uniagent.archive.stored_bytes", archiver, a -> a.stats().storedBytes())
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Verteilung der markierten Lesezugriffe (target=primary oder Name des Replikats) und Verzug pro Replikat.
+     */
+    @Bean
+    public MeterBinder replicaMetrics(ReplicaRouter replicaRouter) {
+        return registry -> {
+            if (!replicaRouter.hasReplicas()) return;
+            FunctionCounter.builder("uniagent.db.reads", replicaRouter, r -> r.stats().primaryReads())
+                    .tag("target", "primary")
+                    .register(registry);
+            FunctionCounter.builder("uniagent.db.replica.fallbacks", replicaRouter, r -> r.stats().fallbacks())
+                    .description("Lesezugriffe, die nach einem Fehler auf dem Replikat die Primary wiederholt hat")
+                    .register(registry);
+            for (String name : replicaRouter.stats().replicas().keySet()) {
+                FunctionCounter.builder("uniagent.db.reads", replicaRouter, r -> r.stats().replicas().get(name).reads())
+                        .tag("target", name)
+                        .register(registry);
+                Gauge.builder("uniagent.db.replica.lag", replicaRouter, r -> r.stats().replicas().get(name).lagSeconds())
+                        .tag("replica", name)
+                        .baseUnit("seconds")
+                        .register(registry);
+                Gauge.builder("uniagent.db.replica.available", replicaRouter,
+                                r -> r.stats().replicas().get(name).available() ? 1 : 0)
+                        .tag("replica", name)
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder pinningMetrics(ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor) {
+        return registry -> pinningMonitor.ifAvailable(monitor ->
+                FunctionCounter.builder("uniagent.virtual_threads.pinned", monitor, VirtualThreadPinningMonitor::pinnedEvents)
+                        .description("Virtuelle Threads, die ihren Carrier blockiert haben")
+                        .register(registry));
+    }
+}
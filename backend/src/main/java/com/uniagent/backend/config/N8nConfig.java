@@ -0,0 +1,111 @@
+package com.uniagent.backend.config;
+
+import lombok.Getter;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * n8n Chat-Webhook: eigener Client mit eigenem Connection-Pool (längere Timeouts, weil das LLM
+ * seine Antwort erst erzeugt) und ein Executor für die SSE-Streams.
+ *
+ * Jeder Stream hält eine Verbindung, der Pool ist daher so groß wie der Executor
+ * (n8n.stream-threads bzw. n8n.stream-virtual-limit) und nimmt Supabase nichts weg.
+ */
+@Configuration
+@Getter
+public class N8nConfig {
+
+    // Chat-Webhook des Agenten
+    @Value("${n8n.webhook.url}")
+    private String webhookUrl;
+
+    // Maximale Pause zwischen zwei Chunks der Antwort
+    @Value("${n8n.read-timeout-ms:120000}")
+    private long readTimeoutMs;
+
+    // Maximale Zeit bis zum Beginn der Antwort
+    @Value("${n8n.total-timeout-ms:120000}")
+    private long totalTimeoutMs;
+
+    // Maximale Dauer eines /ask-Streams
+    @Value("${n8n.stream-timeout-ms:180000}")
+    private long streamTimeoutMs;
+
+    @Value("${n8n.stream-threads:32}")
+    private int streamThreads;
+
+    // Mit virtuellen Threads: maximale Anzahl gleichzeitiger /ask-Streams
+    @Value("${n8n.stream-virtual-limit:1000}")
+    private int streamVirtualLimit;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager n8nConnectionManager(HttpClientConfig httpClientConfig) {
+        int streams = virtualThreads ? streamVirtualLimit : streamThreads;
+        return httpClientConfig.buildConnectionManager(streams, streams);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient n8nHttpClient(
+            HttpClientConfig httpClientConfig,
+            @Qualifier("n8nConnectionManager") PoolingHttpClientConnectionManager n8nConnectionManager,
+            ScheduledExecutorService httpDeadlineScheduler
+    ) {
+        return httpClientConfig.buildClient(
+                n8nConnectionManager,
+                httpDeadlineScheduler,
+                RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(5))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build(),
+                totalTimeoutMs
+        );
+    }
+
+    @Bean
+    public RestTemplate n8nRestTemplate(
+            RestTemplateBuilder builder,
+            @Qualifier("n8nHttpClient") CloseableHttpClient n8nHttpClient
+    ) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(n8nHttpClient))
+                .build();
+    }
+
+    /**
+     * Executor für die SSE-Streams: ein virtueller Thread pro Stream, sonst ein fester Pool.
+     */
+    @Bean
+    public TaskExecutor askExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ask-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(streamVirtualLimit);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ask-");
+        executor.setCorePoolSize(streamThreads);
+        executor.setMaxPoolSize(streamThreads);
+        executor.setQueueCapacity(streamThreads * 4);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
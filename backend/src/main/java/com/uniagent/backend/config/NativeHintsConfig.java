@@ -0,0 +1,50 @@
+package com.uniagent.backend.config;
+
+import com.uniagent.backend.dto.ChatMessageDto;
+import com.uniagent.backend.model.SupabaseSignUpResponse;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Reflection-Hinweise für das Native Image (mvn -Pnative).
+ *
+ * Request- und Response-Typen der Controller erkennt Spring AOT selbst. Hier steht, was Jackson
+ * außerhalb der Controller bindet: Supabase-Antworten über RestTemplate (SupabaseSignUpResponse,
+ * Map für Login, /user, JWKS und Admin-Updates), die Journal-Zeilen des Write-Behind und die
+ * Nachrichten in Archivblöcken (ChatMessageDto, MessageArchiveCodec).
+ */
+@Configuration(proxyBeanMethods = false)
+@RegisterReflectionForBinding({ SupabaseSignUpResponse.class, ChatMessageDto.class })
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // RestTemplate mit Map.class: Jackson legt LinkedHashMap/ArrayList für Objekte/Arrays an
+            for (Class<?> type : new Class<?>[] { LinkedHashMap.class, HashMap.class, ArrayList.class }) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+
+            // MessageWriteBehind.JournalEntry / DeadLetter sind package-private, daher über den Namen
+            for (String type : new String[] { "JournalEntry", "DeadLetter" }) {
+                hints.reflection().registerType(
+                        TypeReference.of("com.uniagent.backend.service.MessageWriteBehind$" + type),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS,
+                        MemberCategory.DECLARED_FIELDS
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.uniagent.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Aktiviert @Scheduled (z.B. Nachlesen der Top-FAQ).
+ *
+ * Eigener Scheduler, sonst würde Spring den httpDeadlineScheduler (HttpClientConfig) mitbenutzen
+ * und lange Jobs würden die HTTP-Timeouts verzögern.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Value("${app.scheduling.pool-size:2}")
+    private int poolSize;
+
+    @Bean
+    public TaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
@@ -24,4 +24,16 @@ public class SupabaseConfig {
     // Tabellenname für deine User-Tabelle
     @Value("${supabase.users-table}")
     private String usersTable;
+
+    // JWT-Secret des Projekts (HS256) – leer = nur JWKS bzw. Fallback auf /auth/v1/user
+    @Value("${supabase.jwt-secret:}")
+    private String jwtSecret;
+
+    // Erwartete Audience im Access Token
+    @Value("${supabase.jwt-audience:authenticated}")
+    private String jwtAudience;
+
+    // Wie oft die JWKS-Schlüssel (ES256/RS256) neu geladen werden
+    @Value("${supabase.jwks-refresh-seconds:600}")
+    private long jwksRefreshSeconds;
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.uniagent.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * V8: Index für die Suche nach einer User-Frage über ihren Wortlaut (findLatestBotReply).
+ *
+ *   chat_messages_user_content_md5_idx  (md5(content), created_at) WHERE sender = 'user'
+ *
+ * Als Java-Migration, weil chat_messages partitioniert ist (V7): CREATE INDEX auf der Elterntabelle
+ * sperrt alle Partitionen für Schreibzugriffe, solange der Index gebaut wird, und CONCURRENTLY geht
+ * dort nicht. Daher wie in der Postgres-Doku: leerer Index nur auf der Elterntabelle (ON ONLY), dann
+ * pro Partition CONCURRENTLY bauen und einhängen. Die Partitionen stehen erst zur Laufzeit fest.
+ *
+ * Läuft außerhalb einer Transaktion; bricht sie ab, räumt der nächste Start ungültige Indizes weg und
+ * macht weiter. Neue Partitionen (ensure_chat_message_partitions) bekommen den Index beim ATTACH.
+ * Spring Boot übergibt JavaMigration-Beans an Flyway.
+ */
+@Component
+@Slf4j
+public class UserQuestionIndexMigration implements JavaMigration {
+
+    private static final String INDEX = "chat_messages_user_content_md5_idx";
+
+    private record PartitionIndex(String partition, String index, boolean valid) {}
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("8");
+    }
+
+    @Override
+    public String getDescription() {
+        return "user question index";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement st = context.getConnection().createStatement()) {
+            st.execute("CREATE INDEX IF NOT EXISTS " + INDEX
+                    + " ON ONLY public.chat_messages (md5(content), created_at) WHERE sender = 'user'");
+
+            // Partitionen, deren Index noch nicht eingehängt ist; ein ungültiger Rest eines
+            // abgebrochenen Laufs wird neu gebaut
+            List<PartitionIndex> pending = new ArrayList<>();
+            try (ResultSet rs = st.executeQuery("""
+                    SELECT c.relname AS partition,
+                           c.relname || '_user_content_md5_idx' AS index,
+                           coalesce(ix.indisvalid, true) AS valid
+                    FROM pg_inherits i
+                    JOIN pg_class c ON c.oid = i.inhrelid
+                    LEFT JOIN pg_class ic
+                      ON ic.relname = c.relname || '_user_content_md5_idx' AND ic.relnamespace = c.relnamespace
+                    LEFT JOIN pg_index ix ON ix.indexrelid = ic.oid
+                    WHERE i.inhparent = 'public.chat_messages'::regclass
+                      AND NOT EXISTS (
+                        SELECT 1
+                        FROM pg_inherits ii
+                        JOIN pg_index pi ON pi.indexrelid = ii.inhrelid
+                        WHERE ii.inhparent = 'public.chat_messages_user_content_md5_idx'::regclass
+                          AND pi.indrelid = c.oid
+                      )
+                    ORDER BY c.relname
+                    """)) {
+                while (rs.next()) {
+                    pending.add(new PartitionIndex(rs.getString("partition"), rs.getString("index"), rs.getBoolean("valid")));
+                }
+            }
+
+            for (PartitionIndex p : pending) {
+                String partition = quote(p.partition());
+                String index = quote(p.index());
+                if (!p.valid()) {
+                    st.execute("DROP INDEX CONCURRENTLY IF EXISTS public." + index);
+                }
+                log.info("Index {} wird gebaut", p.index());
+                st.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " ON public." + partition
+                        + " (md5(content), created_at) WHERE sender = 'user'");
+                st.execute("ALTER INDEX public." + INDEX + " ATTACH PARTITION public." + index);
+            }
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,94 @@
+package com.uniagent.backend.config;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Meldet, wenn ein virtueller Thread seinen Carrier-Thread blockiert ("pinning"), z.B. bei
+ * blockierendem I/O innerhalb von synchronized. Dann skaliert der Virtual-Thread-Modus nicht mehr.
+ *
+ * Liest das JFR-Event jdk.VirtualThreadPinned im laufenden Prozess mit und loggt die Stelle.
+ */
+@Component
+@Slf4j
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "app.virtual-threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final LongAdder pinnedEvents = new LongAdder();
+
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            @Value("${app.virtual-threads.pinning-monitor.threshold-ms:20}") long thresholdMs
+    ) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    /**
+     * Anzahl gemeldeter Pinning-Events seit dem Start.
+     */
+    public long pinnedEvents() {
+        return pinnedEvents.sum();
+    }
+
+    @Override
+    public void start() {
+        RecordingStream rs = new RecordingStream();
+        rs.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        rs.onEvent(PINNED_EVENT, this::report);
+        rs.startAsync();
+        stream = rs;
+        log.info("Virtual-Thread-Pinning-Monitor aktiv (Schwelle {} ms)", threshold.toMillis());
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedEvents.increment();
+
+        List<RecordedFrame> frames = (event.getStackTrace() == null) ? List.of() : event.getStackTrace().getFrames();
+        // Die obersten Frames sind JDK-intern (parkOnCarrierThread ...), interessant ist der Aufrufer
+        String where = frames.stream()
+                .dropWhile(f -> isJdkInternal(f.getMethod().getType().getName()))
+                .limit(LOGGED_FRAMES)
+                .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName() + ":" + f.getLineNumber())
+                .collect(Collectors.joining("\n    at "));
+
+        log.warn("Virtueller Thread {} ms gepinnt\n    at {}", event.getDuration().toMillis(), where);
+    }
+
+    private static boolean isJdkInternal(String className) {
+        return className.startsWith("jdk.internal.")
+                || className.startsWith("java.lang.VirtualThread")
+                || className.startsWith("java.lang.Thread")
+                || className.startsWith("java.util.concurrent.locks.");
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream rs = stream;
+        stream = null;
+        if (rs != null) rs.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+}
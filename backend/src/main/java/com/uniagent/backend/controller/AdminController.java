@@ -0,0 +1,101 @@
+package com.uniagent.backend.controller;
+
+import com.uniagent.backend.dto.AnswerCacheStatsResponse;
+import com.uniagent.backend.dto.ArchiveStatsResponse;
+import com.uniagent.backend.dto.InvalidateCacheResponse;
+import com.uniagent.backend.service.AdminService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final AdminService adminService;
+
+    public AdminController(AdminService adminService) {
+        this.adminService = adminService;
+    }
+
+    private String extractBearer(String authHeader) {
+        if (authHeader == null) return null;
+        if (!authHeader.startsWith("Bearer ")) return null;
+        String token = authHeader.substring(7);
+        return token.isBlank() ? null : token;
+    }
+
+    private HttpStatus statusFor(IllegalArgumentException e) {
+        return AdminService.FORBIDDEN_MESSAGE.equals(e.getMessage()) ? HttpStatus.FORBIDDEN : HttpStatus.UNAUTHORIZED;
+    }
+
+    @GetMapping("/answer-cache")
+    public ResponseEntity<AnswerCacheStatsResponse> answerCacheStats(
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        try {
+            return ResponseEntity.ok(adminService.answerCacheStats(token));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(statusFor(e)).build();
+        }
+    }
+
+    /**
+     * Ohne q: kompletten Antwort-Cache leeren. Mit q: nur den Eintrag für diese Frage.
+     */
+    @DeleteMapping("/answer-cache")
+    public ResponseEntity<InvalidateCacheResponse> invalidateAnswerCache(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(name = "q", required = false) String q
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new InvalidateCacheResponse(false, "Token fehlt.", 0));
+        }
+
+        try {
+            return ResponseEntity.ok(adminService.invalidateAnswerCache(token, q));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(statusFor(e))
+                    .body(new InvalidateCacheResponse(false, e.getMessage(), 0));
+        }
+    }
+
+    /**
+     * Umfang des Nachrichten-Archivs und Platzbedarf von chat_messages / chat_message_archive.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<ArchiveStatsResponse> archiveStats(
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        try {
+            return ResponseEntity.ok(adminService.archiveStats(token));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(statusFor(e)).build();
+        }
+    }
+
+    /**
+     * Archivierungslauf sofort ausführen, Antwort wie GET.
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<ArchiveStatsResponse> runArchive(
+            @RequestHeader(value = "Authorization", required = false) String authHeader
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        try {
+            return ResponseEntity.ok(adminService.runArchive(token));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(statusFor(e)).build();
+        }
+    }
+}
@@ -2,16 +2,35 @@ package com.uniagent.backend.controller;
 
 import com.uniagent.backend.dto.*;
 import com.uniagent.backend.service.ChatService;
+import com.uniagent.backend.service.SupabaseDatabaseClient;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/chats")
 public class ChatController {
 
+    // Cursor für die nächste Seite (Keyset-Pagination), fehlt auf der letzten Seite
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Suche ist nach Relevanz sortiert und daher per offset geblättert
+    static final String NEXT_OFFSET_HEADER = "X-Next-Offset";
+
+    // Antworten dürfen im Browser liegen, müssen aber vor jeder Nutzung per ETag bestätigt werden
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ChatService chatService;
 
     public ChatController(ChatService chatService) {
@@ -25,6 +44,41 @@ public class ChatController {
         return token.isBlank() ? null : token;
     }
 
+    private boolean isPaged(Integer limit, String before, String after) {
+        return limit != null || before != null || after != null;
+    }
+
+    // ---------------------------------------------------------
+    // Bedingte GETs: Browser fragen mit If-None-Match nach, 304 ohne Body
+    // ---------------------------------------------------------
+
+    private ResponseEntity.BodyBuilder okWithETag(String etag) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (etag != null) ok.eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.AUTHORIZATION);
+        return ok;
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .build();
+    }
+
+    private <T> ResponseEntity<List<T>> listResponse(ChatService.Conditional<List<T>> result) {
+        if (result.notModified()) return notModified(result.etag());
+        return okWithETag(result.etag()).body(result.body());
+    }
+
+    private <T> ResponseEntity<List<T>> pageResponse(ChatService.Conditional<SupabaseDatabaseClient.Page<T>> result) {
+        if (result.notModified()) return notModified(result.etag());
+        SupabaseDatabaseClient.Page<T> page = result.body();
+        ResponseEntity.BodyBuilder ok = okWithETag(result.etag());
+        if (page.nextCursor() != null) ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        return ok.body(page.items());
+    }
+
     @PostMapping
     public ResponseEntity<CreateChatResponse> createChat(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
@@ -46,13 +100,32 @@ public class ChatController {
 
     @GetMapping
     public ResponseEntity<List<ChatSummaryDto>> listChats(
-            @RequestHeader(value = "Authorization", required = false) String authHeader
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         String token = extractBearer(authHeader);
         if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
 
+        PageCursor beforeCursor;
+        PageCursor afterCursor;
         try {
-            return ResponseEntity.ok(chatService.listChats(token));
+            beforeCursor = PageCursor.decode(before);
+            afterCursor = PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(List.of());
+        }
+        if (beforeCursor != null && afterCursor != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(List.of());
+        }
+
+        try {
+            if (!isPaged(limit, before, after)) {
+                return listResponse(chatService.listChats(token, ifNoneMatch));
+            }
+            return pageResponse(chatService.listChatsPage(token, limit, beforeCursor, afterCursor, ifNoneMatch));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
         }
@@ -61,13 +134,32 @@ public class ChatController {
     @GetMapping("/{chatId}/messages")
     public ResponseEntity<List<ChatMessageDto>> getMessages(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
-            @PathVariable String chatId
+            @PathVariable String chatId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "before", required = false) String before,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         String token = extractBearer(authHeader);
         if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
 
+        PageCursor beforeCursor;
+        PageCursor afterCursor;
+        try {
+            beforeCursor = PageCursor.decode(before);
+            afterCursor = PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(List.of());
+        }
+        if (beforeCursor != null && afterCursor != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(List.of());
+        }
+
         try {
-            return ResponseEntity.ok(chatService.getMessages(token, chatId));
+            if (!isPaged(limit, before, after)) {
+                return listResponse(chatService.getMessages(token, chatId, ifNoneMatch));
+            }
+            return pageResponse(chatService.getMessagesPage(token, chatId, limit, beforeCursor, afterCursor, ifNoneMatch));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
         }
@@ -92,6 +184,47 @@ public class ChatController {
         }
     }
 
+    @PostMapping("/{chatId}/messages:batch")
+    public ResponseEntity<AddMessagesBatchResponse> addMessagesBatch(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable String chatId,
+            @RequestBody AddMessagesBatchRequest request
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new AddMessagesBatchResponse(false, "Token fehlt."));
+        }
+
+        try {
+            AddMessagesBatchResponse resp = chatService.addMessagesBatch(token, chatId, request);
+            return resp.isSuccess()
+                    ? ResponseEntity.ok(resp)
+                    : ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resp);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new AddMessagesBatchResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/{chatId}/ask", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> ask(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @PathVariable String chatId,
+            @RequestBody(required = false) AskRequest request
+    ) {
+        String token = extractBearer(authHeader);
+        if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        if (request == null || request.getQuestion() == null || request.getQuestion().trim().isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        try {
+            return ResponseEntity.ok(chatService.ask(token, chatId, request.getQuestion()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
     @DeleteMapping("/{chatId}")
     public ResponseEntity<DeleteChatResponse> deleteChat(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
@@ -110,18 +243,57 @@ public class ChatController {
         }
     }
 
+    /**
+     * Komplette Historie als NDJSON-Download, direkt aus dem DB-Cursor in den Response-Stream
+     * (synchron im Request-Thread, damit kein Async-Timeout den Export abschneidet).
+     */
+    @GetMapping("/export")
+    public void exportChats(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletResponse response
+    ) throws IOException {
+        String token = extractBearer(authHeader);
+        if (token == null) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("uniagent-export-" + LocalDate.now() + ".ndjson")
+                .build()
+                .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+
+        try {
+            chatService.exportChats(token, response.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            // Sind schon Zeilen unterwegs, lässt sich der Status nicht mehr ändern: Stream abbrechen,
+            // der Client bekommt dann keinen abschließenden Chunk statt eines scheinbar vollständigen Exports
+            if (response.isCommitted()) throw e;
+            response.reset();
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<ChatSummaryDto>> search(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
-            @RequestParam(name = "q", required = false) String q
+            @RequestParam(name = "q", required = false) String q,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "offset", required = false) Integer offset
     ) {
         String token = extractBearer(authHeader);
         if (token == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
 
         try {
-            return ResponseEntity.ok(chatService.searchChats(token, q));
+            SupabaseDatabaseClient.Page<ChatSummaryDto> page = chatService.searchChats(token, q, limit, offset);
+            ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+            if (page.nextCursor() != null) ok.header(NEXT_OFFSET_HEADER, page.nextCursor());
+            return ok.body(page.items());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(List.of());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.uniagent.backend.controller;
+
+import com.uniagent.backend.dto.TopFaqResponse;
+import com.uniagent.backend.service.FaqAggregator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/faq")
+public class FaqController {
+
+    private final FaqAggregator faqAggregator;
+    private final long maxAgeSeconds;
+
+    public FaqController(
+            FaqAggregator faqAggregator,
+            @Value("${app.faq.max-age-seconds:60}") long maxAgeSeconds
+    ) {
+        this.faqAggregator = faqAggregator;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Top-Fragen aller Nutzer (öffentlich, wie bisher der n8n-Webhook).
+     * Antwortet mit 304, wenn der Client den aktuellen Stand schon hat (If-None-Match).
+     */
+    @GetMapping("/top")
+    public ResponseEntity<TopFaqResponse> top(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch
+    ) {
+        FaqAggregator.Snapshot snapshot = faqAggregator.top();
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+
+        if (snapshot.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(cacheControl)
+                .body(new TopFaqResponse(true, snapshot.top()));
+    }
+}
@@ -3,6 +3,8 @@ package com.uniagent.backend.dto;
 public class AddMessageResponse {
     private boolean success;
     private String message;
+    private String messageId;
+    private String createdAt;
 
     public AddMessageResponse() {}
 
@@ -11,9 +13,22 @@ public class AddMessageResponse {
         this.message = message;
     }
 
+    public AddMessageResponse(boolean success, String message, String messageId, String createdAt) {
+        this.success = success;
+        this.message = message;
+        this.messageId = messageId;
+        this.createdAt = createdAt;
+    }
+
     public boolean isSuccess() { return success; }
     public void setSuccess(boolean success) { this.success = success; }
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+
+    public String getMessageId() { return messageId; }
+    public void setMessageId(String messageId) { this.messageId = messageId; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.uniagent.backend.dto;
+
+import java.util.List;
+
+public class AddMessagesBatchRequest {
+    private List<BatchMessageDto> messages;  // in Chat-Reihenfolge
+
+    public AddMessagesBatchRequest() {}
+
+    public AddMessagesBatchRequest(List<BatchMessageDto> messages) {
+        this.messages = messages;
+    }
+
+    public List<BatchMessageDto> getMessages() { return messages; }
+    public void setMessages(List<BatchMessageDto> messages) { this.messages = messages; }
+}
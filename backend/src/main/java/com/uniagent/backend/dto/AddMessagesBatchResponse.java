@@ -0,0 +1,36 @@
+package com.uniagent.backend.dto;
+
+import java.util.List;
+
+public class AddMessagesBatchResponse {
+    private boolean success;
+    private String message;
+    private List<String> messageIds;  // gleiche Reihenfolge wie im Request
+    private String chatTitle;
+
+    public AddMessagesBatchResponse() {}
+
+    public AddMessagesBatchResponse(boolean success, String message) {
+        this.success = success;
+        this.message = message;
+    }
+
+    public AddMessagesBatchResponse(boolean success, String message, List<String> messageIds, String chatTitle) {
+        this.success = success;
+        this.message = message;
+        this.messageIds = messageIds;
+        this.chatTitle = chatTitle;
+    }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public List<String> getMessageIds() { return messageIds; }
+    public void setMessageIds(List<String> messageIds) { this.messageIds = messageIds; }
+
+    public String getChatTitle() { return chatTitle; }
+    public void setChatTitle(String chatTitle) { this.chatTitle = chatTitle; }
+}
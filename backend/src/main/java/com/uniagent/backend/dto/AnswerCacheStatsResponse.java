@@ -0,0 +1,45 @@
+package com.uniagent.backend.dto;
+
+public class AnswerCacheStatsResponse {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long bytes;
+    private long maxBytes;
+    private double hitRate;
+
+    public AnswerCacheStatsResponse() {}
+
+    public AnswerCacheStatsResponse(long hits, long misses, long evictions, int entries,
+                                    long bytes, long maxBytes, double hitRate) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.hitRate = hitRate;
+    }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public int getEntries() { return entries; }
+    public void setEntries(int entries) { this.entries = entries; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public double getHitRate() { return hitRate; }
+    public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+}
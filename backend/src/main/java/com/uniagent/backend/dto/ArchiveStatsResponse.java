@@ -0,0 +1,66 @@
+package com.uniagent.backend.dto;
+
+public class ArchiveStatsResponse {
+    private boolean enabled;
+    private int idleDays;
+    private long runs;
+    private long lastRunMillis;
+    private long blocks;
+    private long messages;
+    private long rawBytes;
+    private long storedBytes;
+    private long archiveTotalBytes;
+    private long hotTotalBytes;
+    private long hotIndexBytes;
+
+    public ArchiveStatsResponse() {}
+
+    public ArchiveStatsResponse(boolean enabled, int idleDays, long runs, long lastRunMillis,
+                                long blocks, long messages, long rawBytes, long storedBytes,
+                                long archiveTotalBytes, long hotTotalBytes, long hotIndexBytes) {
+        this.enabled = enabled;
+        this.idleDays = idleDays;
+        this.runs = runs;
+        this.lastRunMillis = lastRunMillis;
+        this.blocks = blocks;
+        this.messages = messages;
+        this.rawBytes = rawBytes;
+        this.storedBytes = storedBytes;
+        this.archiveTotalBytes = archiveTotalBytes;
+        this.hotTotalBytes = hotTotalBytes;
+        this.hotIndexBytes = hotIndexBytes;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getIdleDays() { return idleDays; }
+    public void setIdleDays(int idleDays) { this.idleDays = idleDays; }
+
+    public long getRuns() { return runs; }
+    public void setRuns(long runs) { this.runs = runs; }
+
+    public long getLastRunMillis() { return lastRunMillis; }
+    public void setLastRunMillis(long lastRunMillis) { this.lastRunMillis = lastRunMillis; }
+
+    public long getBlocks() { return blocks; }
+    public void setBlocks(long blocks) { this.blocks = blocks; }
+
+    public long getMessages() { return messages; }
+    public void setMessages(long messages) { this.messages = messages; }
+
+    public long getRawBytes() { return rawBytes; }
+    public void setRawBytes(long rawBytes) { this.rawBytes = rawBytes; }
+
+    public long getStoredBytes() { return storedBytes; }
+    public void setStoredBytes(long storedBytes) { this.storedBytes = storedBytes; }
+
+    public long getArchiveTotalBytes() { return archiveTotalBytes; }
+    public void setArchiveTotalBytes(long archiveTotalBytes) { this.archiveTotalBytes = archiveTotalBytes; }
+
+    public long getHotTotalBytes() { return hotTotalBytes; }
+    public void setHotTotalBytes(long hotTotalBytes) { this.hotTotalBytes = hotTotalBytes; }
+
+    public long getHotIndexBytes() { return hotIndexBytes; }
+    public void setHotIndexBytes(long hotIndexBytes) { this.hotIndexBytes = hotIndexBytes; }
+}
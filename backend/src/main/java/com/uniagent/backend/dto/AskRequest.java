@@ -0,0 +1,14 @@
+package com.uniagent.backend.dto;
+
+public class AskRequest {
+    private String question;
+
+    public AskRequest() {}
+
+    public AskRequest(String question) {
+        this.question = question;
+    }
+
+    public String getQuestion() { return question; }
+    public void setQuestion(String question) { this.question = question; }
+}
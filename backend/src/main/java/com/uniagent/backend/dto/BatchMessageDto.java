@@ -0,0 +1,24 @@
+package com.uniagent.backend.dto;
+
+public class BatchMessageDto {
+    private String sender;     // "user" | "bot"
+    private String content;
+    private String createdAt;  // optional (ISO-8601, z.B. beim Import alter Chats), sonst Serverzeit
+
+    public BatchMessageDto() {}
+
+    public BatchMessageDto(String sender, String content, String createdAt) {
+        this.sender = sender;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    public String getSender() { return sender; }
+    public void setSender(String sender) { this.sender = sender; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+}
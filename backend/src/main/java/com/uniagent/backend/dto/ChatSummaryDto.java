@@ -6,6 +6,8 @@ public class ChatSummaryDto {
     private String lastMessage;
     private String updatedAt;
     private String createdAt;
+    // Nur bei der Suche: Ausschnitt der besten Treffer-Nachricht, Treffer in <mark>…</mark> (HTML-escaped)
+    private String snippet;
 
     public ChatSummaryDto() {}
 
@@ -17,6 +19,11 @@ public class ChatSummaryDto {
         this.createdAt = createdAt;
     }
 
+    public ChatSummaryDto(String id, String title, String lastMessage, String updatedAt, String createdAt, String snippet) {
+        this(id, title, lastMessage, updatedAt, createdAt);
+        this.snippet = snippet;
+    }
+
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
@@ -31,4 +38,7 @@ public class ChatSummaryDto {
 
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
-}
\ No newline at end of file
+
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+}
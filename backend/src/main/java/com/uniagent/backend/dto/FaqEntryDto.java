@@ -0,0 +1,46 @@
+package com.uniagent.backend.dto;
+
+import java.util.Objects;
+
+public class FaqEntryDto {
+    private String question;
+    private String answer;
+    private long count;
+    private String lastAsked;
+
+    public FaqEntryDto() {}
+
+    public FaqEntryDto(String question, String answer, long count, String lastAsked) {
+        this.question = question;
+        this.answer = answer;
+        this.count = count;
+        this.lastAsked = lastAsked;
+    }
+
+    public String getQuestion() { return question; }
+    public void setQuestion(String question) { this.question = question; }
+
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public String getLastAsked() { return lastAsked; }
+    public void setLastAsked(String lastAsked) { this.lastAsked = lastAsked; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FaqEntryDto other)) return false;
+        return count == other.count
+                && Objects.equals(question, other.question)
+                && Objects.equals(answer, other.answer)
+                && Objects.equals(lastAsked, other.lastAsked);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(question, answer, count, lastAsked);
+    }
+}
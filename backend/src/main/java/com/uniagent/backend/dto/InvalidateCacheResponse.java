@@ -0,0 +1,24 @@
+package com.uniagent.backend.dto;
+
+public class InvalidateCacheResponse {
+    private boolean success;
+    private String message;
+    private int removed;
+
+    public InvalidateCacheResponse() {}
+
+    public InvalidateCacheResponse(boolean success, String message, int removed) {
+        this.success = success;
+        this.message = message;
+        this.removed = removed;
+    }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public int getRemoved() { return removed; }
+    public void setRemoved(int removed) { this.removed = removed; }
+}
@@ -0,0 +1,46 @@
+package com.uniagent.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Opaker Cursor für Keyset-Pagination: (Zeitstempel, id) einer Zeile.
+ * Nach außen nur als Base64-String sichtbar (Header X-Next-Cursor, Parameter before/after).
+ */
+public record PageCursor(String timestamp, UUID id) {
+
+    // Postgres timestamptz::text, z.B. "2026-10-18 11:42:22.114682+00"
+    private static final Pattern TIMESTAMP = Pattern.compile("[0-9][0-9 :.+\\-]{9,40}");
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException wenn der Cursor nicht von uns stammt
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor.");
+        }
+
+        int sep = raw.lastIndexOf('|');
+        if (sep <= 0 || !TIMESTAMP.matcher(raw.substring(0, sep)).matches()) {
+            throw new IllegalArgumentException("Ungültiger Cursor.");
+        }
+
+        try {
+            return new PageCursor(raw.substring(0, sep), UUID.fromString(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungültiger Cursor.");
+        }
+    }
+}
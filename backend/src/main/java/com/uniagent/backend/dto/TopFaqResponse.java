@@ -0,0 +1,21 @@
+package com.uniagent.backend.dto;
+
+import java.util.List;
+
+public class TopFaqResponse {
+    private boolean success;
+    private List<FaqEntryDto> topQuestions;
+
+    public TopFaqResponse() {}
+
+    public TopFaqResponse(boolean success, List<FaqEntryDto> topQuestions) {
+        this.success = success;
+        this.topQuestions = topQuestions;
+    }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public List<FaqEntryDto> getTopQuestions() { return topQuestions; }
+    public void setTopQuestions(List<FaqEntryDto> topQuestions) { this.topQuestions = topQuestions; }
+}
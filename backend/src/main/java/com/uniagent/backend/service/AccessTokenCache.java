@@ -0,0 +1,138 @@
+// backend/src/main/java/com/uniagent/backend/service/AccessTokenCache.java
+package com.uniagent.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache: Access Token -> aufgelöster Supabase User.
+ *
+ * Das Frontend ruft mehrere Chat-Endpoints hintereinander mit demselben Token auf
+ * (Sidebar-Reload + Nachrichten speichern). Statt das Token jedes Mal neu aufzulösen,
+ * merken wir uns das Ergebnis – aber höchstens bis zum exp des Tokens bzw. der TTL.
+ *
+ * Schlüssel ist ein SHA-256 Hash des Tokens, das Token selbst wird nicht gespeichert.
+ */
+@Service
+public class AccessTokenCache {
+
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    private record Entry(SupabaseAuthClient.SupabaseUser user, long expiresAtMillis) {}
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccessTokenCache(
+            @Value("${app.auth.token-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.auth.token-cache.max-entries:10000}") int maxEntries
+    ) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public SupabaseAuthClient.SupabaseUser get(String token) {
+        if (token == null || ttlMillis <= 0) return null;
+
+        String key = hash(token);
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (e.expiresAtMillis() <= System.currentTimeMillis()) {
+            if (entries.remove(key, e)) evictions.increment();
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return e.user();
+    }
+
+    /**
+     * @param tokenExpEpochSeconds exp-Claim des Tokens, 0 wenn unbekannt (dann gilt nur die TTL)
+     */
+    public void put(String token, SupabaseAuthClient.SupabaseUser user, long tokenExpEpochSeconds) {
+        if (token == null || user == null || ttlMillis <= 0) return;
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        if (tokenExpEpochSeconds > 0) {
+            expiresAt = Math.min(expiresAt, tokenExpEpochSeconds * 1000);
+        }
+        if (expiresAt <= now) return;
+
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        entries.put(hash(token), new Entry(user, expiresAt));
+    }
+
+    /**
+     * Entfernt alle Tokens eines Users (z.B. nach Passwort- oder E-Mail-Änderung).
+     */
+    public void invalidateUser(String authUserId) {
+        if (authUserId == null) return;
+        entries.values().removeIf(e -> authUserId.equals(e.user().id()));
+    }
+
+    public void invalidateToken(String token) {
+        if (token == null) return;
+        entries.remove(hash(token));
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    // --------------------------------------------------------------
+    // Eviction: erst abgelaufene, dann die ~10% die am frühesten ablaufen
+    // --------------------------------------------------------------
+    private synchronized void evict(long now) {
+        if (entries.size() < maxEntries) return;
+
+        int before = entries.size();
+        entries.values().removeIf(e -> e.expiresAtMillis() <= now);
+
+        if (entries.size() >= maxEntries) {
+            List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+            snapshot.sort(Comparator.comparingLong(me -> me.getValue().expiresAtMillis()));
+
+            int toRemove = Math.max(1, maxEntries / 10);
+            for (int i = 0; i < toRemove && i < snapshot.size(); i++) {
+                Map.Entry<String, Entry> me = snapshot.get(i);
+                entries.remove(me.getKey(), me.getValue());
+            }
+        }
+
+        evictions.add(Math.max(0, before - entries.size()));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nicht verfügbar", e);
+        }
+    }
+}
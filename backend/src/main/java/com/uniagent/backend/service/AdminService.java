@@ -0,0 +1,116 @@
+package com.uniagent.backend.service;
+
+import com.uniagent.backend.dto.AnswerCacheStatsResponse;
+import com.uniagent.backend.dto.ArchiveStatsResponse;
+import com.uniagent.backend.dto.InvalidateCacheResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Admin-Funktionen (nur für Support-Mitarbeiter).
+ */
+@Service
+public class AdminService {
+
+    public static final String FORBIDDEN_MESSAGE = "Keine Berechtigung.";
+
+    private final SupabaseAuthClient supabaseAuthClient;
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final AnswerCache answerCache;
+    private final MessageArchiver messageArchiver;
+    private final Set<String> adminRoles;
+
+    public AdminService(
+            SupabaseAuthClient supabaseAuthClient,
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            AnswerCache answerCache,
+            MessageArchiver messageArchiver,
+            @Value("${app.admin.roles:Support}") String adminRoles
+    ) {
+        this.supabaseAuthClient = supabaseAuthClient;
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.answerCache = answerCache;
+        this.messageArchiver = messageArchiver;
+        this.adminRoles = Arrays.stream(adminRoles.split(","))
+                .map(String::trim)
+                .filter(r -> !r.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @throws IllegalArgumentException "Ungültiger Token." oder FORBIDDEN_MESSAGE
+     */
+    private void requireAdmin(String token) {
+        var user = supabaseAuthClient.getUserFromAccessToken(token);
+        String id = (user == null) ? null : user.id();
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Ungültiger Token.");
+        }
+
+        String role = supabaseDatabaseClient.findRoleForAuthorization(id).orElse(null);
+        if (role == null || !adminRoles.contains(role)) {
+            throw new IllegalArgumentException(FORBIDDEN_MESSAGE);
+        }
+    }
+
+    // -----------------------------------------------------
+    // ANTWORT-CACHE
+    // -----------------------------------------------------
+
+    public AnswerCacheStatsResponse answerCacheStats(String token) {
+        requireAdmin(token);
+        AnswerCache.Stats s = answerCache.stats();
+        return new AnswerCacheStatsResponse(
+                s.hits(), s.misses(), s.evictions(), s.entries(), s.bytes(), s.maxBytes(), s.hitRate()
+        );
+    }
+
+    /**
+     * @param question null/leer = kompletten Cache leeren, sonst nur diese Frage
+     */
+    public InvalidateCacheResponse invalidateAnswerCache(String token, String question) {
+        requireAdmin(token);
+
+        if (question == null || question.isBlank()) {
+            int removed = answerCache.invalidateAll();
+            return new InvalidateCacheResponse(true, "Antwort-Cache geleert.", removed);
+        }
+
+        boolean removed = answerCache.invalidate(question);
+        return removed
+                ? new InvalidateCacheResponse(true, "Eintrag entfernt.", 1)
+                : new InvalidateCacheResponse(false, "Kein Eintrag für diese Frage.", 0);
+    }
+
+    // -----------------------------------------------------
+    // NACHRICHTEN-ARCHIV
+    // -----------------------------------------------------
+
+    public ArchiveStatsResponse archiveStats(String token) {
+        requireAdmin(token);
+        return archiveStatsResponse();
+    }
+
+    /**
+     * Einen Archivierungslauf sofort ausführen (auch wenn der geplante Lauf abgeschaltet ist).
+     */
+    public ArchiveStatsResponse runArchive(String token) {
+        requireAdmin(token);
+        messageArchiver.runOnce();
+        return archiveStatsResponse();
+    }
+
+    private ArchiveStatsResponse archiveStatsResponse() {
+        MessageArchiver.Stats s = messageArchiver.stats();
+        SupabaseDatabaseClient.ArchiveStorage storage = supabaseDatabaseClient.archiveStorage();
+        return new ArchiveStatsResponse(
+                s.enabled(), s.idleDays(), s.runs(), s.lastRunMillis(),
+                storage.blocks(), storage.messages(), storage.rawBytes(), storage.storedBytes(),
+                storage.archiveTotalBytes(), storage.hotTotalBytes(), storage.hotIndexBytes()
+        );
+    }
+}
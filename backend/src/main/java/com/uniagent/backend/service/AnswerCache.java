@@ -0,0 +1,133 @@
+package com.uniagent.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Antwort-Cache für wiederkehrende Studierenden-Fragen (Fristen, Prüfungsanmeldung, Beiträge ...).
+ *
+ * Schlüssel ist die kanonische Frage (QuestionNormalizer). Einträge laufen nach der TTL ab;
+ * ist das Speicherbudget erreicht, fliegen die am längsten nicht genutzten Einträge raus (LRU).
+ */
+@Service
+public class AnswerCache {
+
+    // Grobe Schätzung pro Eintrag: Map-Entry, Entry-Objekt, String-Header
+    private static final long ENTRY_OVERHEAD_BYTES = 120;
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return (total == 0) ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private record Entry(String answer, long expiresAtMillis, long bytes) {}
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final int maxQuestionLength;
+
+    // accessOrder = true -> Iteration beginnt beim am längsten nicht genutzten Eintrag
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public AnswerCache(
+            @Value("${app.answer-cache.enabled:true}") boolean enabled,
+            @Value("${app.answer-cache.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${app.answer-cache.max-bytes:16777216}") long maxBytes,
+            @Value("${app.answer-cache.max-question-length:300}") int maxQuestionLength
+    ) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxBytes = maxBytes;
+        this.maxQuestionLength = maxQuestionLength;
+    }
+
+    /**
+     * Nur kurze, eigenständige Fragen sind sinnvoll cachebar.
+     */
+    public boolean isCacheable(String question) {
+        if (!enabled || question == null) return false;
+        String key = QuestionNormalizer.canonicalize(question);
+        return key.length() >= 3 && question.length() <= maxQuestionLength;
+    }
+
+    public synchronized String get(String question) {
+        if (!isCacheable(question)) return null;
+
+        String key = QuestionNormalizer.canonicalize(question);
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+
+        if (e.expiresAtMillis() <= System.currentTimeMillis()) {
+            remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return e.answer();
+    }
+
+    public synchronized void put(String question, String answer) {
+        if (!isCacheable(question) || answer == null || answer.isBlank()) return;
+
+        String key = QuestionNormalizer.canonicalize(question);
+        long size = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + answer.length());
+        if (size > maxBytes) return;
+
+        remove(key);
+        entries.put(key, new Entry(answer, System.currentTimeMillis() + ttlMillis, size));
+        bytes += size;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            bytes -= eldest.getValue().bytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * @return true wenn es einen Eintrag für die Frage gab
+     */
+    public synchronized boolean invalidate(String question) {
+        return remove(QuestionNormalizer.canonicalize(question));
+    }
+
+    /**
+     * @return Anzahl entfernter Einträge
+     */
+    public synchronized int invalidateAll() {
+        int n = entries.size();
+        entries.clear();
+        bytes = 0;
+        return n;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes, maxBytes);
+    }
+
+    private boolean remove(String key) {
+        Entry old = entries.remove(key);
+        if (old == null) return false;
+        bytes -= old.bytes();
+        return true;
+    }
+}
@@ -24,13 +24,16 @@ public class AuthService {
 
     private final SupabaseAuthClient supabaseAuthClient;
     private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final AccessTokenCache accessTokenCache;
 
     public AuthService(
             SupabaseAuthClient supabaseAuthClient,
-            SupabaseDatabaseClient supabaseDatabaseClient
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            AccessTokenCache accessTokenCache
     ) {
         this.supabaseAuthClient = supabaseAuthClient;
         this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.accessTokenCache = accessTokenCache;
     }
 
     // -----------------------------------------------------
@@ -172,6 +175,9 @@ public class AuthService {
                 return new ChangePasswordResponse(false, "Passwort konnte nicht geändert werden.");
             }
 
+            // 3) Gecachte Tokens des Users verwerfen
+            accessTokenCache.invalidateUser(authUserId);
+
             return new ChangePasswordResponse(true, "Passwort erfolgreich geändert.");
 
         } catch (Exception e) {
@@ -212,6 +218,9 @@ public class AuthService {
                     request.getLastName()
             );
 
+            // 4) Gecachten User (alte E-Mail) verwerfen
+            accessTokenCache.invalidateUser(authUserId);
+
             if (!ok) {
                 return new UpdateProfileResponse(false, "Profil konnte nicht aktualisiert werden.");
             }
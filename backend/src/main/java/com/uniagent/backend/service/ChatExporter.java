@@ -0,0 +1,138 @@
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.dto.ChatMessageDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Export der kompletten Chat-Historie eines Users als NDJSON (eine JSON-Zeile pro Eintrag):
+ *
+ *   {"type":"export","userId":…,"exportedAt":…}
+ *   {"type":"chat","id":…,"title":…,"createdAt":…,"updatedAt":…}
+ *   {"type":"message","chatId":…,"id":…,"sender":…,"content":…,"createdAt":…}   (chronologisch, je Chat)
+ *   {"type":"end","chats":n,"messages":m}
+ *
+ * Die Zeilen kommen direkt aus dem DB-Cursor und gehen direkt in den Ausgabestrom; der Speicherbedarf
+ * hängt nur von der Fetch-Größe ab, nicht von der Zahl der Chats/Nachrichten.
+ * Fehlt die "end"-Zeile, ist der Export abgebrochen.
+ *
+ * Archivierte Nachrichten (MessageArchiver) kommen blockweise und werden chronologisch zwischen die
+ * aktuellen einsortiert; gepuffert werden höchstens die entpackten Blöcke des laufenden Chats.
+ */
+@Service
+@Slf4j
+public class ChatExporter {
+
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ChatExporter(
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:500}") int fetchSize
+    ) {
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void write(UUID authUserId, OutputStream out) throws IOException {
+        // Ein Generator für den ganzen Export; Zeilenumbruch statt Leerzeichen zwischen den Objekten
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            json.writeStartObject();
+            json.writeStringField("type", "export");
+            json.writeStringField("userId", authUserId.toString());
+            json.writeStringField("exportedAt", Instant.now().toString());
+            json.writeEndObject();
+
+            long[] counts = new long[2]; // Chats, Nachrichten
+            String[] currentChat = new String[1];
+            // Entpackte, noch nicht geschriebene archivierte Nachrichten des laufenden Chats
+            PriorityQueue<ChatMessageDto> archived = new PriorityQueue<>(MessageArchiveCodec.CHRONOLOGICAL);
+
+            try {
+                supabaseDatabaseClient.exportChatHistory(authUserId, fetchSize, row -> {
+                    try {
+                        if (!row.chatId().equals(currentChat[0])) {
+                            writeArchived(json, currentChat[0], archived, null, counts);
+                            currentChat[0] = row.chatId();
+                            counts[0]++;
+                            json.writeStartObject();
+                            json.writeStringField("type", "chat");
+                            json.writeStringField("id", row.chatId());
+                            json.writeStringField("title", row.chatTitle());
+                            json.writeStringField("createdAt", row.chatCreatedAt());
+                            json.writeStringField("updatedAt", row.chatUpdatedAt());
+                            json.writeEndObject();
+                        }
+                        if (row.archived() != null) {
+                            archived.addAll(row.archived());
+                        } else if (row.messageId() != null) {
+                            ChatMessageDto message = new ChatMessageDto(
+                                    row.messageId(), row.sender(), row.content(), row.messageCreatedAt());
+                            writeArchived(json, row.chatId(), archived, message, counts);
+                            writeMessage(json, row.chatId(), message);
+                            counts[1]++;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writeArchived(json, currentChat[0], archived, null, counts);
+            } catch (UncheckedIOException e) {
+                // Client hat abgebrochen; Cursor und Transaktion sind zu diesem Zeitpunkt schon geschlossen
+                log.info("Export für User {} abgebrochen nach {} Chats", authUserId, counts[0]);
+                throw e.getCause();
+            }
+
+            json.writeStartObject();
+            json.writeStringField("type", "end");
+            json.writeNumberField("chats", counts[0]);
+            json.writeNumberField("messages", counts[1]);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Schreibt gepufferte archivierte Nachrichten, die vor until liegen (until == null: alle).
+     */
+    private static void writeArchived(
+            JsonGenerator json,
+            String chatId,
+            PriorityQueue<ChatMessageDto> archived,
+            ChatMessageDto until,
+            long[] counts
+    ) throws IOException {
+        while (!archived.isEmpty()
+                && (until == null || MessageArchiveCodec.CHRONOLOGICAL.compare(archived.peek(), until) < 0)) {
+            writeMessage(json, chatId, archived.poll());
+            counts[1]++;
+        }
+    }
+
+    private static void writeMessage(JsonGenerator json, String chatId, ChatMessageDto message) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", "message");
+        json.writeStringField("chatId", chatId);
+        json.writeStringField("id", message.getId());
+        json.writeStringField("sender", message.getSender());
+        json.writeStringField("content", message.getContent());
+        json.writeStringField("createdAt", message.getCreatedAt());
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,205 @@
+package com.uniagent.backend.service;
+
+import com.uniagent.backend.dto.ChatSummaryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Chatliste (Sidebar) pro User, damit GET /api/chats nach dem Speichern einer Nachricht nicht jedes Mal
+ * Postgres fragt. Speicher: ChatListStore (In-Memory oder Redis, app.chat-list-cache.backend).
+ *
+ * Schreibzugriffe in ChatService ändern die gespeicherte Liste direkt (write-through) statt sie zu verwerfen:
+ *   createChat   -> Chat vorne einfügen
+ *   addMessage   -> Titel (automatischer Titel), Vorschau und updated_at setzen, Chat nach oben
+ *   deleteChat   -> Chat entfernen
+ * Die Werte kommen aus den RETURNING-Spalten bzw. der Write-Behind-Vorhersage, sind also dieselben,
+ * die danach in chats stehen. Seltene Pfade (Batch-Import) verwerfen die Liste.
+ *
+ * Der ETag-Stand wird aus der Liste berechnet (Anzahl + neuestes updated_at) plus der Generation des
+ * Speichers als Änderungszähler: jede Änderung, auch das Verwerfen nach einem Batch-Import, ergibt einen
+ * neuen ETag, selbst wenn Anzahl und updated_at gleich bleiben. Ein Treffer braucht auch für 304 keine Abfrage.
+ *
+ * Fehler des Speichers (z.B. Redis nicht erreichbar) werden geloggt, die Liste kommt dann aus Postgres.
+ * Erreicht eine Änderung den Speicher nicht, wird die Liste des Users beim nächsten erfolgreichen
+ * Zugriff verworfen – sonst bliebe in Redis ein alter Stand für alle Instanzen stehen.
+ */
+@Service
+@Slf4j
+public class ChatListCache {
+
+    public record Stats(long hits, long misses, long updates, long discardedLoads, long errors, int users) {}
+
+    /**
+     * Liste + Stand für den ETag; version null, wenn der Speicher nicht erreichbar war (kein ETag).
+     */
+    public record Snapshot(List<ChatSummaryDto> chats, SupabaseDatabaseClient.ContentVersion version) {}
+
+    private final ChatListStore store;
+    private final boolean enabled;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // User, deren Änderung den Speicher nicht erreicht hat
+    private final Set<UUID> unsynced = ConcurrentHashMap.newKeySet();
+    // Warnung einmal pro Ausfall statt bei jedem Request
+    private volatile boolean failing;
+
+    public ChatListCache(ChatListStore store, @Value("${app.chat-list-cache.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Speicher wird von mehreren Instanzen geteilt (app.chat-list-cache.backend=redis).
+     */
+    public boolean isShared() {
+        return store.shared();
+    }
+
+    /**
+     * Gespeicherte Liste, sonst loader (Postgres) und Ergebnis speichern.
+     * Ändert sich die Liste während des Ladens, wird das Ergebnis nur zurückgegeben, nicht gespeichert.
+     */
+    public Snapshot get(UUID authUserId, Supplier<List<ChatSummaryDto>> loader) {
+        if (!enabled) return unversioned(loader.get());
+
+        long generation;
+        try {
+            invalidateUnsynced();
+            ChatListStore.Listing cached = store.get(authUserId);
+            if (cached != null) {
+                hits.increment();
+                recovered();
+                return snapshot(cached.chats(), cached.generation());
+            }
+            misses.increment();
+            generation = store.generation(authUserId);
+        } catch (RuntimeException e) {
+            failed("Lesen", e);
+            return unversioned(loader.get());
+        }
+
+        List<ChatListStore.Chat> chats = chats(loader.get());
+
+        try {
+            if (!store.put(authUserId, generation, chats)) discardedLoads.increment();
+            recovered();
+        } catch (RuntimeException e) {
+            failed("Speichern", e);
+        }
+        // Auch wenn put verworfen wurde: die Generation stammt von vor dem Laden, der ETag passt
+        // also höchstens zu älteren Daten und der nächste Request lädt neu
+        return snapshot(chats, generation);
+    }
+
+    // -----------------------------------------------------
+    // WRITE-THROUGH (nach erfolgreichem Schreiben in Postgres bzw. Journal)
+    // -----------------------------------------------------
+
+    public void chatCreated(UUID authUserId, ChatSummaryDto chat) {
+        change(authUserId, () -> store.upsert(authUserId, ChatListStore.Chat.of(chat)));
+    }
+
+    /**
+     * @param updatedAt Zeitstempel der Nachricht (= neues updated_at des Chats), timestamptz::text
+     */
+    public void messageAdded(UUID authUserId, UUID chatId, String title, String lastMessage, String updatedAt) {
+        change(authUserId, () -> store.message(
+                authUserId, chatId.toString(), title, lastMessage, updatedAt, MessageClock.micros(updatedAt)));
+    }
+
+    public void chatDeleted(UUID authUserId, UUID chatId) {
+        change(authUserId, () -> store.remove(authUserId, chatId.toString()));
+    }
+
+    public void invalidate(UUID authUserId) {
+        change(authUserId, () -> store.invalidate(authUserId));
+    }
+
+    private void change(UUID authUserId, Runnable update) {
+        if (!enabled) return;
+        try {
+            invalidateUnsynced();
+            update.run();
+            updates.increment();
+            recovered();
+        } catch (RuntimeException e) {
+            failed("Aktualisieren", e);
+            // Lieber neu laden als eine veraltete Liste behalten
+            try {
+                store.invalidate(authUserId);
+            } catch (RuntimeException again) {
+                unsynced.add(authUserId);
+            }
+        }
+    }
+
+    private void invalidateUnsynced() {
+        if (unsynced.isEmpty()) return;
+        for (UUID authUserId : unsynced) {
+            store.invalidate(authUserId);
+            unsynced.remove(authUserId);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), updates.sum(), discardedLoads.sum(), errors.sum(), store.size());
+    }
+
+    private void failed(String action, RuntimeException e) {
+        errors.increment();
+        if (!failing) {
+            log.warn("Chatlisten-Cache: {} fehlgeschlagen, Chatlisten kommen aus Postgres: {}", action, e.getMessage());
+        } else {
+            log.debug("Chatlisten-Cache: {} fehlgeschlagen: {}", action, e.getMessage());
+        }
+        failing = true;
+    }
+
+    private void recovered() {
+        if (failing) {
+            failing = false;
+            log.info("Chatlisten-Cache wieder verfügbar");
+        }
+    }
+
+    private static Snapshot snapshot(List<ChatListStore.Chat> chats, long generation) {
+        List<ChatSummaryDto> dtos = new ArrayList<>(chats.size());
+        long newest = 0;
+        for (ChatListStore.Chat c : chats) {
+            dtos.add(c.toDto());
+            newest = Math.max(newest, c.updatedAtMicros());
+        }
+        return new Snapshot(dtos, new SupabaseDatabaseClient.ContentVersion(chats.size(), newest, generation));
+    }
+
+    // Ohne Speicher gibt es keinen Änderungszähler: Liste ohne ETag
+    private static Snapshot unversioned(List<ChatSummaryDto> loaded) {
+        return new Snapshot(loaded, null);
+    }
+
+    private static List<ChatListStore.Chat> chats(List<ChatSummaryDto> loaded) {
+        List<ChatListStore.Chat> chats = new ArrayList<>(loaded.size());
+        for (ChatSummaryDto dto : loaded) {
+            chats.add(ChatListStore.Chat.of(dto));
+        }
+        return chats;
+    }
+}
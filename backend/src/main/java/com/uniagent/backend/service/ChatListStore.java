@@ -0,0 +1,94 @@
+package com.uniagent.backend.service;
+
+import com.uniagent.backend.dto.ChatSummaryDto;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Speicher hinter dem ChatListCache: komplette Chatliste pro User.
+ * In-Memory (MemoryChatListStore, eine Instanz) oder Redis-kompatibel (RedisChatListStore, mehrere Instanzen),
+ * Auswahl über app.chat-list-cache.backend (ChatListCacheConfig).
+ *
+ * Schutz gegen veraltete Ladevorgänge über eine Generation pro User: jede Änderung zählt sie hoch,
+ * put() übernimmt eine aus Postgres geladene Liste nur, wenn seit generation() nichts geändert wurde.
+ * Änderungen an einer nicht (mehr) gespeicherten Liste zählen nur die Generation hoch.
+ *
+ * Die Generation ist zugleich der Änderungszähler im ETag der Liste (ChatListCache): sie wiederholt sich
+ * auch nach einem Neustart bzw. Ablauf nicht (Startwert aus der Uhr).
+ */
+public interface ChatListStore extends AutoCloseable {
+
+    /**
+     * Ein Chat der Liste; updatedAtMicros = updatedAt als Zahl (Sortierung, ETag).
+     */
+    record Chat(String id, String title, String lastMessage, String updatedAt, String createdAt, long updatedAtMicros) {
+
+        static Chat of(ChatSummaryDto dto) {
+            return new Chat(dto.getId(), dto.getTitle(), dto.getLastMessage(), dto.getUpdatedAt(), dto.getCreatedAt(),
+                    MessageClock.micros(dto.getUpdatedAt()));
+        }
+
+        ChatSummaryDto toDto() {
+            return new ChatSummaryDto(id, title, lastMessage, updatedAt, createdAt);
+        }
+    }
+
+    /**
+     * Reihenfolge wie listChats: ORDER BY updated_at DESC, id DESC (uuid-Vergleich = Textvergleich in Kleinbuchstaben).
+     */
+    Comparator<Chat> ORDER = Comparator.comparingLong(Chat::updatedAtMicros).thenComparing(Chat::id).reversed();
+
+    /**
+     * Gespeicherte Liste (sortiert) mit der Generation, zu der sie gehört.
+     */
+    record Listing(List<Chat> chats, long generation) {}
+
+    /**
+     * Gespeicherte Liste oder null; setzt die Leerlaufzeit zurück.
+     */
+    Listing get(UUID authUserId);
+
+    /**
+     * Aktuelle Generation, vor dem Laden aus Postgres abfragen.
+     */
+    long generation(UUID authUserId);
+
+    /**
+     * Speichert die Liste, wenn die Generation noch stimmt.
+     *
+     * @return false, wenn zwischenzeitlich geändert (Liste wird dann nicht gespeichert)
+     */
+    boolean put(UUID authUserId, long generation, List<Chat> chats);
+
+    /**
+     * Neuer Chat (oder kompletter Stand eines Chats).
+     */
+    void upsert(UUID authUserId, Chat chat);
+
+    /**
+     * Neue Nachricht in einem Chat: Titel setzen, Vorschau und updatedAt nur, wenn die Nachricht neuer ist
+     * (wie insertMessageBatch). Fehlt der Chat in der Liste, wird die Liste verworfen.
+     */
+    void message(UUID authUserId, String chatId, String title, String lastMessage, String updatedAt, long updatedAtMicros);
+
+    void remove(UUID authUserId, String chatId);
+
+    void invalidate(UUID authUserId);
+
+    /**
+     * Anzahl gespeicherter Listen, -1 wenn unbekannt (Redis).
+     */
+    int size();
+
+    /**
+     * true, wenn mehrere Instanzen denselben Speicher nutzen (Redis).
+     */
+    default boolean shared() {
+        return false;
+    }
+
+    @Override
+    void close();
+}
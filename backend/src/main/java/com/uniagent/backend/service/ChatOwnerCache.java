@@ -0,0 +1,84 @@
+package com.uniagent.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * chatId -> auth_user_id der zuletzt benutzten Chats.
+ *
+ * Der Besitzer eines Chats ändert sich nie (ids kommen aus UUID.randomUUID), ein Eintrag kann also
+ * nur durch Löschen ungültig werden – deleteChat entfernt ihn. Löscht eine andere Instanz den Chat,
+ * bleibt der Eintrag hier stehen; das ist harmlos, weil Schreibzugriffe auf gelöschte Chats in
+ * Postgres ins Leere laufen (Ownership-Bedingung bzw. ON DELETE CASCADE).
+ *
+ * Nicht gecacht wird "gehört nicht / existiert nicht" – der Chat kann gleich danach angelegt werden.
+ */
+@Service
+public class ChatOwnerCache {
+
+    public record Stats(long hits, long misses, int entries) {}
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<UUID, UUID> owners = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ChatOwnerCache(@Value("${app.chat-owner-cache.max-entries:100000}") int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Bekannter Besitzer des Chats oder null.
+     */
+    public UUID ownerOf(UUID chatId) {
+        UUID owner = owners.get(chatId);
+        if (owner == null) misses.increment();
+        else hits.increment();
+        return owner;
+    }
+
+    /**
+     * true, wenn der Chat laut Cache sicher einem anderen User gehört (ohne DB abweisbar).
+     */
+    public boolean isForeign(UUID authUserId, UUID chatId) {
+        UUID owner = ownerOf(chatId);
+        return owner != null && !owner.equals(authUserId);
+    }
+
+    /**
+     * true, wenn der Chat laut Cache dem User gehört.
+     */
+    public boolean isOwner(UUID authUserId, UUID chatId) {
+        return authUserId.equals(ownerOf(chatId));
+    }
+
+    public void remember(UUID chatId, UUID authUserId) {
+        if (owners.size() >= maxEntries && !owners.containsKey(chatId)) evictSome();
+        owners.put(chatId, authUserId);
+    }
+
+    public void invalidate(UUID chatId) {
+        owners.remove(chatId);
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), owners.size());
+    }
+
+    /**
+     * Voll: ~10% beliebige Einträge verwerfen (kein LRU nötig, ein Fehltreffer kostet nur eine Abfrage).
+     */
+    private void evictSome() {
+        int toRemove = Math.max(1, maxEntries / 10);
+        Iterator<UUID> it = owners.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
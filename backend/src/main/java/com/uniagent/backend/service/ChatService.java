@@ -1,20 +1,83 @@
 package com.uniagent.backend.service;
 
+import com.uniagent.backend.config.N8nConfig;
 import com.uniagent.backend.dto.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
+@Slf4j
 public class ChatService {
 
+    // Gleicher Text wie bisher im Frontend, wenn der Bot nicht antwortet
+    private static final String BOT_ERROR_TEXT = "Technischer Fehler beim Bot. Bitte später erneut versuchen.";
+    private static final String BOT_EMPTY_TEXT = "Entschuldigung, ich konnte nicht helfen.";
+
+    // Seitengröße für Keyset-Pagination (limit-Parameter)
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Obergrenze für POST /{chatId}/messages:batch
+    private static final int MAX_BATCH_MESSAGES = 5000;
+
+    // Mehr Wörter bringen bei der Suche nichts, machen die tsquery nur teurer
+    private static final int MAX_SEARCH_TERMS = 8;
+
     private final SupabaseAuthClient supabaseAuthClient;
     private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final ChatOwnerCache chatOwnerCache;
+    private final ChatListCache chatListCache;
+    private final N8nChatClient n8nChatClient;
+    private final TaskExecutor askExecutor;
+    private final AnswerCache answerCache;
+    private final FaqAggregator faqAggregator;
+    private final MessageWriteBehind messageWriteBehind;
+    private final MessageClock messageClock;
+    private final ChatExporter chatExporter;
+    private final long askStreamTimeoutMs;
 
-    public ChatService(SupabaseAuthClient supabaseAuthClient, SupabaseDatabaseClient supabaseDatabaseClient) {
+    public ChatService(
+            SupabaseAuthClient supabaseAuthClient,
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            ChatOwnerCache chatOwnerCache,
+            ChatListCache chatListCache,
+            N8nChatClient n8nChatClient,
+            @Qualifier("askExecutor") TaskExecutor askExecutor,
+            AnswerCache answerCache,
+            FaqAggregator faqAggregator,
+            MessageWriteBehind messageWriteBehind,
+            MessageClock messageClock,
+            ChatExporter chatExporter,
+            N8nConfig n8nConfig
+    ) {
         this.supabaseAuthClient = supabaseAuthClient;
         this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.chatOwnerCache = chatOwnerCache;
+        this.chatListCache = chatListCache;
+        this.n8nChatClient = n8nChatClient;
+        this.askExecutor = askExecutor;
+        this.answerCache = answerCache;
+        this.faqAggregator = faqAggregator;
+        this.messageWriteBehind = messageWriteBehind;
+        this.messageClock = messageClock;
+        this.chatExporter = chatExporter;
+        this.askStreamTimeoutMs = n8nConfig.getStreamTimeoutMs();
     }
 
     private UUID requireAuthUserId(String token) {
@@ -37,19 +100,180 @@ public class ChatService {
                 ? request.getTitle().trim()
                 : "Neuer Chat";
 
-        UUID chatId = supabaseDatabaseClient.createChat(authUserId, title);
-        return new CreateChatResponse(true, "Chat erstellt.", chatId.toString(), title);
+        SupabaseDatabaseClient.CreatedChat created = supabaseDatabaseClient.createChat(authUserId, title);
+        chatOwnerCache.remember(created.id(), authUserId);
+        chatListCache.chatCreated(authUserId, new ChatSummaryDto(
+                created.id().toString(), created.title(), "", created.createdAt(), created.createdAt()));
+        return new CreateChatResponse(true, "Chat erstellt.", created.id().toString(), title);
+    }
+
+    /**
+     * Ergebnis eines bedingten GET: body == null heißt 304 Not Modified.
+     * etag == null, wenn es keinen Stand gibt (z.B. fremder Chat) – dann ohne ETag antworten.
+     */
+    public record Conditional<T>(String etag, T body) {
+
+        public boolean notModified() {
+            return body == null;
+        }
     }
 
     public List<ChatSummaryDto> listChats(String token) {
-        UUID authUserId = requireAuthUserId(token);
-        return supabaseDatabaseClient.listChats(authUserId);
+        return listChats(token, null).body();
+    }
+
+    public SupabaseDatabaseClient.Page<ChatSummaryDto> listChatsPage(
+            String token, Integer limit, PageCursor before, PageCursor after
+    ) {
+        return listChatsPage(token, limit, before, after, null).body();
     }
 
     public List<ChatMessageDto> getMessages(String token, String chatId) {
+        return getMessages(token, chatId, null).body();
+    }
+
+    public SupabaseDatabaseClient.Page<ChatMessageDto> getMessagesPage(
+            String token, String chatId, Integer limit, PageCursor before, PageCursor after
+    ) {
+        return getMessagesPage(token, chatId, limit, before, after, null).body();
+    }
+
+    // -----------------------------------------------------
+    // Bedingte GETs (ETag / If-None-Match)
+    // -----------------------------------------------------
+    // Der Stand (Anzahl, neuestes updated_at, Änderungszähler) wird vor den Daten gelesen: ändert sich dazwischen
+    // etwas, passt der ETag nicht zu den neueren Daten und der nächste Request lädt neu –
+    // nie umgekehrt (alte Daten unter neuem ETag).
+    // Die ganze Chatliste kommt aus dem ChatListCache, ihr Stand wird dann aus der Liste selbst und der
+    // Generation des Speichers berechnet (ohne erreichbaren Speicher: kein ETag).
+
+    public Conditional<List<ChatSummaryDto>> listChats(String token, String ifNoneMatch) {
+        UUID authUserId = requireAuthUserId(token);
+        if (chatListCache.isEnabled()) {
+            // Ausstehende Write-Behind-Nachrichten stehen schon in der gespeicherten Liste
+            ChatListCache.Snapshot list = chatListCache.get(authUserId, () -> {
+                messageWriteBehind.awaitUser(authUserId);
+                return supabaseDatabaseClient.listChats(authUserId);
+            });
+            if (list.version() == null) return new Conditional<>(null, list.chats());
+            String etag = etag("c", authUserId, "", list.version());
+            if (matches(ifNoneMatch, etag)) return new Conditional<>(etag, null);
+            return new Conditional<>(etag, list.chats());
+        }
+
+        messageWriteBehind.awaitUser(authUserId);
+
+        String etag = etag("c", authUserId, "", supabaseDatabaseClient.chatListVersion(authUserId));
+        if (matches(ifNoneMatch, etag)) return new Conditional<>(etag, null);
+        return new Conditional<>(etag, supabaseDatabaseClient.listChats(authUserId));
+    }
+
+    public Conditional<SupabaseDatabaseClient.Page<ChatSummaryDto>> listChatsPage(
+            String token, Integer limit, PageCursor before, PageCursor after, String ifNoneMatch
+    ) {
+        UUID authUserId = requireAuthUserId(token);
+        messageWriteBehind.awaitUser(authUserId);
+
+        int size = pageSize(limit);
+        String etag = etag("c", authUserId, pageVariant(size, before, after),
+                supabaseDatabaseClient.chatListVersion(authUserId));
+        if (matches(ifNoneMatch, etag)) return new Conditional<>(etag, null);
+        return new Conditional<>(etag, supabaseDatabaseClient.listChatsPage(authUserId, size, before, after));
+    }
+
+    public Conditional<List<ChatMessageDto>> getMessages(String token, String chatId, String ifNoneMatch) {
+        UUID authUserId = requireAuthUserId(token);
+        UUID cid = UUID.fromString(chatId);
+        if (chatOwnerCache.isForeign(authUserId, cid)) return new Conditional<>(null, List.of());
+        messageWriteBehind.awaitChat(cid);
+
+        var version = supabaseDatabaseClient.messagesVersion(authUserId, cid);
+        if (version.isEmpty()) return new Conditional<>(null, List.of());
+
+        String etag = etag("m", cid, "", version.get());
+        if (matches(ifNoneMatch, etag)) return new Conditional<>(etag, null);
+        return new Conditional<>(etag, supabaseDatabaseClient.getMessages(authUserId, cid));
+    }
+
+    public Conditional<SupabaseDatabaseClient.Page<ChatMessageDto>> getMessagesPage(
+            String token, String chatId, Integer limit, PageCursor before, PageCursor after, String ifNoneMatch
+    ) {
         UUID authUserId = requireAuthUserId(token);
         UUID cid = UUID.fromString(chatId);
-        return supabaseDatabaseClient.getMessages(authUserId, cid);
+        SupabaseDatabaseClient.Page<ChatMessageDto> empty = new SupabaseDatabaseClient.Page<>(List.of(), null);
+        if (chatOwnerCache.isForeign(authUserId, cid)) return new Conditional<>(null, empty);
+        messageWriteBehind.awaitChat(cid);
+
+        var version = supabaseDatabaseClient.messagesVersion(authUserId, cid);
+        if (version.isEmpty()) return new Conditional<>(null, empty);
+
+        int size = pageSize(limit);
+        String etag = etag("m", cid, pageVariant(size, before, after), version.get());
+        if (matches(ifNoneMatch, etag)) return new Conditional<>(etag, null);
+        return new Conditional<>(etag, supabaseDatabaseClient.getMessagesPage(authUserId, cid, size, before, after));
+    }
+
+    /**
+     * Schwacher ETag (W/): Tomcat komprimiert keine Antworten mit starkem ETag, und If-None-Match
+     * vergleicht ohnehin schwach. scope trennt User/Chats und Seiten derselben Liste.
+     */
+    private static String etag(String kind, UUID scope, String variant, SupabaseDatabaseClient.ContentVersion version) {
+        return "W/\"" + kind
+                + "-" + Long.toString(version.count(), 36)
+                + "-" + Long.toString(version.updatedAtMicros(), 36)
+                + "-" + Long.toString(version.revision(), 36)
+                + "-" + Integer.toHexString(Objects.hash(scope, variant)) + "\"";
+    }
+
+    private static String pageVariant(int size, PageCursor before, PageCursor after) {
+        return size + "|" + ((before == null) ? "" : before.encode()) + "|" + ((after == null) ? "" : after.encode());
+    }
+
+    /**
+     * If-None-Match: "*" oder Liste von ETags, Vergleich ohne W/-Präfix.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Nachricht speichern – direkt oder über die Write-Behind-Warteschlange (app.write-behind.enabled).
+     */
+    private SupabaseDatabaseClient.AddedMessage saveMessage(UUID authUserId, UUID chatId, String sender, String content) {
+        requireNotForeign(authUserId, chatId);
+        SupabaseDatabaseClient.AddedMessage added;
+        if (messageWriteBehind.isEnabled()) {
+            added = messageWriteBehind.addMessage(authUserId, chatId, sender, content);
+        } else {
+            added = supabaseDatabaseClient.addMessage(authUserId, chatId, sender, content);
+            chatOwnerCache.remember(chatId, authUserId);
+        }
+        // updated_at des Chats = Zeitstempel der Nachricht, Titel inkl. automatischem Titel
+        chatListCache.messageAdded(authUserId, chatId, added.chatTitle(),
+                SupabaseDatabaseClient.preview(content.trim()), added.createdAt());
+        return added;
+    }
+
+    /**
+     * Gehört der Chat laut ChatOwnerCache einem anderen User, ohne Datenbankzugriff abweisen.
+     */
+    private void requireNotForeign(UUID authUserId, UUID chatId) {
+        if (chatOwnerCache.isForeign(authUserId, chatId)) {
+            throw new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung.");
+        }
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) return DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
     }
 
     public AddMessageResponse addMessage(String token, String chatId, AddMessageRequest request) {
@@ -65,29 +289,226 @@ public class ChatService {
             return new AddMessageResponse(false, "Ungültiger Sender (nur 'user' oder 'bot').");
         }
 
-        supabaseDatabaseClient.addMessage(authUserId, cid, sender, request.getContent().trim());
+        // Ein Statement: Ownership, Insert, updated_at und ggf. automatischer Titel
+        SupabaseDatabaseClient.AddedMessage added =
+                saveMessage(authUserId, cid, sender, request.getContent().trim());
+
+        if (sender.equals("user")) faqAggregator.recordQuestion(added.id(), request.getContent());
+
+        return new AddMessageResponse(true, "Nachricht gespeichert.", added.id(), added.createdAt());
+    }
+
+    /**
+     * Mehrere Nachrichten auf einmal (z.B. Frage + Antwort oder Import eines alten Chats).
+     * Alles oder nichts: eine Transaktion, Reihenfolge wie im Request.
+     */
+    public AddMessagesBatchResponse addMessagesBatch(String token, String chatId, AddMessagesBatchRequest request) {
+        UUID authUserId = requireAuthUserId(token);
+        UUID cid = UUID.fromString(chatId);
+
+        List<BatchMessageDto> items = (request == null) ? null : request.getMessages();
+        if (items == null || items.isEmpty()) {
+            return new AddMessagesBatchResponse(false, "Nachrichten fehlen.");
+        }
+        if (items.size() > MAX_BATCH_MESSAGES) {
+            return new AddMessagesBatchResponse(false, "Zu viele Nachrichten (max. " + MAX_BATCH_MESSAGES + ").");
+        }
+
+        List<SupabaseDatabaseClient.NewMessage> messages = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchMessageDto item = items.get(i);
+            String content = (item == null || item.getContent() == null) ? "" : item.getContent().trim();
+            if (content.isBlank()) {
+                return new AddMessagesBatchResponse(false, "Nachricht " + (i + 1) + " ist leer.");
+            }
+
+            String sender = (item.getSender() == null) ? "user" : item.getSender().trim();
+            if (!sender.equals("user") && !sender.equals("bot")) {
+                return new AddMessagesBatchResponse(false, "Ungültiger Sender in Nachricht " + (i + 1) + " (nur 'user' oder 'bot').");
+            }
+
+            OffsetDateTime createdAt;
+            try {
+                createdAt = (item.getCreatedAt() == null || item.getCreatedAt().isBlank())
+                        ? messageClock.next()
+                        : OffsetDateTime.parse(item.getCreatedAt().trim());
+            } catch (DateTimeParseException e) {
+                return new AddMessagesBatchResponse(false, "Ungültiges createdAt in Nachricht " + (i + 1) + ".");
+            }
+
+            messages.add(new SupabaseDatabaseClient.NewMessage(UUID.randomUUID(), cid, sender, content, createdAt));
+        }
+
+        requireNotForeign(authUserId, cid);
+        String title = supabaseDatabaseClient.addMessagesBatch(authUserId, cid, messages);
+        chatOwnerCache.remember(cid, authUserId);
+        // Zeitstempel kommen vom Client, updated_at bleibt ggf. stehen: einmal neu laden statt nachrechnen
+        chatListCache.invalidate(authUserId);
+
+        List<String> ids = new ArrayList<>(messages.size());
+        for (SupabaseDatabaseClient.NewMessage m : messages) {
+            ids.add(m.id().toString());
+            if (m.sender().equals("user")) faqAggregator.recordQuestion(m.id().toString(), m.content());
+        }
+        return new AddMessagesBatchResponse(true, messages.size() + " Nachrichten gespeichert.", ids, title);
+    }
+
+    // -----------------------------------------------------
+    // FRAGE AN DEN BOT (n8n) – Antwort als Server-Sent Events
+    // -----------------------------------------------------
+
+    /**
+     * Speichert die Frage, leitet sie an n8n weiter und streamt die Antwort als SSE:
+     *   event "user"  – gespeicherte User-Nachricht {messageId, createdAt, chatTitle}
+     *   event "token" – Antwort-Chunk {text}
+     *   event "done"  – gespeicherte Bot-Nachricht {messageId, createdAt, content}
+     *   event "error" – Bot nicht erreichbar; die Fehlermeldung wurde als Bot-Nachricht gespeichert
+     *
+     * Die erste Frage eines Chats kann aus dem AnswerCache beantwortet werden (ohne n8n).
+     * Folgefragen nicht – deren Antwort hängt vom bisherigen Gesprächsverlauf ab.
+     *
+     * @throws IllegalArgumentException bei ungültigem Token oder fremdem Chat
+     */
+    public SseEmitter ask(String token, String chatId, String question) {
+        UUID authUserId = requireAuthUserId(token);
+        UUID cid = UUID.fromString(chatId);
+        String q = question.trim();
+
+        // Synchron: Ownership-Check + User-Nachricht speichern (wirft bei fremdem Chat)
+        SupabaseDatabaseClient.AddedMessage userMessage = saveMessage(authUserId, cid, "user", q);
+        faqAggregator.recordQuestion(userMessage.id(), q);
+
+        SseEmitter emitter = new SseEmitter(askStreamTimeoutMs);
+        AtomicBoolean clientGone = new AtomicBoolean(false);
+        emitter.onTimeout(() -> clientGone.set(true));
+        emitter.onError(e -> clientGone.set(true));
+
+        send(emitter, clientGone, "user", Map.of(
+                "messageId", userMessage.id(),
+                "createdAt", userMessage.createdAt(),
+                "chatTitle", userMessage.chatTitle()
+        ));
+
+        boolean cacheable = userMessage.messageCount() == 1 && answerCache.isCacheable(q);
+        if (cacheable) {
+            String cached = answerCache.get(q);
+            if (cached != null) {
+                send(emitter, clientGone, "token", Map.of("text", cached));
+                saveBotAnswer(emitter, clientGone, authUserId, cid, cached);
+                return emitter;
+            }
+        }
+
+        try {
+            askExecutor.execute(() -> streamAnswer(emitter, clientGone, authUserId, cid, q, cacheable));
+        } catch (TaskRejectedException e) {
+            log.warn("Ask-Executor ausgelastet, Chat {}", cid);
+            finishWithError(emitter, clientGone, authUserId, cid);
+        }
+        return emitter;
+    }
+
+    private void streamAnswer(
+            SseEmitter emitter, AtomicBoolean clientGone, UUID authUserId, UUID chatId, String question, boolean cacheable
+    ) {
+        String answer;
+        try {
+            answer = n8nChatClient.streamAnswer(
+                    chatId.toString(),
+                    question,
+                    chunk -> send(emitter, clientGone, "token", Map.of("text", chunk))
+            );
+        } catch (Exception e) {
+            log.error("Fehler beim n8n-Aufruf für Chat {}", chatId, e);
+            finishWithError(emitter, clientGone, authUserId, chatId);
+            return;
+        }
+
+        String botText = answer.isBlank() ? BOT_EMPTY_TEXT : answer;
+        if (answer.isBlank()) {
+            send(emitter, clientGone, "token", Map.of("text", botText));
+        } else {
+            if (cacheable) answerCache.put(question, answer);
+            faqAggregator.recordAnswer(question, answer);
+        }
+
+        saveBotAnswer(emitter, clientGone, authUserId, chatId, botText);
+    }
+
+    private void saveBotAnswer(SseEmitter emitter, AtomicBoolean clientGone, UUID authUserId, UUID chatId, String botText) {
+        // Bot-Antwort auch speichern, wenn der Client inzwischen weg ist
+        try {
+            SupabaseDatabaseClient.AddedMessage botMessage =
+                    saveMessage(authUserId, chatId, "bot", botText);
+            send(emitter, clientGone, "done", Map.of(
+                    "messageId", botMessage.id(),
+                    "createdAt", botMessage.createdAt(),
+                    "content", botText
+            ));
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("Bot-Antwort für Chat {} konnte nicht gespeichert werden", chatId, e);
+            emitter.completeWithError(e);
+        }
+    }
 
-        // Optional: Titel beim ersten User-Text automatisch setzen (wenn noch "Neuer Chat")
-        if (sender.equals("user")) {
-            supabaseDatabaseClient.maybeAutoTitle(authUserId, cid, request.getContent().trim());
+    private void finishWithError(SseEmitter emitter, AtomicBoolean clientGone, UUID authUserId, UUID chatId) {
+        try {
+            saveMessage(authUserId, chatId, "bot", BOT_ERROR_TEXT);
+        } catch (Exception e) {
+            log.error("Fehlermeldung für Chat {} konnte nicht gespeichert werden", chatId, e);
         }
+        send(emitter, clientGone, "error", Map.of("message", BOT_ERROR_TEXT));
+        emitter.complete();
+    }
 
-        return new AddMessageResponse(true, "Nachricht gespeichert.");
+    private void send(SseEmitter emitter, AtomicBoolean clientGone, String event, Object data) {
+        if (clientGone.get()) return;
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException | IllegalStateException e) {
+            // Client hat die Verbindung geschlossen – Antwort trotzdem fertig lesen und speichern
+            clientGone.set(true);
+        }
     }
 
     public DeleteChatResponse deleteChat(String token, String chatId) {
         UUID authUserId = requireAuthUserId(token);
         UUID cid = UUID.fromString(chatId);
 
-        boolean ok = supabaseDatabaseClient.deleteChat(authUserId, cid);
-        if (ok) return new DeleteChatResponse(true, "Chat gelöscht.");
+        boolean ok = !chatOwnerCache.isForeign(authUserId, cid) && supabaseDatabaseClient.deleteChat(authUserId, cid);
+        if (ok) {
+            chatOwnerCache.invalidate(cid);
+            chatListCache.chatDeleted(authUserId, cid);
+            return new DeleteChatResponse(true, "Chat gelöscht.");
+        }
         return new DeleteChatResponse(false, "Chat nicht gefunden oder keine Berechtigung.");
     }
 
-    public List<ChatSummaryDto> searchChats(String token, String q) {
+    /**
+     * Komplette Historie als NDJSON in out (Format siehe ChatExporter).
+     * Vor dem ersten Byte wird der Token geprüft, danach nicht mehr geworfen außer IOException.
+     *
+     * @throws IllegalArgumentException bei ungültigem Token (noch nichts geschrieben)
+     */
+    public void exportChats(String token, OutputStream out) throws IOException {
+        UUID authUserId = requireAuthUserId(token);
+        messageWriteBehind.awaitUser(authUserId);
+        chatExporter.write(authUserId, out);
+    }
+
+    public SupabaseDatabaseClient.Page<ChatSummaryDto> searchChats(String token, String q, Integer limit, Integer offset) {
         UUID authUserId = requireAuthUserId(token);
         String query = (q == null) ? "" : q.trim();
-        if (query.isBlank()) return List.of();
-        return supabaseDatabaseClient.searchChats(authUserId, query);
+        if (query.isBlank()) return new SupabaseDatabaseClient.Page<>(List.of(), null);
+
+        String canonical = QuestionNormalizer.canonicalize(query);
+        List<String> tokens = canonical.isEmpty()
+                ? List.of()
+                : Arrays.stream(canonical.split(" ")).limit(MAX_SEARCH_TERMS).toList();
+
+        int start = (offset == null) ? 0 : Math.max(0, offset);
+        messageWriteBehind.awaitUser(authUserId);
+        return supabaseDatabaseClient.searchChats(authUserId, query, tokens, pageSize(limit), start);
     }
 }
\ No newline at end of file
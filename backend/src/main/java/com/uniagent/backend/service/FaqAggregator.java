@@ -0,0 +1,297 @@
+package com.uniagent.backend.service;
+
+import com.uniagent.backend.dto.FaqEntryDto;
+import com.uniagent.backend.dto.PageCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Zählt, wie oft welche Frage gestellt wurde (kanonische Form, siehe QuestionNormalizer),
+ * und hält die Top-K fertig im Speicher für /api/faq/top.
+ *
+ * - Erstbefüllung: gruppiert nur die Fragen der letzten app.faq.initial-days Tage, damit der Start nicht
+ *   über alle Partitionen von chat_messages aggregiert
+ * - Nachlesen: regelmäßig alle neuen User-Nachrichten aus chat_messages (Keyset nach created_at, id)
+ * - Live: ChatService meldet neue Fragen und Bot-Antworten direkt; diese ids überspringt das Nachlesen
+ */
+@Service
+@Slf4j
+public class FaqAggregator {
+
+    // Startwert für den Cursor: hinter allen Zeilen mit demselben Zeitstempel
+    private static final UUID MAX_UUID = UUID.fromString("ffffffff-ffff-ffff-ffff-ffffffffffff");
+
+    // Live gezählte ids, die das Nachlesen nach dieser Zeit sicher hinter sich hat
+    private static final long LIVE_ID_RETENTION_MILLIS = 10 * 60 * 1000;
+
+    private static final long MIN_REBUILD_INTERVAL_MILLIS = 1000;
+
+    // Häufigste zuerst, bei Gleichstand die zuletzt gestellte
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> e.count).reversed()
+            .thenComparing(Comparator.comparingLong((Entry e) -> e.lastAskedMillis).reversed());
+
+    public record Snapshot(List<FaqEntryDto> top, String etag) {}
+
+    private static final class Entry {
+        String question;
+        long count;
+        long lastAskedMillis;
+        String answer;
+        boolean answerLoaded;
+    }
+
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final int topK;
+    private final int maxQuestions;
+    private final int lagSeconds;
+    private final int batchSize;
+    private final int initialDays;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ConcurrentHashMap<String, Long> liveIds = new ConcurrentHashMap<>();
+
+    private volatile boolean initialized = false;
+    private PageCursor watermark;
+
+    private volatile boolean dirty = true;
+    private volatile long lastRebuildMillis = 0;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private long version = 0;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), "\"faq-0\"");
+
+    public FaqAggregator(
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            @Value("${app.faq.top-k:10}") int topK,
+            @Value("${app.faq.max-questions:50000}") int maxQuestions,
+            @Value("${app.faq.catch-up-lag-seconds:5}") int lagSeconds,
+            @Value("${app.faq.catch-up-batch-size:5000}") int batchSize,
+            @Value("${app.faq.initial-days:90}") int initialDays
+    ) {
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.topK = topK;
+        this.maxQuestions = maxQuestions;
+        this.lagSeconds = lagSeconds;
+        this.batchSize = batchSize;
+        this.initialDays = Math.max(1, initialDays);
+    }
+
+    // -----------------------------------------------------
+    // LIVE-UPDATES (aus ChatService)
+    // -----------------------------------------------------
+
+    /**
+     * Neue User-Nachricht. Vor der Erstbefüllung ignoriert – die Zeile kommt dann über das Nachlesen.
+     */
+    public void recordQuestion(String messageId, String question) {
+        if (!initialized || messageId == null) return;
+        if (liveIds.putIfAbsent(messageId, System.currentTimeMillis()) != null) return;
+        synchronized (this) {
+            count(question, 1, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Antwort des Bots auf eine Frage; wird als FAQ-Antwort angezeigt.
+     */
+    public synchronized void recordAnswer(String question, String answer) {
+        if (answer == null || answer.isBlank()) return;
+        Entry e = entries.get(QuestionNormalizer.canonicalize(question));
+        if (e == null) return;
+        e.answer = answer;
+        dirty = true;
+    }
+
+    // -----------------------------------------------------
+    // NACHLESEN
+    // -----------------------------------------------------
+
+    @Scheduled(
+            initialDelayString = "${app.faq.initial-delay-ms:0}",
+            fixedDelayString = "${app.faq.refresh-ms:30000}"
+    )
+    public void refresh() {
+        try {
+            catchUp();
+            rebuildIfDirty();
+        } catch (Exception e) {
+            log.warn("Top-FAQ konnte nicht aktualisiert werden: {}", e.getMessage());
+        }
+    }
+
+    private void catchUp() {
+        String until = supabaseDatabaseClient.faqBoundary(lagSeconds);
+
+        if (!initialized) {
+            List<SupabaseDatabaseClient.QuestionCount> counts = supabaseDatabaseClient.countUserQuestionsUntil(until, initialDays);
+            synchronized (this) {
+                for (SupabaseDatabaseClient.QuestionCount c : counts) {
+                    count(c.content(), c.count(), c.lastAskedMillis());
+                }
+                watermark = new PageCursor(until, MAX_UUID);
+            }
+            initialized = true;
+            log.info("Top-FAQ initialisiert: {} Fragen", counts.size());
+            return;
+        }
+
+        List<SupabaseDatabaseClient.UserQuestion> rows;
+        do {
+            rows = supabaseDatabaseClient.userQuestionsAfter(watermark, until, batchSize);
+            synchronized (this) {
+                for (SupabaseDatabaseClient.UserQuestion row : rows) {
+                    // Schon live gezählt?
+                    if (liveIds.remove(row.id()) != null) continue;
+                    count(row.content(), 1, row.createdAtMillis());
+                }
+                if (!rows.isEmpty()) {
+                    SupabaseDatabaseClient.UserQuestion last = rows.get(rows.size() - 1);
+                    watermark = new PageCursor(last.createdAt(), UUID.fromString(last.id()));
+                }
+            }
+        } while (rows.size() == batchSize);
+
+        long cutoff = System.currentTimeMillis() - LIVE_ID_RETENTION_MILLIS;
+        liveIds.values().removeIf(t -> t < cutoff);
+    }
+
+    private void count(String question, long n, long askedAtMillis) {
+        String key = QuestionNormalizer.canonicalize(question);
+        if (key.length() < 3) return;
+
+        Entry e = entries.get(key);
+        if (e == null) {
+            e = new Entry();
+            entries.put(key, e);
+        }
+        e.count += n;
+        if (askedAtMillis >= e.lastAskedMillis) {
+            e.lastAskedMillis = askedAtMillis;
+            e.question = question.trim();
+        }
+        dirty = true;
+
+        if (entries.size() > maxQuestions) prune();
+    }
+
+    /**
+     * Zu viele verschiedene Fragen: die ~10% seltensten (bei Gleichstand die ältesten) verwerfen.
+     */
+    private void prune() {
+        List<Map.Entry<String, Entry>> all = new ArrayList<>(entries.entrySet());
+        all.sort(Comparator
+                .comparingLong((Map.Entry<String, Entry> me) -> me.getValue().count)
+                .thenComparingLong(me -> me.getValue().lastAskedMillis));
+
+        int toRemove = Math.max(1, maxQuestions / 10);
+        for (int i = 0; i < toRemove && i < all.size(); i++) {
+            entries.remove(all.get(i).getKey());
+        }
+    }
+
+    /**
+     * Anzahl verschiedener gezählter Fragen (Metrik).
+     */
+    public synchronized int trackedQuestions() {
+        return entries.size();
+    }
+
+    // -----------------------------------------------------
+    // TOP-K
+    // -----------------------------------------------------
+
+    /**
+     * Fertige Top-K; Live-Änderungen werden höchstens einmal pro Sekunde eingerechnet.
+     */
+    public Snapshot top() {
+        if (dirty && System.currentTimeMillis() - lastRebuildMillis >= MIN_REBUILD_INTERVAL_MILLIS) {
+            rebuildIfDirty();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Antworten werden außerhalb von synchronized geladen (DB-Zugriff), damit virtuelle Threads
+     * dabei ihren Carrier-Thread nicht blockieren.
+     */
+    private void rebuildIfDirty() {
+        // Baut gerade ein anderer Thread neu, reicht dessen Ergebnis
+        if (!rebuildLock.tryLock()) return;
+        try {
+            List<Entry> top;
+            List<Entry> needAnswer = new ArrayList<>();
+            synchronized (this) {
+                if (!dirty) return;
+                dirty = false;
+                lastRebuildMillis = System.currentTimeMillis();
+
+                // Min-Heap der Größe K statt alles zu sortieren
+                PriorityQueue<Entry> heap = new PriorityQueue<>(RANKING.reversed());
+                for (Entry e : entries.values()) {
+                    heap.offer(e);
+                    if (heap.size() > topK) heap.poll();
+                }
+                top = new ArrayList<>(heap);
+                top.sort(RANKING);
+
+                for (Entry e : top) {
+                    if (e.answer == null && !e.answerLoaded) {
+                        e.answerLoaded = true;
+                        needAnswer.add(e);
+                    }
+                }
+            }
+
+            Map<Entry, String> loaded = new HashMap<>();
+            for (Entry e : needAnswer) {
+                String answer = findAnswer(e.question);
+                if (answer != null) loaded.put(e, answer);
+            }
+
+            synchronized (this) {
+                loaded.forEach((e, answer) -> {
+                    if (e.answer == null) e.answer = answer;
+                });
+
+                List<FaqEntryDto> items = new ArrayList<>(top.size());
+                for (Entry e : top) {
+                    items.add(new FaqEntryDto(
+                            e.question,
+                            e.answer,
+                            e.count,
+                            Instant.ofEpochMilli(e.lastAskedMillis).toString()
+                    ));
+                }
+
+                if (!items.equals(snapshot.top())) {
+                    version++;
+                    snapshot = new Snapshot(List.copyOf(items), "\"faq-" + version + "\"");
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private String findAnswer(String question) {
+        try {
+            return supabaseDatabaseClient.findLatestBotReply(question).orElse(null);
+        } catch (Exception e) {
+            log.warn("FAQ-Antwort konnte nicht geladen werden: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.uniagent.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * ChatListStore im Prozess: höchstens maxUsers Listen, verworfen nach idleSeconds ohne Zugriff.
+ *
+ * Nur für eine einzelne Instanz: Änderungen über eine andere Instanz sieht dieser Speicher nicht.
+ *
+ * Ein Eintrag entsteht erst mit generation() (kurz vor dem Laden) und bekommt mit put() eine Liste;
+ * Änderungen ersetzen den Eintrag atomar (ConcurrentHashMap.computeIfPresent). Generationen kommen
+ * aus einem globalen Zähler, ein verdrängter und neu angelegter Eintrag hat also nie dieselbe; der
+ * Zähler beginnt bei der Uhrzeit in Mikrosekunden, damit sich ETags nach einem Neustart nicht wiederholen.
+ */
+public class MemoryChatListStore implements ChatListStore {
+
+    private static final class Entry {
+        // null = noch nicht geladen bzw. verworfen
+        final List<Chat> chats;
+        final long generation;
+        volatile long touchedNanos;
+
+        Entry(List<Chat> chats, long generation) {
+            this.chats = chats;
+            this.generation = generation;
+            this.touchedNanos = System.nanoTime();
+        }
+    }
+
+    private final int maxUsers;
+    private final long idleNanos;
+    private final ConcurrentHashMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    public MemoryChatListStore(int maxUsers, long idleSeconds) {
+        this.maxUsers = Math.max(1, maxUsers);
+        this.idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, idleSeconds));
+    }
+
+    @Override
+    public Listing get(UUID authUserId) {
+        Entry e = entries.get(authUserId);
+        if (e == null || e.chats == null) return null;
+
+        long now = System.nanoTime();
+        if (now - e.touchedNanos > idleNanos) {
+            entries.remove(authUserId, e);
+            return null;
+        }
+        e.touchedNanos = now;
+        return new Listing(e.chats, e.generation);
+    }
+
+    @Override
+    public long generation(UUID authUserId) {
+        Entry e = entries.get(authUserId);
+        if (e == null) {
+            if (entries.size() >= maxUsers) evict(System.nanoTime());
+            e = entries.computeIfAbsent(authUserId, id -> new Entry(null, generations.incrementAndGet()));
+        }
+        return e.generation;
+    }
+
+    @Override
+    public boolean put(UUID authUserId, long generation, List<Chat> chats) {
+        List<Chat> sorted = new ArrayList<>(chats);
+        sorted.sort(ORDER);
+        List<Chat> snapshot = List.copyOf(sorted);
+
+        Entry stored = entries.computeIfPresent(authUserId,
+                (id, e) -> (e.generation == generation) ? new Entry(snapshot, generation) : e);
+        return stored != null && stored.chats == snapshot;
+    }
+
+    @Override
+    public void upsert(UUID authUserId, Chat chat) {
+        change(authUserId, chats -> {
+            List<Chat> next = new ArrayList<>(chats.size() + 1);
+            for (Chat c : chats) {
+                if (!c.id().equals(chat.id())) next.add(c);
+            }
+            next.add(chat);
+            next.sort(ORDER);
+            return next;
+        });
+    }
+
+    @Override
+    public void message(UUID authUserId, String chatId, String title, String lastMessage, String updatedAt, long updatedAtMicros) {
+        change(authUserId, chats -> {
+            List<Chat> next = new ArrayList<>(chats);
+            for (int i = 0; i < next.size(); i++) {
+                Chat c = next.get(i);
+                if (!c.id().equals(chatId)) continue;
+
+                next.set(i, (updatedAtMicros >= c.updatedAtMicros())
+                        ? new Chat(c.id(), title, lastMessage, updatedAt, c.createdAt(), updatedAtMicros)
+                        : new Chat(c.id(), title, c.lastMessage(), c.updatedAt(), c.createdAt(), c.updatedAtMicros()));
+                next.sort(ORDER);
+                return next;
+            }
+            // Chat unbekannt (z.B. über eine andere Instanz angelegt): Liste neu laden
+            return null;
+        });
+    }
+
+    @Override
+    public void remove(UUID authUserId, String chatId) {
+        change(authUserId, chats -> chats.stream().filter(c -> !c.id().equals(chatId)).toList());
+    }
+
+    @Override
+    public void invalidate(UUID authUserId) {
+        change(authUserId, chats -> null);
+    }
+
+    /**
+     * Neue Generation; liegt eine Liste vor, wird sie durch update(liste) ersetzt (null = verwerfen).
+     */
+    private void change(UUID authUserId, UnaryOperator<List<Chat>> update) {
+        entries.computeIfPresent(authUserId, (id, e) -> {
+            List<Chat> next = (e.chats == null) ? null : update.apply(e.chats);
+            Entry changed = new Entry((next == null) ? null : List.copyOf(next), generations.incrementAndGet());
+            changed.touchedNanos = e.touchedNanos;
+            return changed;
+        });
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+    }
+
+    // --------------------------------------------------------------
+    // Eviction: erst Einträge ohne Zugriff seit idleSeconds, dann die ~10% mit dem ältesten Zugriff
+    // --------------------------------------------------------------
+    private synchronized void evict(long now) {
+        if (entries.size() < maxUsers) return;
+
+        entries.values().removeIf(e -> now - e.touchedNanos > idleNanos);
+
+        if (entries.size() >= maxUsers) {
+            // Zugriffszeit einmal lesen: get() setzt sie währenddessen weiter
+            record Candidate(UUID authUserId, Entry entry, long idle) {}
+            List<Candidate> snapshot = new ArrayList<>(entries.size());
+            for (Map.Entry<UUID, Entry> me : entries.entrySet()) {
+                snapshot.add(new Candidate(me.getKey(), me.getValue(), now - me.getValue().touchedNanos));
+            }
+            snapshot.sort(Comparator.comparingLong(Candidate::idle).reversed());
+
+            int toRemove = Math.max(1, maxUsers / 10);
+            for (int i = 0; i < toRemove && i < snapshot.size(); i++) {
+                entries.remove(snapshot.get(i).authUserId(), snapshot.get(i).entry());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.dto.ChatMessageDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Format der Archivblöcke (chat_message_archive.data): JSON-Array von ChatMessageDto, deflate-komprimiert.
+ *
+ * createdAt bleibt der Text aus Postgres (created_at::text), damit archivierte und aktuelle
+ * Nachrichten im selben Format beim Client ankommen. Sortiert wird über createdAtMicros.
+ */
+public final class MessageArchiveCodec {
+
+    public static final String CODEC = "deflate-json-v1";
+
+    // Chronologisch wie im Keyset-Index (created_at, id); uuid-Reihenfolge = Reihenfolge der Hex-Strings
+    public static final Comparator<ChatMessageDto> CHRONOLOGICAL = Comparator
+            .comparingLong((ChatMessageDto m) -> createdAtMicros(m.getCreatedAt()))
+            .thenComparing(ChatMessageDto::getId);
+
+    // created_at::text, z.B. "2026-10-18 13:02:00.500504+00" oder "2026-10-18 15:02:00+02"
+    private static final DateTimeFormatter PG_TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true)
+            .optionalEnd()
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<ChatMessageDto>> MESSAGE_LIST = new TypeReference<>() {};
+
+    private MessageArchiveCodec() {}
+
+    public record Block(byte[] data, int rawBytes) {}
+
+    public static Block encode(List<ChatMessageDto> messages) {
+        try {
+            byte[] raw = JSON.writeValueAsBytes(messages);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+                deflate.write(raw);
+            } finally {
+                deflater.end();
+            }
+            return new Block(out.toByteArray(), raw.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<ChatMessageDto> decode(String codec, byte[] data) {
+        if (!CODEC.equals(codec)) {
+            throw new IllegalStateException("Unbekanntes Archivformat: " + codec);
+        }
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            return JSON.readValue(in, MESSAGE_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Text, aus dem chat_message_archive.search_tsv gebaut wird: alle Nachrichten des Blocks.
+     */
+    public static String searchText(List<ChatMessageDto> messages) {
+        StringBuilder text = new StringBuilder();
+        for (ChatMessageDto m : messages) {
+            if (m.getContent() == null) continue;
+            if (!text.isEmpty()) text.append('\n');
+            text.append(m.getContent());
+        }
+        return text.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException wenn der Text kein timestamptz::text ist (z.B. manipulierter Cursor)
+     */
+    public static long createdAtMicros(String pgTimestamp) {
+        try {
+            OffsetDateTime t = OffsetDateTime.parse(pgTimestamp, PG_TIMESTAMPTZ);
+            return t.toEpochSecond() * 1_000_000 + t.getNano() / 1000;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Ungültiger Zeitstempel: " + pgTimestamp);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.uniagent.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Archiviert Nachrichten ruhender Chats (app.archive.enabled=true).
+ *
+ * Chats, die seit app.archive.idle-days nicht geändert wurden, verlieren ihre Zeilen in chat_messages;
+ * die Nachrichten liegen danach als komprimierte Blöcke in chat_message_archive (MessageArchiveCodec).
+ * chat_messages und ihre Indizes bleiben damit so groß wie der aktive Teil der Historie.
+ *
+ * - getMessages/getMessagesPage/Export lesen Archiv und aktuelle Nachrichten zusammen, für Clients
+ *   ändert sich nichts (auch nicht die ETags)
+ * - Die Volltextsuche findet archivierte Nachrichten über search_tsv des Blocks (ohne Ausschnitt);
+ *   Blöcke von vor V9 bekommen sie bei den nächsten Läufen nachgetragen. Top-FAQ (beim Start) sieht nur
+ *   aktuelle Nachrichten
+ * - Bekommt ein archivierter Chat neue Nachrichten, landen sie normal in chat_messages und werden
+ *   nach erneuter Ruhezeit als weiterer Block archiviert
+ * - Gelöschter Platz in chat_messages wird nach VACUUM wiederverwendet, an das Dateisystem geht er
+ *   erst mit VACUUM FULL / pg_repack zurück
+ */
+@Service
+@Slf4j
+public class MessageArchiver {
+
+    public record Stats(
+            boolean enabled, int idleDays, long runs, long chats, long messages, long blocks,
+            long rawBytes, long storedBytes, long lastRunMillis
+    ) {}
+
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+
+    private final boolean enabled;
+    private final int idleDays;
+    private final int blockSize;
+    private final int chatsPerRun;
+
+    // Geplanter Lauf und manueller Lauf (Admin) nicht gleichzeitig
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder chats = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public MessageArchiver(
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            @Value("${app.archive.enabled:false}") boolean enabled,
+            @Value("${app.archive.idle-days:180}") int idleDays,
+            @Value("${app.archive.block-size:1000}") int blockSize,
+            @Value("${app.archive.chats-per-run:100}") int chatsPerRun
+    ) {
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.enabled = enabled;
+        this.idleDays = Math.max(1, idleDays);
+        this.blockSize = Math.max(1, blockSize);
+        this.chatsPerRun = Math.max(1, chatsPerRun);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Stats stats() {
+        return new Stats(
+                enabled, idleDays, runs.sum(), chats.sum(), messages.sum(), blocks.sum(),
+                rawBytes.sum(), storedBytes.sum(), lastRunMillis.get()
+        );
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${app.archive.interval-ms:3600000}"
+    )
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            runOnce();
+        } catch (Exception e) {
+            log.warn("Archivierung fehlgeschlagen: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ein Durchlauf über höchstens app.archive.chats-per-run Chats, jeder Chat in eigener Transaktion.
+     * Läuft auch bei enabled=false (manuell über die Admin-API).
+     *
+     * @return Anzahl archivierter Chats
+     */
+    public int runOnce() {
+        runLock.lock();
+        try {
+            indexOldBlocks();
+
+            long start = System.nanoTime();
+            List<UUID> candidates = supabaseDatabaseClient.findArchivableChats(idleDays, chatsPerRun);
+
+            int archivedChats = 0;
+            long archivedMessages = 0;
+            long raw = 0;
+            long stored = 0;
+            for (UUID chatId : candidates) {
+                SupabaseDatabaseClient.ArchivedChat result = supabaseDatabaseClient.archiveChat(chatId, idleDays, blockSize);
+                if (result == null || result.messages() == 0) continue;
+
+                archivedChats++;
+                archivedMessages += result.messages();
+                raw += result.rawBytes();
+                stored += result.storedBytes();
+                chats.increment();
+                messages.add(result.messages());
+                blocks.add(result.blocks());
+                rawBytes.add(result.rawBytes());
+                storedBytes.add(result.storedBytes());
+            }
+
+            runs.increment();
+            lastRunMillis.set(System.currentTimeMillis());
+            if (archivedChats > 0) {
+                log.info("Archiviert: {} Chats, {} Nachrichten, {} KB -> {} KB in {} ms",
+                        archivedChats, archivedMessages, raw / 1024, stored / 1024,
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+            return archivedChats;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * search_tsv für Blöcke, die vor V9 archiviert wurden; höchstens chats-per-run Blöcke pro Lauf.
+     */
+    private void indexOldBlocks() {
+        List<SupabaseDatabaseClient.ArchiveBlock> pending = supabaseDatabaseClient.findUnsearchableArchiveBlocks(chatsPerRun);
+        for (SupabaseDatabaseClient.ArchiveBlock block : pending) {
+            String text = MessageArchiveCodec.searchText(MessageArchiveCodec.decode(block.codec(), block.data()));
+            supabaseDatabaseClient.updateArchiveSearch(block.id(), text);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Archiv: Suchindex für {} ältere Blöcke nachgetragen", pending.size());
+        }
+    }
+}
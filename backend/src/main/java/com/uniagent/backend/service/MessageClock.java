@@ -0,0 +1,71 @@
+package com.uniagent.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zeitstempel für Nachrichten, die in Java statt per now() vergeben werden (Write-Behind, Batch).
+ *
+ * Streng steigend in Mikrosekunden (Auflösung von timestamptz), damit die Reihenfolge im Chat
+ * auch bei mehreren Nachrichten in derselben Mikrosekunde erhalten bleibt. Das gilt nur innerhalb
+ * eines Prozesses; der Abstand zur Uhr der Datenbank wird beim Start gemessen (calibrate) und
+ * auf jeden Zeitstempel aufgeschlagen.
+ */
+@Component
+public class MessageClock {
+
+    // Gleiches Format wie timestamptz::text in einer UTC-Session
+    private static final DateTimeFormatter PG_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSx").withZone(ZoneOffset.UTC);
+
+    // timestamptz::text in beliebiger Session-Zeitzone: Nachkommastellen ohne Nullen am Ende, "+00" / "+05:30"
+    private static final DateTimeFormatter PG_TIMESTAMP_PARSER = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    private final AtomicLong lastMicros = new AtomicLong();
+    // Datenbank-Uhr minus eigene Uhr
+    private volatile long offsetMicros;
+
+    public OffsetDateTime next() {
+        long nowMicros = localMicros() + offsetMicros;
+        long micros = lastMicros.updateAndGet(last -> Math.max(nowMicros, last + 1));
+        return OffsetDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneOffset.UTC);
+    }
+
+    /**
+     * Ab jetzt Zeitstempel nach der Uhr der Datenbank; bleibt trotzdem streng steigend,
+     * wenn die Korrektur rückwärts geht.
+     */
+    public void calibrate(long offsetMicros) {
+        this.offsetMicros = offsetMicros;
+    }
+
+    public static long localMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    public static String format(OffsetDateTime timestamp) {
+        return PG_TIMESTAMP.format(timestamp);
+    }
+
+    /**
+     * Mikrosekunden seit Epoch zu timestamptz::text, wie extract(epoch FROM ...) * 1000000 in Postgres.
+     *
+     * @throws java.time.format.DateTimeParseException bei anderem Format
+     */
+    public static long micros(String pgTimestamp) {
+        OffsetDateTime timestamp = OffsetDateTime.parse(pgTimestamp, PG_TIMESTAMP_PARSER);
+        return ChronoUnit.MICROS.between(Instant.EPOCH, timestamp.toInstant());
+    }
+}
@@ -0,0 +1,48 @@
+package com.uniagent.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Legt die Monatspartitionen von chat_messages im Voraus an (V7, ensure_chat_message_partitions).
+ *
+ * Läuft kurz nach dem Start und danach täglich; app.partitions.months-ahead Monate Vorlauf überbrücken
+ * auch längere Ausfälle. Fehlt trotzdem eine Partition, landen neue Nachrichten in chat_messages_default
+ * und werden beim nächsten Lauf in ihre Monatspartition verschoben.
+ */
+@Service
+@Slf4j
+public class MessagePartitionMaintainer {
+
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final boolean enabled;
+    private final int monthsAhead;
+
+    public MessagePartitionMaintainer(
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            @Value("${app.partitions.enabled:true}") boolean enabled,
+            @Value("${app.partitions.months-ahead:3}") int monthsAhead
+    ) {
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.enabled = enabled;
+        this.monthsAhead = Math.max(1, monthsAhead);
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.partitions.initial-delay-ms:30000}",
+            fixedDelayString = "${app.partitions.interval-ms:86400000}"
+    )
+    public void ensurePartitions() {
+        if (!enabled) return;
+        try {
+            int created = supabaseDatabaseClient.ensureMessagePartitions(monthsAhead);
+            if (created > 0) {
+                log.info("{} neue Partition(en) für chat_messages angelegt", created);
+            }
+        } catch (Exception e) {
+            log.warn("Partitionen für chat_messages konnten nicht angelegt werden: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,994 @@
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-Behind für Chat-Nachrichten (app.write-behind.enabled=true).
+ *
+ * addMessage prüft nur die Ownership, schreibt die Nachricht ins lokale Journal und antwortet sofort.
+ * Ein Hintergrund-Thread schreibt die Warteschlange gebündelt nach Postgres (insertMessageBatch).
+ *
+ * - ids und Zeitstempel (MessageClock) werden hier vergeben, das Insert ist daher wiederholbar
+ * - Journal: Append-only Segmente, fsync als Group Commit (awaitDurable); beim Start werden übrig
+ *   gebliebene Segmente nachgespielt
+ * - Lesen bleibt read-your-writes: vor dem Lesen eines Chats / der Chat-Liste wird auf dessen
+ *   ausstehende Nachrichten gewartet (awaitChat / awaitUser); dauert das länger als read-wait-ms,
+ *   scheitert der Request mit 503 statt unvollständig zu antworten
+ * - Backpressure: ist die Warteschlange voll, wird synchron und ohne Journal geschrieben
+ * - Lehnt Postgres einzelne Nachrichten ab (SQLState 22/23), landen nur diese in der Dead-Letter-Datei
+ *   (dead-letter.jsonl im Journal-Verzeichnis), der Rest des Batches wird geschrieben
+ *
+ * Nur für eine einzelne Instanz: ausstehende Nachrichten, read-your-writes und die streng steigenden
+ * Zeitstempel kennt nur dieser Prozess. start() bricht daher ab, wenn der Chatlisten-Cache geteilt
+ * wird (app.chat-list-cache.backend=redis) oder die eigene Uhr mehr als app.write-behind.max-clock-skew-ms
+ * von der Datenbank abweicht; kleinere Abweichungen gleicht MessageClock aus.
+ */
+@Service
+@Slf4j
+public class MessageWriteBehind implements SmartLifecycle {
+
+    // Versuche, wenn ein Request-Thread selbst schreibt (Warteschlange voll)
+    private static final int SYNC_ATTEMPTS = 3;
+
+    private static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+
+    public record Stats(
+            long accepted, long flushed, long batches, long syncWrites, long flushErrors, long deadLetters, int queued,
+            long avgFlushLatencyMillis, long maxFlushLatencyMillis, double totalFlushLatencyMillis
+    ) {}
+
+    // Zeile im Journal
+    record JournalEntry(String id, String authUserId, String chatId, String sender, String content, String createdAt) {}
+
+    // Zeile in der Dead-Letter-Datei: Nachricht, die Postgres dauerhaft ablehnt
+    record DeadLetter(JournalEntry message, String sqlState, String error, String failedAt) {}
+
+    private record JournalPosition(long segment, long sequence) {}
+
+    private record JournalLine(long segment, byte[] bytes) {}
+
+    private record Pending(SupabaseDatabaseClient.NewMessage message, UUID authUserId, long segment, long acceptedNanos) {}
+
+    // Noch nicht geschriebene Nachrichten eines Chats (für Titel und Nachrichtenanzahl)
+    private static final class ChatPending {
+        int count;
+        // Nachrichten des Chats, die schon in Postgres stehen (zuletzt bekannter Stand)
+        int stored;
+        String title;
+    }
+
+    private final SupabaseDatabaseClient supabaseDatabaseClient;
+    private final ChatOwnerCache chatOwnerCache;
+    private final ChatListCache chatListCache;
+    private final ObjectMapper objectMapper;
+    private final MessageClock messageClock;
+
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long readWaitMillis;
+    private final Path journalDir;
+    private final boolean fsync;
+    private final long segmentBytes;
+    private final long maxClockSkewMillis;
+
+    private final ArrayBlockingQueue<Pending> queue;
+    // Freie Plätze in queue; addMessage reserviert einen, bevor die Nachricht ins Journal geht
+    private final Semaphore slots;
+
+    // Ausstehend pro Chat / pro User, für read-your-writes
+    private final Map<UUID, ChatPending> pendingByChat = new HashMap<>();
+    private final Map<UUID, Integer> pendingByUser = new HashMap<>();
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private final Condition flushed = pendingLock.newCondition();
+
+    // Journal: appendToJournal nummeriert die Zeilen und puffert sie (journalLock),
+    // awaitDurable schreibt sie gesammelt (syncLock, Group Commit)
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final ConcurrentHashMap<Long, AtomicInteger> openPerSegment = new ConcurrentHashMap<>();
+    private List<JournalLine> unwritten = new ArrayList<>();
+    private boolean segmentOpen;
+    private long segment;
+    private long segmentSize;
+    private long appendedSequence;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition roundDone = syncLock.newCondition();
+    // Unter syncLock: eine Runde schreibt gerade; Zeilen bis writtenSequence sind geschrieben,
+    // außer denen in failedRanges ({von, bis})
+    private boolean writing;
+    private long writtenSequence;
+    private final List<long[]> failedRanges = new ArrayList<>();
+    // Nur für die schreibende Runde (bzw. stop)
+    private final Map<Long, FileChannel> channels = new HashMap<>();
+
+    private final ReentrantLock deadLetterLock = new ReentrantLock();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder flushedCount = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder syncWrites = new LongAdder();
+    private final LongAdder flushErrors = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+    private final LongAdder flushLatencyNanos = new LongAdder();
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+
+    private volatile boolean running = false;
+    private Thread writer;
+
+    public MessageWriteBehind(
+            SupabaseDatabaseClient supabaseDatabaseClient,
+            ChatOwnerCache chatOwnerCache,
+            ChatListCache chatListCache,
+            ObjectMapper objectMapper,
+            MessageClock messageClock,
+            @Value("${app.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.write-behind.capacity:10000}") int capacity,
+            @Value("${app.write-behind.max-batch:500}") int maxBatch,
+            @Value("${app.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${app.write-behind.offer-timeout-ms:100}") long offerTimeoutMillis,
+            @Value("${app.write-behind.read-wait-ms:2000}") long readWaitMillis,
+            @Value("${app.write-behind.journal-dir:./data/journal}") String journalDir,
+            @Value("${app.write-behind.journal-fsync:true}") boolean fsync,
+            @Value("${app.write-behind.journal-segment-bytes:8388608}") long segmentBytes,
+            @Value("${app.write-behind.max-clock-skew-ms:1000}") long maxClockSkewMillis
+    ) {
+        this.supabaseDatabaseClient = supabaseDatabaseClient;
+        this.chatOwnerCache = chatOwnerCache;
+        this.chatListCache = chatListCache;
+        this.objectMapper = objectMapper;
+        this.messageClock = messageClock;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.readWaitMillis = readWaitMillis;
+        this.journalDir = Path.of(journalDir);
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.slots = new Semaphore(Math.max(1, capacity));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // -----------------------------------------------------
+    // SCHREIBEN
+    // -----------------------------------------------------
+
+    /**
+     * Nimmt die Nachricht an, sobald sie im Journal steht (oder, bei voller Warteschlange, in Postgres).
+     *
+     * Stehen für den Chat noch Nachrichten aus und gehört er laut ChatOwnerCache dem User,
+     * sind Titel und Anzahl hier bekannt – dann ganz ohne Datenbankzugriff.
+     *
+     * @throws IllegalArgumentException wenn der Chat nicht existiert oder nicht dem User gehört
+     */
+    public SupabaseDatabaseClient.AddedMessage addMessage(UUID authUserId, UUID chatId, String sender, String content) {
+        String safeSender = (sender == null) ? "user" : sender.trim();
+        if (!safeSender.equals("user") && !safeSender.equals("bot")) {
+            throw new IllegalArgumentException("Ungültiger Sender (nur 'user' oder 'bot').");
+        }
+        String safeContent = (content == null) ? "" : content.trim();
+        if (safeContent.isBlank()) {
+            throw new IllegalArgumentException("Nachricht leer.");
+        }
+
+        SupabaseDatabaseClient.NewMessage message = new SupabaseDatabaseClient.NewMessage(
+                UUID.randomUUID(), chatId, safeSender, safeContent, messageClock.next()
+        );
+
+        SupabaseDatabaseClient.AddedMessage added = chatOwnerCache.isOwner(authUserId, chatId)
+                ? predict(authUserId, message, null)
+                : null;
+        if (added == null) {
+            SupabaseDatabaseClient.ChatHead head = supabaseDatabaseClient.findChatHead(authUserId, chatId)
+                    .orElseThrow(() -> new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung."));
+            chatOwnerCache.remember(chatId, authUserId);
+            added = predict(authUserId, message, head);
+        }
+
+        // Erst einen Platz in der Warteschlange sichern, dann ins Journal: eine Nachricht, die synchron
+        // geschrieben wird, steht nie im Journal – scheitert sie, bekommt der Client den Fehler und
+        // ein Neustart spielt sie nicht nach
+        // Vor start() (Journal wird nachgespielt) und nach stop() gibt es keinen Writer: synchron
+        boolean reserved = false;
+        if (running) {
+            try {
+                reserved = slots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (reserved) {
+            long seg = -1;
+            try {
+                JournalPosition position = appendToJournal(message, authUserId);
+                seg = position.segment();
+                awaitDurable(position.sequence());
+                queue.add(new Pending(message, authUserId, seg, System.nanoTime()));
+            } catch (IOException e) {
+                // Zeile evtl. im Journal, aber nicht sicher auf der Platte: zählt nicht mehr als offen
+                releaseSegment(seg);
+                slots.release();
+                reserved = false;
+                // Ohne Journal nicht bestätigen: direkt schreiben
+                log.warn("Write-Behind-Journal nicht beschreibbar, schreibe synchron: {}", e.getMessage());
+            }
+        }
+        if (!reserved) {
+            // Warteschlange voll oder Writer nicht aktiv: selbst schreiben (der Aufrufer trägt die Latenz)
+            syncWrites.increment();
+            writeBatch(List.of(new Pending(message, authUserId, -1, System.nanoTime())));
+        }
+
+        accepted.increment();
+        return added;
+    }
+
+    /**
+     * Titel und Anzahl so, wie sie nach dem Flush in chats stehen werden, und Nachricht als ausstehend zählen.
+     *
+     * @param head aktueller Stand aus Postgres; null = nur aus den ausstehenden Nachrichten
+     * @return null, wenn head fehlt und für den Chat nichts (mehr) aussteht
+     */
+    private SupabaseDatabaseClient.AddedMessage predict(
+            UUID authUserId, SupabaseDatabaseClient.NewMessage message, SupabaseDatabaseClient.ChatHead head
+    ) {
+        pendingLock.lock();
+        try {
+            ChatPending p = pendingByChat.get(message.chatId());
+            if (p == null) {
+                if (head == null) return null;
+                p = new ChatPending();
+                pendingByChat.put(message.chatId(), p);
+            }
+            if (head != null) {
+                // Max: der Flush kann zwischen Abfrage und Lock schon hochgezählt haben
+                p.stored = Math.max(p.stored, head.messageCount());
+                if (p.title == null) p.title = head.title();
+            }
+
+            if (message.sender().equals("user") && p.title.trim().equalsIgnoreCase("neuer chat")) {
+                p.title = SupabaseDatabaseClient.autoTitle(message.content());
+            }
+            p.count++;
+            pendingByUser.merge(authUserId, 1, Integer::sum);
+
+            return new SupabaseDatabaseClient.AddedMessage(
+                    message.id().toString(),
+                    MessageClock.format(message.createdAt()),
+                    p.title,
+                    p.stored + p.count
+            );
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    // -----------------------------------------------------
+    // READ-YOUR-WRITES
+    // -----------------------------------------------------
+
+    /**
+     * Ausstehende Nachrichten nicht innerhalb von read-wait-ms geschrieben: der Request scheitert mit 503,
+     * statt eine Antwort zu liefern, der die eben gespeicherten Nachrichten fehlen.
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class PendingWritesException extends RuntimeException {
+        PendingWritesException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Wartet, bis alle angenommenen Nachrichten dieses Chats in Postgres stehen (höchstens read-wait-ms).
+     *
+     * @throws PendingWritesException wenn danach noch Nachrichten ausstehen
+     */
+    public void awaitChat(UUID chatId) {
+        if (enabled) await(() -> pendingByChat.containsKey(chatId));
+    }
+
+    /**
+     * Wie awaitChat, für alle Chats eines Users (Chat-Liste, Suche).
+     */
+    public void awaitUser(UUID authUserId) {
+        if (enabled) await(() -> pendingByUser.containsKey(authUserId));
+    }
+
+    private void await(java.util.function.BooleanSupplier hasPending) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readWaitMillis);
+        pendingLock.lock();
+        try {
+            while (hasPending.getAsBoolean()) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    log.warn("Write-Behind: ausstehende Nachrichten nach {} ms nicht geschrieben, Lesen abgelehnt",
+                            readWaitMillis);
+                    throw new PendingWritesException("Nachrichten werden noch gespeichert, bitte erneut versuchen.");
+                }
+                flushed.awaitNanos(left);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PendingWritesException("Warten auf ausstehende Nachrichten unterbrochen.");
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    // -----------------------------------------------------
+    // HINTERGRUND-WRITER
+    // -----------------------------------------------------
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                slots.release(batch.size());
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // weiter, bis die Warteschlange leer ist
+            } catch (Exception e) {
+                // writeBatch hat schon geloggt; Nachrichten bleiben im Journal und werden beim Neustart nachgespielt
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Batch; bei DB-Fehlern mit Backoff erneut (das Insert ist wiederholbar).
+     * Der Writer versucht es, solange die Anwendung läuft; ein Request-Thread nur SYNC_ATTEMPTS mal.
+     *
+     * Dauerhafte Fehler (isPermanent) liegen an einzelnen Zeilen, ein neuer Versuch hilft nicht: der Writer
+     * schreibt den Batch dann zeilenweise und legt abgelehnte Zeilen in die Dead-Letter-Datei, statt alle
+     * folgenden Flushes zu blockieren. Ein Request-Thread gibt den Fehler sofort an den Client weiter.
+     */
+    private void writeBatch(List<Pending> batch) {
+        boolean isWriter = Thread.currentThread() == writer;
+        List<Pending> open = new ArrayList<>(batch);
+        List<Pending> written = new ArrayList<>(batch.size());
+
+        long backoff = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                try {
+                    insert(open);
+                    written.addAll(open);
+                    open.clear();
+                } catch (RuntimeException e) {
+                    if (!isWriter || !isPermanent(e)) throw e;
+                    flushErrors.increment();
+                    log.warn("Write-Behind: Batch mit {} Nachrichten abgelehnt (SQLState {}), schreibe einzeln",
+                            open.size(), sqlState(e));
+                    writeRowByRow(open, written);
+                }
+                break;
+            } catch (RuntimeException e) {
+                flushErrors.increment();
+                if (isPermanent(e) || (isWriter ? !running : attempt >= SYNC_ATTEMPTS)) {
+                    giveUp(isWriter, open, written, e);
+                    throw e;
+                }
+                log.warn("Write-Behind: Batch fehlgeschlagen, neuer Versuch in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    giveUp(isWriter, open, written, e);
+                    throw e;
+                }
+                backoff = Math.min(backoff * 2, 5000);
+            }
+        }
+        flushed(written);
+    }
+
+    /**
+     * Writer: die Nachrichten bleiben im Journal und werden beim nächsten Start nachgespielt.
+     * Request-Thread (synchron, ohne Journal): der Client bekommt den Fehler.
+     */
+    private void giveUp(boolean isWriter, List<Pending> open, List<Pending> written, RuntimeException e) {
+        log.error("Write-Behind: {} Nachrichten nicht geschrieben", open.size(), e);
+        if (!isWriter) releasePending(open, false);
+        flushed(written);
+    }
+
+    /**
+     * Jede Nachricht einzeln; dauerhaft abgelehnte kommen in die Dead-Letter-Datei.
+     * Bei einem anderen Fehler bleibt der Rest in open (neuer Versuch über den Backoff in writeBatch).
+     */
+    private void writeRowByRow(List<Pending> open, List<Pending> written) {
+        for (Iterator<Pending> it = open.iterator(); it.hasNext(); ) {
+            Pending p = it.next();
+            try {
+                insert(List.of(p));
+                written.add(p);
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) throw e;
+                deadLetter(p, e);
+            }
+            it.remove();
+        }
+    }
+
+    private void insert(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+        supabaseDatabaseClient.insertMessageBatch(batch.stream().map(Pending::message).toList());
+    }
+
+    private void flushed(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+
+        // Vor markFlushed: wer auf den Flush wartet, soll danach von der Primary lesen (ReplicaRouter)
+        supabaseDatabaseClient.noteWrites(batch.stream().map(Pending::authUserId).collect(Collectors.toSet()));
+
+        long now = System.nanoTime();
+        for (Pending p : batch) {
+            long latency = now - p.acceptedNanos();
+            flushLatencyNanos.add(latency);
+            maxFlushLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        flushedCount.add(batch.size());
+        batches.increment();
+
+        markFlushed(batch);
+    }
+
+    /**
+     * Fehler, die ein neuer Versuch nicht behebt: SQLState-Klasse 22 (ungültige Daten, z.B. ein NUL-Zeichen
+     * im Text) und 23 (Constraint verletzt). Verbindungsabbrüche, Timeouts usw. werden wiederholt.
+     */
+    static boolean isPermanent(RuntimeException e) {
+        String state = sqlState(e);
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static String sqlState(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null) return sql.getSQLState();
+        }
+        return null;
+    }
+
+    private void markFlushed(List<Pending> batch) {
+        releasePending(batch, true);
+        for (Pending p : batch) releaseSegment(p.segment());
+    }
+
+    /**
+     * Zeile im Journal erledigt (geschrieben oder in der Dead-Letter-Datei).
+     */
+    private void releaseSegment(long seg) {
+        if (seg < 0) return;
+        AtomicInteger open = openPerSegment.get(seg);
+        if (open != null && open.decrementAndGet() == 0) deleteSegmentIfClosed(seg);
+    }
+
+    /**
+     * Nachrichten zählen nicht mehr als ausstehend; wartende Leser werden geweckt.
+     */
+    private void releasePending(List<Pending> batch, boolean written) {
+        pendingLock.lock();
+        try {
+            for (Pending p : batch) {
+                UUID chatId = p.message().chatId();
+                ChatPending cp = pendingByChat.get(chatId);
+                if (cp != null) {
+                    if (written) cp.stored++;
+                    if (--cp.count <= 0) pendingByChat.remove(chatId);
+                }
+                pendingByUser.computeIfPresent(p.authUserId(), (id, n) -> (n <= 1) ? null : n - 1);
+            }
+            flushed.signalAll();
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    // -----------------------------------------------------
+    // JOURNAL
+    // -----------------------------------------------------
+
+    private static JournalEntry journalEntry(SupabaseDatabaseClient.NewMessage m, UUID authUserId) {
+        return new JournalEntry(
+                m.id().toString(),
+                authUserId.toString(),
+                m.chatId().toString(),
+                m.sender(),
+                m.content(),
+                m.createdAt().toInstant().toString()
+        );
+    }
+
+    /**
+     * Nummeriert die Zeile und legt sie in den Puffer; geschrieben wird sie erst in awaitDurable.
+     */
+    private JournalPosition appendToJournal(SupabaseDatabaseClient.NewMessage m, UUID authUserId) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(journalEntry(m, authUserId)) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        journalLock.lock();
+        try {
+            if (!segmentOpen || segmentSize + line.length > segmentBytes) rollSegment();
+
+            unwritten.add(new JournalLine(segment, line));
+            segmentSize += line.length;
+
+            openPerSegment.computeIfAbsent(segment, s -> new AtomicInteger()).incrementAndGet();
+            return new JournalPosition(segment, ++appendedSequence);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Group Commit: wartet, bis die Zeile mit dieser Nummer im Journal steht (bei journal-fsync auf der Platte).
+     *
+     * Läuft keine Runde, schreibt der Aufrufer selbst alle bis dahin gepufferten Zeilen (ein write + fsync
+     * pro Segment). Wer währenddessen anhängt, wartet auf das Ende der Runde; die nächste Runde nimmt dann
+     * alle seither angehängten Zeilen mit. Ein fsync deckt so alle gleichzeitigen Nachrichten ab, und
+     * Request-Threads machen kein I/O unter journalLock.
+     */
+    private void awaitDurable(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            while (sequence > writtenSequence) {
+                if (writing) {
+                    roundDone.awaitUninterruptibly();
+                } else {
+                    writeRound();
+                }
+            }
+            for (long[] range : failedRanges) {
+                if (sequence >= range[0] && sequence <= range[1]) throw new IOException("Journal-Zeile nicht geschrieben");
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Unter syncLock aufrufen; das I/O läuft ohne.
+     */
+    private void writeRound() {
+        writing = true;
+        long from = writtenSequence + 1;
+        long upTo = writtenSequence;
+        IOException failure = null;
+        syncLock.unlock();
+        try {
+            // Threads, die gerade aus der letzten Runde zurückkommen, ihre nächste Zeile anhängen lassen
+            Thread.yield();
+
+            List<JournalLine> lines;
+            long current;
+            journalLock.lock();
+            try {
+                lines = unwritten;
+                unwritten = new ArrayList<>();
+                upTo = appendedSequence;
+                current = segmentOpen ? segment : -1;
+            } finally {
+                journalLock.unlock();
+            }
+
+            writeLines(lines);
+            // In ältere Segmente kommt nichts mehr
+            closeChannels(seg -> seg != current);
+        } catch (IOException e) {
+            log.warn("Write-Behind-Journal nicht beschreibbar: {}", e.getMessage());
+            failure = e;
+        } finally {
+            syncLock.lock();
+            if (failure != null) {
+                long[] last = failedRanges.isEmpty() ? null : failedRanges.get(failedRanges.size() - 1);
+                if (last != null && last[1] == from - 1) {
+                    last[1] = upTo;
+                } else {
+                    failedRanges.add(new long[] { from, upTo });
+                }
+            }
+            writtenSequence = upTo;
+            writing = false;
+            roundDone.signalAll();
+        }
+    }
+
+    /**
+     * Nur in writeRound.
+     */
+    private void writeLines(List<JournalLine> lines) throws IOException {
+        Map<Long, ByteArrayOutputStream> perSegment = new LinkedHashMap<>();
+        for (JournalLine line : lines) {
+            perSegment.computeIfAbsent(line.segment(), s -> new ByteArrayOutputStream()).writeBytes(line.bytes());
+        }
+
+        for (Map.Entry<Long, ByteArrayOutputStream> e : perSegment.entrySet()) {
+            FileChannel channel = channels.get(e.getKey());
+            if (channel == null) {
+                channel = FileChannel.open(segmentPath(e.getKey()),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                channels.put(e.getKey(), channel);
+            }
+            ByteBuffer buf = ByteBuffer.wrap(e.getValue().toByteArray());
+            while (buf.hasRemaining()) channel.write(buf);
+            if (fsync) channel.force(false);
+        }
+    }
+
+    /**
+     * Nur in writeRound und stop.
+     */
+    private void closeChannels(LongPredicate which) {
+        for (Iterator<Map.Entry<Long, FileChannel>> it = channels.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, FileChannel> e = it.next();
+            if (!which.test(e.getKey())) continue;
+            try {
+                e.getValue().close();
+            } catch (IOException ex) {
+                log.warn("Journal-Segment {} konnte nicht geschlossen werden: {}", e.getKey(), ex.getMessage());
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Nur unter journalLock. Legt nur die Nummer fest, die Datei entsteht beim ersten Schreiben.
+     */
+    private void rollSegment() {
+        long previous = segmentOpen ? segment : -1;
+
+        segment = Math.max(System.currentTimeMillis(), segment + 1);
+        segmentSize = 0;
+        segmentOpen = true;
+
+        // Altes Segment schon komplett geschrieben?
+        AtomicInteger open = (previous < 0) ? null : openPerSegment.get(previous);
+        if (previous >= 0 && (open == null || open.get() == 0)) deleteSegment(previous);
+    }
+
+    /**
+     * Segment ist komplett in Postgres: löschen. Ist es das aktive, beginnt das nächste Append ein neues.
+     * Den Kanal schließt die nächste Runde in awaitDurable (bzw. stop).
+     */
+    private void deleteSegmentIfClosed(long seg) {
+        journalLock.lock();
+        try {
+            AtomicInteger open = openPerSegment.get(seg);
+            if (open != null && open.get() > 0) return;
+
+            if (seg == segment) segmentOpen = false;
+            deleteSegment(seg);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void deleteSegment(long seg) {
+        openPerSegment.remove(seg);
+        try {
+            Files.deleteIfExists(segmentPath(seg));
+        } catch (IOException e) {
+            log.warn("Journal-Segment {} konnte nicht gelöscht werden: {}", seg, e.getMessage());
+        }
+    }
+
+    /**
+     * Nachricht, die Postgres dauerhaft ablehnt: in dead-letter.jsonl ablegen (zum Prüfen oder manuellen
+     * Nachtragen) und nicht mehr als ausstehend zählen. Die Chatliste des Users enthält sie schon
+     * (write-through in ChatService) und wird deshalb neu geladen.
+     */
+    private void deadLetter(Pending p, RuntimeException e) {
+        boolean stored = deadLetter(journalEntry(p.message(), p.authUserId()), e);
+
+        releasePending(List.of(p), false);
+        // Ohne Dead-Letter-Zeile bleibt die Nachricht im Journal (nächster Start legt sie erneut ab)
+        if (stored) releaseSegment(p.segment());
+    }
+
+    private boolean deadLetter(JournalEntry entry, RuntimeException e) {
+        deadLetters.increment();
+        String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        log.error("Write-Behind: Nachricht {} in Chat {} von Postgres abgelehnt (SQLState {}), abgelegt in {}: {}",
+                entry.id(), entry.chatId(), sqlState(e), journalDir.resolve(DEAD_LETTER_FILE), error);
+
+        boolean stored = appendDeadLetter(new DeadLetter(entry, sqlState(e), error, Instant.now().toString()));
+        chatListCache.invalidate(UUID.fromString(entry.authUserId()));
+        return stored;
+    }
+
+    private boolean appendDeadLetter(DeadLetter deadLetter) {
+        deadLetterLock.lock();
+        try (FileChannel out = FileChannel.open(journalDir.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.wrap((objectMapper.writeValueAsString(deadLetter) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(false);
+            return true;
+        } catch (IOException e) {
+            log.error("Write-Behind: Dead-Letter-Datei nicht beschreibbar: {}", e.getMessage());
+            return false;
+        } finally {
+            deadLetterLock.unlock();
+        }
+    }
+
+    private Path segmentPath(long seg) {
+        return journalDir.resolve("messages-" + seg + ".journal");
+    }
+
+    /**
+     * Segmente, die beim letzten Lauf nicht mehr geschrieben wurden, nach Postgres übernehmen.
+     *
+     * Von Postgres abgelehnte Zeilen (isPermanent) kommen wie im Betrieb in die Dead-Letter-Datei.
+     * Scheitert ein Segment anders (Datenbank, Dateisystem), wird es in .failed umbenannt und der Start
+     * geht weiter – sonst startet die Anwendung nie wieder. Zum erneuten Nachspielen zurück in .journal
+     * umbenennen; schon geschriebene Zeilen überspringt insertMessageBatch.
+     */
+    private void replayJournal() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segments = files.filter(f -> f.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+        if (segments.isEmpty()) return;
+
+        int replayed = 0;
+        int failed = 0;
+        for (Path file : segments) {
+            try {
+                replayed += replaySegment(file);
+                Files.delete(file);
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                quarantine(file, e);
+            }
+        }
+        log.info("Write-Behind: {} Nachrichten aus {} Journal-Segment(en) nachgespielt", replayed, segments.size() - failed);
+    }
+
+    private int replaySegment(Path file) throws IOException {
+        int replayed = 0;
+        List<JournalEntry> batch = new ArrayList<>(maxBatch);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Optional<JournalEntry> entry = parse(line, file);
+                if (entry.isEmpty()) continue;
+                batch.add(entry.get());
+                if (batch.size() == maxBatch) {
+                    replayed += replayBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return replayed + replayBatch(batch);
+    }
+
+    /**
+     * @return geschriebene Nachrichten (ohne abgelegte)
+     * @throws IOException wenn eine abgelehnte Zeile nicht in die Dead-Letter-Datei geschrieben werden konnte
+     */
+    private int replayBatch(List<JournalEntry> batch) throws IOException {
+        if (batch.isEmpty()) return 0;
+        try {
+            supabaseDatabaseClient.insertMessageBatch(batch.stream().map(MessageWriteBehind::newMessage).toList());
+            return batch.size();
+        } catch (RuntimeException e) {
+            if (!isPermanent(e)) throw e;
+        }
+
+        int replayed = 0;
+        for (JournalEntry entry : batch) {
+            try {
+                supabaseDatabaseClient.insertMessageBatch(List.of(newMessage(entry)));
+                replayed++;
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) throw e;
+                if (!deadLetter(entry, e)) throw new IOException("Dead-Letter-Datei nicht beschreibbar");
+            }
+        }
+        return replayed;
+    }
+
+    private void quarantine(Path file, Exception cause) {
+        Path failed = file.resolveSibling(file.getFileName() + ".failed");
+        try {
+            Files.move(file, failed, StandardCopyOption.REPLACE_EXISTING);
+            log.error("Write-Behind: Journal-Segment {} nicht nachgespielt, umbenannt in {}", file.getFileName(), failed, cause);
+        } catch (IOException e) {
+            // Bleibt als .journal liegen und wird beim nächsten Start erneut versucht
+            log.error("Write-Behind: Journal-Segment {} nicht nachgespielt und nicht umbenannt ({})",
+                    file.getFileName(), e.getMessage(), cause);
+        }
+    }
+
+    private Optional<JournalEntry> parse(String line, Path file) {
+        if (line.isBlank()) return Optional.empty();
+        try {
+            JournalEntry e = objectMapper.readValue(line, JournalEntry.class);
+            // Felder prüfen, bevor die Zeile in einen Batch kommt
+            UUID.fromString(e.authUserId());
+            newMessage(e);
+            return Optional.of(e);
+        } catch (Exception ex) {
+            // z.B. halb geschriebene letzte Zeile nach einem Absturz
+            log.warn("Write-Behind: unlesbare Journal-Zeile in {} übersprungen", file.getFileName());
+            return Optional.empty();
+        }
+    }
+
+    private static SupabaseDatabaseClient.NewMessage newMessage(JournalEntry e) {
+        return new SupabaseDatabaseClient.NewMessage(
+                UUID.fromString(e.id()),
+                UUID.fromString(e.chatId()),
+                e.sender(),
+                e.content(),
+                OffsetDateTime.ofInstant(Instant.parse(e.createdAt()), ZoneOffset.UTC)
+        );
+    }
+
+    // -----------------------------------------------------
+    // LIFECYCLE + STATS
+    // -----------------------------------------------------
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        if (chatListCache.isShared()) {
+            throw new IllegalStateException("app.write-behind.enabled=true geht nur mit einer Instanz, "
+                    + "app.chat-list-cache.backend=redis ist für mehrere gedacht");
+        }
+        calibrateClock();
+        try {
+            Files.createDirectories(journalDir);
+            replayJournal();
+        } catch (IOException e) {
+            throw new IllegalStateException("Write-Behind-Journal " + journalDir + " nicht nutzbar", e);
+        }
+
+        running = true;
+        writer = new Thread(this::runWriter, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Write-Behind aktiv (Journal {}, Batch {}, Kapazität {})",
+                journalDir.toAbsolutePath(), maxBatch, queue.remainingCapacity());
+    }
+
+    /**
+     * Abstand zur Uhr der Datenbank (Mitte der Abfrage) an MessageClock, damit created_at zu now() in
+     * Postgres passt. Ist die Datenbank nicht erreichbar, bleibt die eigene Uhr.
+     */
+    private void calibrateClock() {
+        long offsetMicros;
+        try {
+            long before = MessageClock.localMicros();
+            long databaseMicros = supabaseDatabaseClient.databaseNow();
+            long after = MessageClock.localMicros();
+            offsetMicros = databaseMicros - (before + after) / 2;
+        } catch (RuntimeException e) {
+            log.warn("Write-Behind: Uhr der Datenbank nicht abfragbar, Zeitstempel nach eigener Uhr: {}", e.getMessage());
+            return;
+        }
+
+        long skewMillis = Math.abs(offsetMicros) / 1000;
+        if (skewMillis > maxClockSkewMillis) {
+            throw new IllegalStateException("Uhr weicht " + skewMillis + " ms von der Datenbank ab "
+                    + "(app.write-behind.max-clock-skew-ms=" + maxClockSkewMillis + "), NTP prüfen");
+        }
+        messageClock.calibrate(offsetMicros);
+        log.info("Write-Behind: Uhr weicht {} µs von der Datenbank ab, wird ausgeglichen", offsetMicros);
+    }
+
+    /**
+     * Restliche Warteschlange schreiben, dann Journal schließen.
+     */
+    @Override
+    public void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        syncLock.lock();
+        while (writing) roundDone.awaitUninterruptibly();
+        journalLock.lock();
+        try {
+            closeChannels(seg -> true);
+            if (segmentOpen) {
+                segmentOpen = false;
+                AtomicInteger open = openPerSegment.get(segment);
+                if (open == null || open.get() == 0) deleteSegment(segment);
+            }
+        } finally {
+            journalLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Vor dem Webserver starten und nach ihm stoppen: Requests kommen erst, wenn Uhr und Journal
+     * bereit sind, und nach stop() keine mehr.
+     */
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    }
+
+    public Stats stats() {
+        long n = flushedCount.sum();
+        return new Stats(
+                accepted.sum(),
+                n,
+                batches.sum(),
+                syncWrites.sum(),
+                flushErrors.sum(),
+                deadLetters.sum(),
+                queue.size(),
+                (n == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(flushLatencyNanos.sum() / n),
+                TimeUnit.NANOSECONDS.toMillis(maxFlushLatencyNanos.get()),
+                flushLatencyNanos.sum() / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,143 @@
+// backend/src/main/java/com/uniagent/backend/service/N8nChatClient.java
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.config.N8nConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Client für den n8n Chat-Webhook.
+ *
+ * Ist im Webhook Streaming aktiv, kommt die Antwort als NDJSON-Chunks
+ * ({"type":"item","content":"..."}) und wird Stück für Stück weitergereicht.
+ * Sonst kommt eine normale JSON-Antwort ({"output": "..."} o.ä.), die als ein Chunk weitergeht.
+ */
+@Service
+public class N8nChatClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final String webhookUrl;
+
+    public N8nChatClient(
+            @Qualifier("n8nRestTemplate") RestTemplate restTemplate,
+            ObjectMapper objectMapper,
+            N8nConfig config
+    ) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.webhookUrl = config.getWebhookUrl();
+    }
+
+    /**
+     * Schickt die Frage an n8n und reicht die Antwort-Chunks an onChunk weiter, sobald sie ankommen.
+     *
+     * @param sessionId Gedächtnis-Schlüssel des Agenten (wir nutzen die chatId)
+     * @return die komplette Antwort (leer, wenn n8n keinen Text geliefert hat)
+     */
+    public String streamAnswer(String sessionId, String question, Consumer<String> onChunk) {
+        String answer = restTemplate.execute(
+                webhookUrl,
+                HttpMethod.POST,
+                request -> {
+                    byte[] body = objectMapper.writeValueAsBytes(Map.of(
+                            "chatInput", question,
+                            "sessionId", sessionId
+                    ));
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    request.getHeaders().setAccept(List.of(MediaType.ALL));
+                    request.getHeaders().setContentLength(body.length);
+                    request.getBody().write(body);
+                },
+                response -> readAnswer(
+                        new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)),
+                        onChunk
+                )
+        );
+        return (answer == null) ? "" : answer;
+    }
+
+    private String readAnswer(BufferedReader reader, Consumer<String> onChunk) throws IOException {
+        StringBuilder streamed = new StringBuilder();
+        StringBuilder raw = new StringBuilder();
+        boolean streaming = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String chunk = streamChunk(line);
+            if (chunk != null) {
+                streaming = true;
+                if (!chunk.isEmpty()) {
+                    streamed.append(chunk);
+                    onChunk.accept(chunk);
+                }
+            } else if (!streaming) {
+                raw.append(line).append('\n');
+            }
+        }
+
+        if (streaming) return streamed.toString();
+
+        // Keine Streaming-Antwort: ganzen Body auswerten
+        String text = extractBotText(raw.toString().trim());
+        if (text != null && !text.isBlank()) onChunk.accept(text);
+        return text;
+    }
+
+    /**
+     * NDJSON-Zeile aus dem n8n-Streaming: Inhalt bei type=item, "" bei begin/end, null wenn keine solche Zeile.
+     */
+    private String streamChunk(String line) {
+        String t = line.trim();
+        if (!t.startsWith("{") || !t.contains("\"type\"")) return null;
+        try {
+            JsonNode node = objectMapper.readTree(t);
+            JsonNode type = node.get("type");
+            if (type == null || !type.isTextual()) return null;
+            if ("item".equals(type.asText())) {
+                JsonNode content = node.get("content");
+                return (content == null || content.isNull()) ? "" : content.asText();
+            }
+            return "";
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gleiche Felder wie bisher im Frontend (Chatbot.jsx extractBotText).
+     */
+    String extractBotText(String body) {
+        if (body == null || body.isBlank()) return null;
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(body);
+        } catch (Exception e) {
+            return body; // Plain-Text-Antwort
+        }
+
+        if (node.isTextual()) return node.asText();
+        if (node.isArray() && !node.isEmpty()) node = node.get(0);
+        if (node.has("json")) node = node.get("json");
+
+        for (String field : List.of("output", "BotResponse", "text")) {
+            JsonNode v = node.get(field);
+            if (v != null && v.isTextual()) return v.asText();
+        }
+        return null;
+    }
+}
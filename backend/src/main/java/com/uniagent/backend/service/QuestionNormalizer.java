@@ -0,0 +1,26 @@
+package com.uniagent.backend.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Bringt Fragen in eine kanonische Form, damit "Wann ist die Rückmeldefrist?" und
+ * "wann ist die rückmeldefrist" als dieselbe Frage zählen (Antwort-Cache, Top-FAQ).
+ */
+public final class QuestionNormalizer {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private QuestionNormalizer() {}
+
+    /**
+     * Unicode NFKC, Kleinschreibung, Satzzeichen raus, Leerraum zusammengefasst.
+     * Liefert "" für null oder reine Satzzeichen.
+     */
+    public static String canonicalize(String question) {
+        if (question == null) return "";
+        String s = Normalizer.normalize(question, Normalizer.Form.NFKC).toLowerCase(Locale.GERMAN);
+        return NON_WORD.matcher(s).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,260 @@
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatListStore in Redis (oder kompatibel: Valkey, KeyDB, Dragonfly), geteilt von allen Instanzen.
+ *
+ * Pro User zwei Schlüssel mit Hash-Tag (Redis Cluster: gleicher Slot, Skripte dürfen beide anfassen):
+ *   <prefix>{authUserId}      Hash chatId -> JSON [title, lastMessage, updatedAt, createdAt, updatedAtMicros],
+ *                             dazu das Feld "~" (Liste geladen, auch wenn sie leer ist)
+ *   <prefix>{authUserId}:gen  Generation (INCR bei jeder Änderung; fehlt sie, Startwert aus TIME in
+ *                             Mikrosekunden, damit sich ETags nach dem Ablauf nicht wiederholen)
+ * Beide laufen nach idleSeconds ohne Zugriff ab (PEXPIRE); die Obergrenze setzt Redis selbst
+ * (maxmemory + maxmemory-policy volatile-lru).
+ *
+ * Jede Operation ist ein Lua-Skript und damit atomar, auch wenn mehrere Instanzen gleichzeitig ändern.
+ * updatedAtMicros steht als String im JSON: cjson gibt große Zahlen nur mit 14 Stellen aus.
+ */
+public class RedisChatListStore implements ChatListStore {
+
+    // Nach einem fehlgeschlagenen Verbindungsaufbau so lange nicht erneut versuchen (Requests gehen an Postgres)
+    private static final long RECONNECT_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final String LOADED = "~";
+
+    // Generation anlegen, falls sie fehlt (Sekunden und Mikrosekunden aus TIME als Ziffernfolge)
+    private static final String SEED = """
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+              local t = redis.call('TIME')
+              redis.call('SET', KEYS[2], t[1] .. string.format('%06d', tonumber(t[2])))
+            end
+            """;
+
+    // Felder der Liste, als letztes Element die Generation
+    private static final String GET = """
+            local v = redis.call('HGETALL', KEYS[1])
+            if #v == 0 then return v end
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            table.insert(v, redis.call('GET', KEYS[2]) or '0')
+            return v
+            """;
+
+    private static final String PUT = """
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            """ + SEED + """
+            redis.call('PEXPIRE', KEYS[2], ARGV[2])
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], '~', '1')
+            for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """;
+
+    // Gemeinsamer Anfang aller Änderungen: Generation hochzählen, ohne geladene Liste fertig
+    private static final String CHANGE = SEED + """
+            redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end
+            """;
+
+    private static final String UPSERT = CHANGE + """
+            redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])
+            return 1
+            """;
+
+    private static final String MESSAGE = CHANGE + """
+            local cur = redis.call('HGET', KEYS[1], ARGV[2])
+            if not cur then
+              redis.call('DEL', KEYS[1])
+              return 0
+            end
+            local c = cjson.decode(cur)
+            c[1] = ARGV[3]
+            if tonumber(ARGV[6]) >= tonumber(c[5]) then
+              c[2] = ARGV[4]
+              c[3] = ARGV[5]
+              c[5] = ARGV[6]
+            end
+            redis.call('HSET', KEYS[1], ARGV[2], cjson.encode(c))
+            return 1
+            """;
+
+    private static final String REMOVE = CHANGE + """
+            redis.call('HDEL', KEYS[1], ARGV[2])
+            return 1
+            """;
+
+    private static final String INVALIDATE = CHANGE + """
+            redis.call('DEL', KEYS[1])
+            return 1
+            """;
+
+    private final RedisClient client;
+    private final String keyPrefix;
+    private final String idleMillis;
+    private final ObjectMapper objectMapper;
+
+    private volatile StatefulRedisConnection<String, String> connection;
+    private long connectFailedNanos;
+    private boolean connectFailed;
+
+    public RedisChatListStore(String url, String keyPrefix, long idleSeconds, long timeoutMillis, ObjectMapper objectMapper) {
+        RedisURI uri = RedisURI.create(url);
+        uri.setTimeout(Duration.ofMillis(timeoutMillis));
+        this.client = RedisClient.create(uri);
+        this.client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(Duration.ofMillis(timeoutMillis)).build())
+                // Während eines Verbindungsabbruchs sofort scheitern statt Befehle zu puffern
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        this.keyPrefix = keyPrefix;
+        this.idleMillis = Long.toString(TimeUnit.SECONDS.toMillis(Math.max(1, idleSeconds)));
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Listing get(UUID authUserId) {
+        List<Object> fields = commands().eval(GET, ScriptOutputType.MULTI, keys(authUserId), idleMillis);
+        if (fields.isEmpty()) return null;
+
+        int last = fields.size() - 1;
+        List<Chat> chats = new ArrayList<>(last / 2);
+        for (int i = 0; i + 1 < last; i += 2) {
+            String chatId = (String) fields.get(i);
+            if (chatId.equals(LOADED)) continue;
+            chats.add(decode(chatId, (String) fields.get(i + 1)));
+        }
+        chats.sort(ORDER);
+        return new Listing(chats, Long.parseLong((String) fields.get(last)));
+    }
+
+    @Override
+    public long generation(UUID authUserId) {
+        String generation = commands().get(generationKey(authUserId));
+        return (generation == null) ? 0 : Long.parseLong(generation);
+    }
+
+    @Override
+    public boolean put(UUID authUserId, long generation, List<Chat> chats) {
+        String[] args = new String[2 + chats.size() * 2];
+        args[0] = Long.toString(generation);
+        args[1] = idleMillis;
+        for (int i = 0; i < chats.size(); i++) {
+            Chat c = chats.get(i);
+            args[2 + i * 2] = c.id();
+            args[3 + i * 2] = encode(c);
+        }
+        Long stored = commands().eval(PUT, ScriptOutputType.INTEGER, keys(authUserId), args);
+        return stored != null && stored == 1;
+    }
+
+    @Override
+    public void upsert(UUID authUserId, Chat chat) {
+        commands().eval(UPSERT, ScriptOutputType.INTEGER, keys(authUserId), idleMillis, chat.id(), encode(chat));
+    }
+
+    @Override
+    public void message(UUID authUserId, String chatId, String title, String lastMessage, String updatedAt, long updatedAtMicros) {
+        commands().eval(MESSAGE, ScriptOutputType.INTEGER, keys(authUserId),
+                idleMillis, chatId, title, lastMessage, updatedAt, Long.toString(updatedAtMicros));
+    }
+
+    @Override
+    public void remove(UUID authUserId, String chatId) {
+        commands().eval(REMOVE, ScriptOutputType.INTEGER, keys(authUserId), idleMillis, chatId);
+    }
+
+    @Override
+    public void invalidate(UUID authUserId) {
+        commands().eval(INVALIDATE, ScriptOutputType.INTEGER, keys(authUserId), idleMillis);
+    }
+
+    @Override
+    public int size() {
+        return -1;
+    }
+
+    @Override
+    public boolean shared() {
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) connection.close();
+        client.shutdown();
+    }
+
+    /**
+     * Verbindung beim ersten Zugriff statt beim Start: die Anwendung startet auch ohne Redis.
+     * Danach verbindet Lettuce nach Abbrüchen selbst neu.
+     */
+    private RedisCommands<String, String> commands() {
+        StatefulRedisConnection<String, String> c = connection;
+        if (c != null) return c.sync();
+
+        synchronized (this) {
+            if (connection == null) {
+                if (connectFailed && System.nanoTime() - connectFailedNanos < RECONNECT_PAUSE_NANOS) {
+                    throw new IllegalStateException("Redis nicht erreichbar (neuer Versuch in Kürze)");
+                }
+                try {
+                    connection = client.connect();
+                    connectFailed = false;
+                } catch (RuntimeException e) {
+                    connectFailed = true;
+                    connectFailedNanos = System.nanoTime();
+                    throw e;
+                }
+            }
+            return connection.sync();
+        }
+    }
+
+    private String[] keys(UUID authUserId) {
+        return new String[] { listKey(authUserId), generationKey(authUserId) };
+    }
+
+    private String listKey(UUID authUserId) {
+        return keyPrefix + "{" + authUserId + "}";
+    }
+
+    private String generationKey(UUID authUserId) {
+        return listKey(authUserId) + ":gen";
+    }
+
+    private String encode(Chat c) {
+        try {
+            return objectMapper.writeValueAsString(new String[] {
+                    c.title(), c.lastMessage(), c.updatedAt(), c.createdAt(), Long.toString(c.updatedAtMicros())
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Chat nicht serialisierbar", e);
+        }
+    }
+
+    private Chat decode(String chatId, String json) {
+        try {
+            String[] v = objectMapper.readValue(json, String[].class);
+            return new Chat(chatId, v[0], v[1], v[2], v[3], Long.parseLong(v[4]));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Ungültiger Eintrag in der Chatliste " + chatId, e);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.uniagent.backend.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Verteilt Lesezugriffe auf Lesereplikate (Streaming Replication), Schreiben bleibt auf der Primary.
+ * Angelegt in DataSourceConfig; ohne app.replicas.urls läuft alles über die Primary.
+ *
+ * SupabaseDatabaseClient markiert Lesezugriffe (timedRead), dataSource() wählt dann anhand eines
+ * ThreadLocal die Verbindung. Ein Replikat wird nur genommen, wenn
+ *   - es höchstens app.replicas.max-lag-ms hinter der Primary liegt und
+ *   - es die letzten Schreibzugriffe des Users schon enthält (read-your-writes).
+ *
+ * Verzug über WAL-Positionen statt Zeitstempeln: probe() merkt sich regelmäßig die Position der
+ * Primary; ein Replikat ist "auf Stand bis t", sobald es die Position von Zeitpunkt t eingespielt hat.
+ * Eine ruhende Primary erzeugt so keinen scheinbaren Verzug.
+ */
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+
+    // Schlüssel für dataSource(), gesetzt nur während eines Lesezugriffs auf ein Replikat
+    private static final ThreadLocal<String> ROUTE = new ThreadLocal<>();
+
+    private static final String PRIMARY = "primary";
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        final JdbcTemplate probe;
+        final LongAdder reads = new LongAdder();
+        volatile boolean available;
+        // Zeitpunkt (nanoTime), bis zu dem das Replikat alles von der Primary eingespielt hat
+        volatile long caughtUpNanos;
+        volatile long lagNanos;
+        // Nur probe(): Warnung "kein Standby" einmal statt bei jeder Prüfung
+        boolean warnedNoStandby;
+
+        Replica(String name, HikariDataSource pool, int probeTimeoutSeconds, long staleNanos) {
+            this.name = name;
+            this.pool = pool;
+            this.probe = new JdbcTemplate(pool);
+            this.probe.setQueryTimeout(probeTimeoutSeconds);
+            this.caughtUpNanos = System.nanoTime() - staleNanos;
+        }
+    }
+
+    // WAL-Position der Primary zum Zeitpunkt einer Prüfung
+    private record Sample(long nanos, long lsn) {}
+
+    public record ReplicaStats(long reads, boolean available, double lagSeconds) {}
+
+    public record Stats(long primaryReads, long fallbacks, Map<String, ReplicaStats> replicas) {}
+
+    private final JdbcTemplate primaryProbe;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final AbstractRoutingDataSource dataSource;
+
+    // Letzter Schreibzugriff pro User (nanoTime); Einträge älter als max-lag braucht niemand mehr
+    private final Map<UUID, Long> lastWrite = new ConcurrentHashMap<>();
+    // Nur vom Scheduler-Thread benutzt (probe läuft nie parallel zu sich selbst)
+    private final Deque<Sample> samples = new ArrayDeque<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * @param replicas Pools der Replikate nach Name (Reihenfolge = Round Robin); leer = nur Primary
+     */
+    public ReplicaRouter(DataSource primary, Map<String, HikariDataSource> replicas, long maxLagMillis) {
+        int probeTimeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxLagMillis));
+        this.primaryProbe = new JdbcTemplate(primary);
+        this.primaryProbe.setQueryTimeout(probeTimeoutSeconds);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        this.replicas = replicas.entrySet().stream()
+                .map(e -> new Replica(e.getKey(), e.getValue(), probeTimeoutSeconds, 2 * maxLagNanos + 1))
+                .toList();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(targets::put);
+
+        this.dataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return ROUTE.get();
+            }
+        };
+        this.dataSource.setTargetDataSources(targets);
+        this.dataSource.setDefaultTargetDataSource(primary);
+        this.dataSource.afterPropertiesSet();
+    }
+
+    /**
+     * Nur Primary (Benchmarks, Tests).
+     */
+    public static ReplicaRouter primaryOnly(DataSource primary) {
+        return new ReplicaRouter(primary, Map.of(), 0);
+    }
+
+    /**
+     * DataSource für JdbcTemplate und Transaktionen: Replikat während read(), sonst die Primary.
+     */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    // -----------------------------------------------------
+    // ROUTING
+    // -----------------------------------------------------
+
+    /**
+     * Führt einen Lesezugriff auf einem passenden Replikat aus, sonst auf der Primary.
+     * Schlägt er dort fehl, wird er auf der Primary wiederholt; ein nicht erreichbares Replikat
+     * wird bis zur nächsten erfolgreichen Prüfung übersprungen.
+     *
+     * Innerhalb einer Transaktion bleibt es bei deren (Primary-)Verbindung.
+     */
+    public <T> T read(UUID authUserId, Supplier<T> body) {
+        Replica replica = pick(authUserId);
+        if (replica == null) {
+            primaryReads.increment();
+            return body.get();
+        }
+
+        ROUTE.set(replica.name);
+        try {
+            T result = body.get();
+            replica.reads.increment();
+            return result;
+        } catch (DataAccessResourceFailureException e) {
+            replica.available = false;
+            log.warn("Replikat {} nicht erreichbar, lese von der Primary: {}", replica.name, e.getMostSpecificCause().getMessage());
+            ROUTE.remove();
+            fallbacks.increment();
+            return body.get();
+        } catch (TransientDataAccessException e) {
+            // z.B. Abbruch wegen Konflikt mit der Replikation (hot_standby_feedback aus)
+            log.debug("Lesen auf Replikat {} abgebrochen, wiederhole auf der Primary: {}", replica.name, e.getMostSpecificCause().getMessage());
+            ROUTE.remove();
+            fallbacks.increment();
+            return body.get();
+        } finally {
+            ROUTE.remove();
+        }
+    }
+
+    /**
+     * Nach einem Schreibzugriff des Users: seine Lesezugriffe gehen an die Primary, bis ein Replikat
+     * die Änderung eingespielt hat.
+     */
+    public void noteWrite(UUID authUserId) {
+        if (authUserId != null && !replicas.isEmpty()) {
+            lastWrite.put(authUserId, System.nanoTime());
+        }
+    }
+
+    private Replica pick(UUID authUserId) {
+        if (replicas.isEmpty()) return null;
+
+        long now = System.nanoTime();
+        Long wrote = (authUserId == null) ? null : lastWrite.get(authUserId);
+
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica r = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!r.available) continue;
+            long caughtUp = r.caughtUpNanos;
+            if (now - caughtUp > maxLagNanos) continue;
+            if (wrote != null && caughtUp - wrote < 0) continue;
+            return r;
+        }
+        return null;
+    }
+
+    // -----------------------------------------------------
+    // VERZUG PRÜFEN
+    // -----------------------------------------------------
+
+    /**
+     * WAL-Position der Primary merken und mit der eingespielten Position jedes Replikats vergleichen.
+     * Das Intervall muss deutlich unter max-lag-ms liegen, sonst gelten Replikate zwischen zwei
+     * Prüfungen als veraltet.
+     */
+    @Scheduled(
+            initialDelayString = "${app.replicas.probe-initial-delay-ms:0}",
+            fixedDelayString = "${app.replicas.probe-interval-ms:500}"
+    )
+    public void probe() {
+        if (replicas.isEmpty()) return;
+
+        long now = System.nanoTime();
+        Long lsn;
+        try {
+            // insert statt current: enthält auch Commits, die mit synchronous_commit=off noch nicht geschrieben sind
+            lsn = primaryProbe.queryForObject("SELECT pg_wal_lsn_diff(pg_current_wal_insert_lsn(), '0/0')::bigint", Long.class);
+        } catch (RuntimeException e) {
+            // Ohne Primary kein Vergleich; die Replikate veralten, bis sie wieder erreichbar ist
+            log.debug("Replikat-Prüfung: Primary nicht erreichbar: {}", e.getMessage());
+            return;
+        }
+
+        samples.addLast(new Sample(now, lsn));
+        while (samples.size() > 1 && now - samples.peekFirst().nanos() > 2 * maxLagNanos) {
+            samples.removeFirst();
+        }
+
+        for (Replica r : replicas) {
+            probe(r, now);
+        }
+
+        lastWrite.values().removeIf(wrote -> now - wrote > maxLagNanos);
+    }
+
+    private void probe(Replica r, long now) {
+        Long replayed;
+        try {
+            // NULL, wenn die Datenbank kein Standby ist
+            replayed = r.probe.queryForObject("SELECT pg_wal_lsn_diff(pg_last_wal_replay_lsn(), '0/0')::bigint", Long.class);
+        } catch (RuntimeException e) {
+            if (r.available) log.warn("Replikat {} nicht erreichbar: {}", r.name, e.getMessage());
+            r.available = false;
+            return;
+        }
+        if (replayed == null) {
+            if (!r.warnedNoStandby) log.warn("Replikat {} ist kein Standby, wird nicht benutzt", r.name);
+            r.warnedNoStandby = true;
+            r.available = false;
+            return;
+        }
+        r.warnedNoStandby = false;
+
+        // Neuester Zeitpunkt, dessen WAL-Position das Replikat schon eingespielt hat
+        var it = samples.descendingIterator();
+        while (it.hasNext()) {
+            Sample s = it.next();
+            if (s.lsn() <= replayed) {
+                if (s.nanos() - r.caughtUpNanos > 0) r.caughtUpNanos = s.nanos();
+                break;
+            }
+        }
+        r.lagNanos = Math.max(0, now - r.caughtUpNanos);
+        if (!r.available) log.info("Replikat {} verfügbar", r.name);
+        r.available = true;
+    }
+
+    public Stats stats() {
+        Map<String, ReplicaStats> byName = new LinkedHashMap<>();
+        for (Replica r : replicas) {
+            byName.put(r.name, new ReplicaStats(r.reads.sum(), r.available, r.lagNanos / 1e9));
+        }
+        return new Stats(primaryReads.sum(), fallbacks.sum(), byName);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(r -> r.pool.close());
+    }
+}
@@ -3,9 +3,13 @@ package com.uniagent.backend.service;
 
 import com.uniagent.backend.config.SupabaseConfig;
 import com.uniagent.backend.model.SupabaseSignUpResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Map;
@@ -14,16 +18,45 @@ import java.util.Map;
 @Slf4j
 public class SupabaseAuthClient {
 
+    // Timer pro Methode (Tags method, status, outcome), siehe exchange()
+    private static final String REQUEST_TIMER = "uniagent.supabase.auth";
+
+    // Woher getUserFromAccessToken den User hatte (Tag source)
+    private static final String TOKEN_COUNTER = "uniagent.auth.token.resolutions";
+
     private final String supabaseUrl;
     private final String anonKey;
     private final String serviceRoleKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    public SupabaseAuthClient(SupabaseConfig config) {
+    private final RestTemplate restTemplate;
+    private final SupabaseJwtVerifier jwtVerifier;
+    private final AccessTokenCache tokenCache;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter tokenFromCache;
+    private final Counter tokenFromJwt;
+    private final Counter tokenFromServer;
+    private final Counter tokenInvalid;
+
+    public SupabaseAuthClient(
+            SupabaseConfig config,
+            RestTemplate restTemplate,
+            SupabaseJwtVerifier jwtVerifier,
+            AccessTokenCache tokenCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.restTemplate = restTemplate; // gepoolter Client aus HttpClientConfig
         this.supabaseUrl = config.getProjectUrl();
         this.anonKey = config.getAnonKey();
         this.serviceRoleKey = config.getServiceRoleKey(); // wichtig für Admin-Calls
+        this.jwtVerifier = jwtVerifier;
+        this.tokenCache = tokenCache;
+        this.meterRegistry = meterRegistry;
+
+        this.tokenFromCache = meterRegistry.counter(TOKEN_COUNTER, "source", "cache");
+        this.tokenFromJwt = meterRegistry.counter(TOKEN_COUNTER, "source", "jwt");
+        this.tokenFromServer = meterRegistry.counter(TOKEN_COUNTER, "source", "auth-server");
+        this.tokenInvalid = meterRegistry.counter(TOKEN_COUNTER, "source", "invalid");
     }
 
     /**
@@ -64,7 +97,7 @@ public class SupabaseAuthClient {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
 
             ResponseEntity<SupabaseSignUpResponse> response =
-                    restTemplate.exchange(url, HttpMethod.POST, request, SupabaseSignUpResponse.class);
+                    exchange("signUp", url, HttpMethod.POST, request, SupabaseSignUpResponse.class);
 
             log.info("Supabase Signup Status: {}", response.getStatusCode());
             log.info("Supabase Signup Body: {}", response.getBody());
@@ -95,7 +128,8 @@ public class SupabaseAuthClient {
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = exchange(
+                    "login",
                     url,
                     HttpMethod.POST,
                     request,
@@ -114,11 +148,43 @@ public class SupabaseAuthClient {
     }
 
     // --------------------------------------------------------------
-    // USER AUS TOKEN (für "Mein Bereich" Profil-Update)
+    // USER AUS TOKEN (Chat-Endpoints + "Mein Bereich" Profil-Update)
+    // -> Cache, dann lokale JWT-Prüfung, nur wenn das nicht geht /auth/v1/user
+    // --------------------------------------------------------------
+    public SupabaseUser getUserFromAccessToken(String accessToken) {
+        SupabaseUser cached = tokenCache.get(accessToken);
+        if (cached != null) {
+            tokenFromCache.increment();
+            return cached;
+        }
+
+        SupabaseJwtVerifier.Result local = jwtVerifier.verify(accessToken);
+
+        SupabaseUser user = switch (local.outcome()) {
+            case VALID -> local.user();
+            case INVALID -> null;
+            case UNVERIFIABLE -> fetchUserFromAuthServer(accessToken);
+        };
+
+        if (user == null) tokenInvalid.increment();
+        else if (local.outcome() == SupabaseJwtVerifier.Outcome.VALID) tokenFromJwt.increment();
+        else tokenFromServer.increment();
+
+        if (user != null && user.id() != null) {
+            long exp = (local.outcome() == SupabaseJwtVerifier.Outcome.VALID)
+                    ? local.expiresAtEpochSeconds()
+                    : jwtVerifier.peekExpiry(accessToken);
+            tokenCache.put(accessToken, user, exp);
+        }
+        return user;
+    }
+
+    // --------------------------------------------------------------
+    // USER AUS TOKEN (remote)
     // -> nutzt /auth/v1/user mit anon key + bearer token
     // --------------------------------------------------------------
     @SuppressWarnings("unchecked")
-    public SupabaseUser getUserFromAccessToken(String accessToken) {
+    public SupabaseUser fetchUserFromAuthServer(String accessToken) {
         try {
             String url = supabaseUrl + "/auth/v1/user";
 
@@ -128,7 +194,8 @@ public class SupabaseAuthClient {
 
             HttpEntity<Void> request = new HttpEntity<>(headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = exchange(
+                    "fetchUserFromAuthServer",
                     url,
                     HttpMethod.GET,
                     request,
@@ -178,7 +245,8 @@ public class SupabaseAuthClient {
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = exchange(
+                    "updateUserAdmin",
                     url,
                     HttpMethod.PUT,
                     request,
@@ -212,7 +280,8 @@ public class SupabaseAuthClient {
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = exchange(
+                    "updatePasswordAdmin",
                     url,
                     HttpMethod.PUT,
                     request,
@@ -227,4 +296,43 @@ public class SupabaseAuthClient {
             return false;
         }
     }
+
+    // --------------------------------------------------------------
+    // METRIKEN
+    // --------------------------------------------------------------
+
+    /**
+     * restTemplate.exchange mit Timer: status = HTTP-Status, ERROR ohne verwertbare Antwort (I/O, Parsing).
+     */
+    private <T> ResponseEntity<T> exchange(
+            String method,
+            String url,
+            HttpMethod httpMethod,
+            HttpEntity<?> request,
+            Class<T> responseType
+    ) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int status = 0;
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, httpMethod, request, responseType);
+            status = response.getStatusCode().value();
+            return response;
+        } catch (RestClientResponseException e) {
+            status = e.getStatusCode().value();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(REQUEST_TIMER)
+                    .tag("method", method)
+                    .tag("status", (status == 0) ? "ERROR" : String.valueOf(status))
+                    .tag("outcome", outcome(status))
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcome(int status) {
+        if (status >= 200 && status < 300) return "SUCCESS";
+        if (status >= 400 && status < 500) return "CLIENT_ERROR";
+        if (status >= 500) return "SERVER_ERROR";
+        return "UNKNOWN";
+    }
 }
@@ -3,23 +3,138 @@ package com.uniagent.backend.service;
 
 import com.uniagent.backend.dto.ChatMessageDto;
 import com.uniagent.backend.dto.ChatSummaryDto;
+import com.uniagent.backend.dto.PageCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class SupabaseDatabaseClient {
 
+    // Länge der letzten Nachricht, die an chats gespeichert wird (Sidebar-Vorschau)
+    public static final int LAST_MESSAGE_PREVIEW_LENGTH = 160;
+
+    // Direktes Mapping ResultSet -> DTO (ohne Zwischenschritt über Map pro Zeile)
+    private static final RowMapper<ChatSummaryDto> CHAT_SUMMARY_MAPPER = (rs, rowNum) -> new ChatSummaryDto(
+            rs.getString("id"),
+            rs.getString("title"),
+            rs.getString("last_message"),
+            rs.getString("updated_at"),
+            rs.getString("created_at")
+    );
+
+    private static final RowMapper<ChatMessageDto> CHAT_MESSAGE_MAPPER = (rs, rowNum) -> new ChatMessageDto(
+            rs.getString("id"),
+            rs.getString("sender"),
+            rs.getString("content"),
+            rs.getString("created_at")
+    );
+
+    private static final RowMapper<ContentVersion> CONTENT_VERSION_MAPPER = (rs, rowNum) -> new ContentVersion(
+            rs.getLong("cnt"),
+            rs.getLong("updated_at_micros"),
+            rs.getLong("revision")
+    );
+
+    // JDBC-Batch-Größe für addMessagesBatch
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    // Timer pro Methode (Tag "query"), siehe timed()
+    private static final String QUERY_TIMER = "uniagent.db.query";
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReplicaRouter replicaRouter;
 
-    public SupabaseDatabaseClient(JdbcTemplate jdbcTemplate) {
+    public SupabaseDatabaseClient(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            ReplicaRouter replicaRouter
+    ) {
         this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.replicaRouter = replicaRouter;
+    }
+
+    /**
+     * Misst die Dauer einer Methode inkl. Warten auf eine Pool-Verbindung; outcome=error bei Exceptions.
+     */
+    private <T> T timed(String query, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder(QUERY_TIMER)
+                    .tag("query", query)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void timed(String query, Runnable body) {
+        timed(query, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wie timed(), für Lesezugriffe eines Users, die ein Lesereplikat bedienen darf (ReplicaRouter).
+     * Nur für Daten, die der User sieht; was in Schreibpfade einfließt, liest weiter die Primary.
+     */
+    private <T> T timedRead(String query, UUID authUserId, Supplier<T> body) {
+        return timed(query, () -> replicaRouter.read(authUserId, body));
+    }
+
+    /**
+     * Wie timed(), für Schreibzugriffe eines Users: seine Lesezugriffe gehen danach an die Primary,
+     * bis die Replikate die Änderung haben.
+     */
+    private <T> T timedWrite(String query, UUID authUserId, Supplier<T> body) {
+        try {
+            return timed(query, body);
+        } finally {
+            replicaRouter.noteWrite(authUserId);
+        }
+    }
+
+    private void timedWrite(String query, UUID authUserId, Runnable body) {
+        try {
+            timed(query, body);
+        } finally {
+            replicaRouter.noteWrite(authUserId);
+        }
+    }
+
+    /**
+     * Für Schreibzugriffe außerhalb dieser Klasse (Write-Behind schreibt Nachrichten mehrerer User gebündelt).
+     */
+    public void noteWrites(Collection<UUID> authUserIds) {
+        authUserIds.forEach(replicaRouter::noteWrite);
     }
 
     /**
@@ -33,54 +148,82 @@ public class SupabaseDatabaseClient {
      *   role         text
      */
     public void insertUser(String authUserId, String firstName, String lastName, String role) {
-        String sql = """
-            INSERT INTO users (auth_user_id, first_name, last_name, role)
-            VALUES (?::uuid, ?, ?, ?)
-        """;
+        timedWrite("insertUser", UUID.fromString(authUserId), () -> {
+            String sql = """
+                INSERT INTO users (auth_user_id, first_name, last_name, role)
+                VALUES (?, ?, ?, ?)
+            """;
 
-        jdbcTemplate.update(sql, authUserId, firstName, lastName, role);
+            jdbcTemplate.update(sql, UUID.fromString(authUserId), firstName, lastName, role);
+        });
     }
 
     /**
      * Liest einen Benutzer anhand der Supabase auth_user_id.
      */
     public Optional<UserRecord> findByAuthUserId(String authUserId) {
-        String sql = """
-            SELECT id, auth_user_id, first_name, last_name, role
-            FROM users
-            WHERE auth_user_id = ?::uuid
-        """;
+        return timedRead("findByAuthUserId", UUID.fromString(authUserId), () -> {
+            String sql = """
+                SELECT id, auth_user_id, first_name, last_name, role
+                FROM users
+                WHERE auth_user_id = ?
+            """;
 
-        try {
-            List<UserRecord> result = jdbcTemplate.query(
+            try {
+                List<UserRecord> result = jdbcTemplate.query(
+                        sql,
+                        ps -> ps.setObject(1, UUID.fromString(authUserId)),
+                        (rs, rowNum) -> new UserRecord(
+                                rs.getString("id"),           // id ist UUID -> String
+                                rs.getString("auth_user_id"), // ebenfalls UUID
+                                rs.getString("first_name"),
+                                rs.getString("last_name"),
+                                rs.getString("role")
+                        )
+                );
+
+                return result.stream().findFirst();
+
+            } catch (EmptyResultDataAccessException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Rolle eines Users für Berechtigungsprüfungen, immer von der Primary (timed statt timedRead):
+     * auf einem nachhängenden Replikat hätte ein entzogener Admin-Zugang noch bis zu max-lag-ms Bestand.
+     */
+    public Optional<String> findRoleForAuthorization(String authUserId) {
+        return timed("findRoleForAuthorization", () -> {
+            String sql = """
+                SELECT role
+                FROM users
+                WHERE auth_user_id = ?
+            """;
+
+            List<String> result = jdbcTemplate.query(
                     sql,
-                    ps -> ps.setString(1, authUserId),
-                    (rs, rowNum) -> new UserRecord(
-                            rs.getString("id"),           // id ist UUID -> String
-                            rs.getString("auth_user_id"), // ebenfalls UUID
-                            rs.getString("first_name"),
-                            rs.getString("last_name"),
-                            rs.getString("role")
-                    )
+                    ps -> ps.setObject(1, UUID.fromString(authUserId)),
+                    (rs, rowNum) -> rs.getString("role")
             );
 
-            return result.stream().findFirst();
-
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+            return result.stream().filter(Objects::nonNull).findFirst();
+        });
     }
 
     /**
      * Aktualisiert Vorname/Nachname für den User in deiner users-Tabelle.
      */
     public void updateUserNames(String authUserId, String firstName, String lastName) {
-        String sql = """
-            UPDATE users
-            SET first_name = ?, last_name = ?
-            WHERE auth_user_id = ?::uuid
-        """;
-        jdbcTemplate.update(sql, firstName, lastName, authUserId);
+        timedWrite("updateUserNames", UUID.fromString(authUserId), () -> {
+            String sql = """
+                UPDATE users
+                SET first_name = ?, last_name = ?
+                WHERE auth_user_id = ?
+            """;
+            jdbcTemplate.update(sql, firstName, lastName, UUID.fromString(authUserId));
+        });
     }
 
     // =========================================================
@@ -88,208 +231,1106 @@ public class SupabaseDatabaseClient {
     // Voraussetzung: Tabellen public.chats & public.chat_messages
     // =========================================================
 
-    public UUID createChat(UUID authUserId, String title) {
-        UUID id = UUID.randomUUID();
-        String safeTitle = (title == null || title.trim().isBlank()) ? "Neuer Chat" : title.trim();
+    public CreatedChat createChat(UUID authUserId, String title) {
+        return timedWrite("createChat", authUserId, () -> {
+            UUID id = UUID.randomUUID();
+            String safeTitle = (title == null || title.trim().isBlank()) ? "Neuer Chat" : title.trim();
 
-        String sql = """
-            INSERT INTO public.chats (id, auth_user_id, title, created_at, updated_at)
-            VALUES (?::uuid, ?::uuid, ?, now(), now())
-        """;
+            String sql = """
+                INSERT INTO public.chats (id, auth_user_id, title, created_at, updated_at)
+                VALUES (?, ?, ?, now(), now())
+                RETURNING created_at::text
+            """;
 
-        jdbcTemplate.update(sql, id.toString(), authUserId.toString(), safeTitle);
-        return id;
+            String createdAt = jdbcTemplate.queryForObject(sql, String.class, id, authUserId, safeTitle);
+            return new CreatedChat(id, safeTitle, createdAt);
+        });
     }
 
     public List<ChatSummaryDto> listChats(UUID authUserId) {
-        String sql = """
-            SELECT
-              c.id::text AS id,
-              c.title AS title,
-              COALESCE((
-                SELECT m.content
-                FROM public.chat_messages m
-                WHERE m.chat_id = c.id
-                ORDER BY m.created_at DESC
-                LIMIT 1
-              ), '') AS last_message,
-              c.updated_at::text AS updated_at,
-              c.created_at::text AS created_at
-            FROM public.chats c
-            WHERE c.auth_user_id = ?::uuid
-            ORDER BY c.updated_at DESC
-        """;
-
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, authUserId.toString());
-
-        List<ChatSummaryDto> result = new ArrayList<>();
-        for (Map<String, Object> r : rows) {
-            result.add(new ChatSummaryDto(
-                    String.valueOf(r.get("id")),
-                    String.valueOf(r.get("title")),
-                    String.valueOf(r.get("last_message")),
-                    String.valueOf(r.get("updated_at")),
-                    String.valueOf(r.get("created_at"))
-            ));
-        }
-        return result;
+        return timedRead("listChats", authUserId, () -> {
+            String sql = """
+                SELECT
+                  c.id::text AS id,
+                  c.title AS title,
+                  COALESCE(c.last_message_preview, '') AS last_message,
+                  c.updated_at::text AS updated_at,
+                  c.created_at::text AS created_at
+                FROM public.chats c
+                WHERE c.auth_user_id = ?
+                ORDER BY c.updated_at DESC, c.id DESC
+            """;
+
+            return jdbcTemplate.query(sql, CHAT_SUMMARY_MAPPER, authUserId);
+        });
     }
 
+    /**
+     * Stand der Chatliste für ETags: Anzahl Chats, neuestes updated_at und Summe der revision-Werte (V10).
+     * updated_at allein reicht nicht (Batch-Import mit alten Zeitstempeln ändert den Titel, aber nicht
+     * updated_at); jedes UPDATE auf chats vergibt eine neue, größere revision und ändert damit die Summe.
+     */
+    public ContentVersion chatListVersion(UUID authUserId) {
+        return timedRead("chatListVersion", authUserId, () -> {
+            String sql = """
+                SELECT count(*) AS cnt,
+                       COALESCE((extract(epoch FROM max(c.updated_at)) * 1000000)::bigint, 0) AS updated_at_micros,
+                       COALESCE(sum(c.revision), 0)::bigint AS revision
+                FROM public.chats c
+                WHERE c.auth_user_id = ?
+            """;
+
+            return jdbcTemplate.queryForObject(sql, CONTENT_VERSION_MAPPER, authUserId);
+        });
+    }
+
+    /**
+     * Keyset-Pagination über (updated_at, id), neueste Chats zuerst.
+     *
+     * before = ältere Chats als der Cursor (Standard: ab dem neuesten Chat)
+     * after  = neuere Chats als der Cursor
+     * Der nextCursor setzt in derselben Richtung fort, null = keine weiteren Einträge.
+     */
+    public Page<ChatSummaryDto> listChatsPage(UUID authUserId, int limit, PageCursor before, PageCursor after) {
+        return timedRead("listChatsPage", authUserId, () -> {
+            boolean forward = (after != null);
+            PageCursor cursor = forward ? after : before;
+
+            List<Object> params = new ArrayList<>();
+            params.add(authUserId);
+
+            StringBuilder sql = new StringBuilder("""
+                SELECT
+                  c.id::text AS id,
+                  c.title AS title,
+                  COALESCE(c.last_message_preview, '') AS last_message,
+                  c.updated_at::text AS updated_at,
+                  c.created_at::text AS created_at
+                FROM public.chats c
+                WHERE c.auth_user_id = ?
+            """);
+
+            if (cursor != null) {
+                sql.append(forward
+                        ? "  AND (c.updated_at, c.id) > (?::timestamptz, ?)\n"
+                        : "  AND (c.updated_at, c.id) < (?::timestamptz, ?)\n");
+                params.add(cursor.timestamp());
+                params.add(cursor.id());
+            }
+
+            sql.append(forward
+                    ? "ORDER BY c.updated_at ASC, c.id ASC LIMIT ?"
+                    : "ORDER BY c.updated_at DESC, c.id DESC LIMIT ?");
+            params.add(limit + 1);
+
+            List<ChatSummaryDto> rows = jdbcTemplate.query(sql.toString(), CHAT_SUMMARY_MAPPER, params.toArray());
+
+            boolean hasMore = rows.size() > limit;
+            if (hasMore) rows = new ArrayList<>(rows.subList(0, limit));
+
+            String next = null;
+            if (hasMore) {
+                ChatSummaryDto last = rows.get(rows.size() - 1);
+                next = new PageCursor(last.getUpdatedAt(), UUID.fromString(last.getId())).encode();
+            }
+
+            // Ausgabe immer neueste zuerst
+            if (forward) Collections.reverse(rows);
+            return new Page<>(rows, next);
+        });
+    }
+
+    /**
+     * Alle Nachrichten eines Chats; leer, wenn der Chat nicht existiert oder nicht dem User gehört
+     * (Ownership steckt im Statement selbst, kein eigener Check vorab).
+     *
+     * Archivierte Nachrichten (MessageArchiver) kommen im selben Statement als Blöcke mit und werden
+     * hier entpackt und einsortiert; ohne Archiv bleibt es bei der sortierten Ausgabe aus dem Index.
+     */
     public List<ChatMessageDto> getMessages(UUID authUserId, UUID chatId) {
-        // Ownership check
-        Integer cnt = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
-                Integer.class,
-                chatId.toString(),
-                authUserId.toString()
-        );
-        if (cnt == null || cnt == 0) return List.of();
-
-        String sql = """
-            SELECT id::text AS id, sender, content, created_at::text AS created_at
-            FROM public.chat_messages
-            WHERE chat_id = ?::uuid
-            ORDER BY created_at ASC
-        """;
-
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, chatId.toString());
-
-        List<ChatMessageDto> result = new ArrayList<>();
-        for (Map<String, Object> r : rows) {
-            result.add(new ChatMessageDto(
-                    String.valueOf(r.get("id")),
-                    String.valueOf(r.get("sender")),
-                    String.valueOf(r.get("content")),
-                    String.valueOf(r.get("created_at"))
-            ));
-        }
-        return result;
-    }
-
-    public void addMessage(UUID authUserId, UUID chatId, String sender, String content) {
-        // Ownership check
-        Integer cnt = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
-                Integer.class,
-                chatId.toString(),
-                authUserId.toString()
-        );
-        if (cnt == null || cnt == 0) {
-            throw new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung.");
-        }
+        return timedRead("getMessages", authUserId, () -> {
+            String sql = """
+                SELECT m.id::text AS id, m.sender, m.content, m.created_at::text AS created_at,
+                       NULL::text AS codec, NULL::bytea AS block, m.created_at AS sort_at, m.id AS sort_id
+                FROM public.chat_messages m
+                JOIN public.chats c ON c.id = m.chat_id
+                WHERE m.chat_id = ? AND c.auth_user_id = ?
+                UNION ALL
+                SELECT NULL, NULL, NULL, NULL, a.codec, a.data, a.first_created_at, NULL
+                FROM public.chat_message_archive a
+                JOIN public.chats c ON c.id = a.chat_id
+                WHERE a.chat_id = ? AND c.auth_user_id = ?
+                ORDER BY sort_at ASC, sort_id ASC
+            """;
 
-        String safeSender = (sender == null) ? "user" : sender.trim();
-        if (!safeSender.equals("user") && !safeSender.equals("bot")) {
-            throw new IllegalArgumentException("Ungültiger Sender (nur 'user' oder 'bot').");
-        }
+            MessageRows rows = queryMessageRows(sql, chatId, authUserId, chatId, authUserId);
+            if (rows.archived().isEmpty()) return rows.live();
+
+            List<ChatMessageDto> all = new ArrayList<>(rows.live().size() + rows.archived().size());
+            all.addAll(rows.archived());
+            all.addAll(rows.live());
+            all.sort(MessageArchiveCodec.CHRONOLOGICAL);
+            return all;
+        });
+    }
+
+    /**
+     * Stand der Nachrichten eines Chats für ETags, direkt aus chats (message_count, updated_at, revision).
+     * Leer, wenn der Chat nicht existiert oder nicht dem User gehört.
+     */
+    public Optional<ContentVersion> messagesVersion(UUID authUserId, UUID chatId) {
+        return timedRead("messagesVersion", authUserId, () -> {
+            String sql = """
+                SELECT c.message_count AS cnt,
+                       (extract(epoch FROM c.updated_at) * 1000000)::bigint AS updated_at_micros,
+                       COALESCE(c.revision, 0) AS revision
+                FROM public.chats c
+                WHERE c.id = ? AND c.auth_user_id = ?
+            """;
+
+            return jdbcTemplate.query(sql, CONTENT_VERSION_MAPPER, chatId, authUserId).stream().findFirst();
+        });
+    }
+
+    /**
+     * Keyset-Pagination über (created_at, id), Ausgabe immer chronologisch.
+     *
+     * before = ältere Nachrichten als der Cursor (Standard: die neuesten)
+     * after  = neuere Nachrichten als der Cursor
+     * Der nextCursor setzt in derselben Richtung fort, null = keine weiteren Einträge.
+     * Archivblöcke auf der Cursor-Seite werden ganz gelesen und entpackt (je höchstens
+     * app.archive.block-size Nachrichten); ohne Archiv nur ein zusätzlicher leerer Index-Scan.
+     */
+    public Page<ChatMessageDto> getMessagesPage(UUID authUserId, UUID chatId, int limit, PageCursor before, PageCursor after) {
+        return timedRead("getMessagesPage", authUserId, () -> {
+            boolean forward = (after != null);
+            PageCursor cursor = forward ? after : before;
+
+            List<Object> params = new ArrayList<>();
+            params.add(chatId);
+            params.add(authUserId);
+
+            // Aktuelle Nachrichten per Keyset wie gehabt, dazu die Archivblöcke auf der Cursor-Seite
+            StringBuilder sql = new StringBuilder("""
+                (SELECT m.id::text AS id, m.sender, m.content, m.created_at::text AS created_at,
+                        NULL::text AS codec, NULL::bytea AS block, m.created_at AS sort_at, m.id AS sort_id
+                 FROM public.chat_messages m
+                 JOIN public.chats c ON c.id = m.chat_id
+                 WHERE m.chat_id = ? AND c.auth_user_id = ?
+            """);
+
+            if (cursor != null) {
+                // Die einfache Bedingung auf created_at ist für das Partition Pruning (V7),
+                // Zeilenvergleiche wertet Postgres dafür nicht aus
+                sql.append(forward
+                        ? "  AND (m.created_at, m.id) > (?::timestamptz, ?) AND m.created_at >= ?::timestamptz\n"
+                        : "  AND (m.created_at, m.id) < (?::timestamptz, ?) AND m.created_at <= ?::timestamptz\n");
+                params.add(cursor.timestamp());
+                params.add(cursor.id());
+                params.add(cursor.timestamp());
+            }
+
+            sql.append(forward
+                    ? " ORDER BY m.created_at ASC, m.id ASC LIMIT ?)\n"
+                    : " ORDER BY m.created_at DESC, m.id DESC LIMIT ?)\n");
+            params.add(limit + 1);
 
-        String safeContent = (content == null) ? "" : content.trim();
-        if (safeContent.isBlank()) {
-            throw new IllegalArgumentException("Nachricht leer.");
+            sql.append("""
+                UNION ALL
+                SELECT NULL, NULL, NULL, NULL, a.codec, a.data, a.first_created_at, NULL
+                FROM public.chat_message_archive a
+                JOIN public.chats c ON c.id = a.chat_id
+                WHERE a.chat_id = ? AND c.auth_user_id = ?
+            """);
+            params.add(chatId);
+            params.add(authUserId);
+
+            if (cursor != null) {
+                sql.append(forward
+                        ? "  AND a.last_created_at >= ?::timestamptz\n"
+                        : "  AND a.first_created_at <= ?::timestamptz\n");
+                params.add(cursor.timestamp());
+            }
+
+            sql.append(forward
+                    ? "ORDER BY sort_at ASC, sort_id ASC"
+                    : "ORDER BY sort_at DESC, sort_id DESC");
+
+            MessageRows result = queryMessageRows(sql.toString(), params.toArray());
+            List<ChatMessageDto> rows = result.live();
+
+            if (!result.archived().isEmpty()) {
+                rows = mergeArchived(rows, result.archived(), cursor, forward, limit + 1);
+            }
+
+            boolean hasMore = rows.size() > limit;
+            if (hasMore) rows = new ArrayList<>(rows.subList(0, limit));
+
+            String next = null;
+            if (hasMore) {
+                ChatMessageDto last = rows.get(rows.size() - 1);
+                next = new PageCursor(last.getCreatedAt(), UUID.fromString(last.getId())).encode();
+            }
+
+            // Ausgabe immer chronologisch
+            if (!forward) Collections.reverse(rows);
+            return new Page<>(rows, next);
+        });
+    }
+
+    /**
+     * Aktuelle Nachrichten einer Seite (schon in Seitenrichtung sortiert) mit entpackten archivierten
+     * zusammenführen: nur archivierte jenseits des Cursors, Ergebnis in Seitenrichtung, höchstens max.
+     */
+    private static List<ChatMessageDto> mergeArchived(
+            List<ChatMessageDto> live,
+            List<ChatMessageDto> archived,
+            PageCursor cursor,
+            boolean forward,
+            int max
+    ) {
+        Comparator<ChatMessageDto> order = forward
+                ? MessageArchiveCodec.CHRONOLOGICAL
+                : MessageArchiveCodec.CHRONOLOGICAL.reversed();
+
+        List<ChatMessageDto> merged = new ArrayList<>(live);
+        if (cursor == null) {
+            merged.addAll(archived);
+        } else {
+            ChatMessageDto bound = new ChatMessageDto(cursor.id().toString(), null, null, cursor.timestamp());
+            for (ChatMessageDto m : archived) {
+                if (order.compare(m, bound) > 0) merged.add(m);
+            }
         }
 
-        jdbcTemplate.update(
-                "INSERT INTO public.chat_messages (chat_id, sender, content, created_at) VALUES (?::uuid, ?, ?, now())",
-                chatId.toString(),
-                safeSender,
-                safeContent
-        );
+        merged.sort(order);
+        return merged.size() > max ? new ArrayList<>(merged.subList(0, max)) : merged;
+    }
+
+    /**
+     * Führt eine Nachrichtenabfrage mit Archivblöcken aus (Spalten wie CHAT_MESSAGE_MAPPER + codec, block).
+     * live in Reihenfolge des Statements, archived unsortiert.
+     */
+    private MessageRows queryMessageRows(String sql, Object... args) {
+        List<ChatMessageDto> live = new ArrayList<>();
+        List<ChatMessageDto> archived = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            byte[] block = rs.getBytes("block");
+            if (block != null) {
+                archived.addAll(MessageArchiveCodec.decode(rs.getString("codec"), block));
+            } else {
+                live.add(CHAT_MESSAGE_MAPPER.mapRow(rs, live.size()));
+            }
+        }, args);
+        return new MessageRows(live, archived);
+    }
+
+    private record MessageRows(List<ChatMessageDto> live, List<ChatMessageDto> archived) {}
+
+    /**
+     * Speichert eine Nachricht mit genau einem Statement (ein Round Trip, implizit eine Transaktion):
+     * Ownership-Check, Insert, updated_at / last_message_preview / message_count und – bei der
+     * ersten User-Nachricht in einem "Neuer Chat" – der automatische Titel.
+     *
+     * @throws IllegalArgumentException wenn der Chat nicht existiert oder nicht dem User gehört
+     */
+    public AddedMessage addMessage(UUID authUserId, UUID chatId, String sender, String content) {
+        return timedWrite("addMessage", authUserId, () -> {
+            String safeSender = (sender == null) ? "user" : sender.trim();
+            if (!safeSender.equals("user") && !safeSender.equals("bot")) {
+                throw new IllegalArgumentException("Ungültiger Sender (nur 'user' oder 'bot').");
+            }
+
+            String safeContent = (content == null) ? "" : content.trim();
+            if (safeContent.isBlank()) {
+                throw new IllegalArgumentException("Nachricht leer.");
+            }
+
+            String sql = """
+                WITH owned AS (
+                  SELECT id
+                  FROM public.chats
+                  WHERE id = ? AND auth_user_id = ?
+                ),
+                ins AS (
+                  INSERT INTO public.chat_messages (chat_id, sender, content, created_at)
+                  SELECT id, ?, ?, now() FROM owned
+                  RETURNING id, created_at
+                ),
+                upd AS (
+                  UPDATE public.chats c
+                  SET updated_at = now(),
+                      last_message_preview = left(?, ?),
+                      message_count = c.message_count + 1,
+                      title = CASE
+                                WHEN ? = 'user' AND lower(btrim(c.title)) = 'neuer chat' THEN ?
+                                ELSE c.title
+                              END
+                  FROM owned o
+                  WHERE c.id = o.id
+                  RETURNING c.title, c.message_count
+                )
+                SELECT ins.id::text AS id, ins.created_at::text AS created_at, upd.title AS title,
+                       upd.message_count AS message_count
+                FROM ins, upd
+            """;
+
+            List<AddedMessage> rows = jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new AddedMessage(
+                            rs.getString("id"),
+                            rs.getString("created_at"),
+                            rs.getString("title"),
+                            rs.getInt("message_count")
+                    ),
+                    chatId,
+                    authUserId,
+                    safeSender,
+                    safeContent,
+                    safeContent,
+                    LAST_MESSAGE_PREVIEW_LENGTH,
+                    safeSender,
+                    autoTitle(safeContent)
+            );
+
+            if (rows.isEmpty()) {
+                throw new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung.");
+            }
+            return rows.get(0);
+        });
+    }
 
-        jdbcTemplate.update(
-                "UPDATE public.chats SET updated_at = now() WHERE id = ?::uuid",
-                chatId.toString()
-        );
+    /**
+     * last_message_preview wie left(content, LAST_MESSAGE_PREVIEW_LENGTH) in Postgres (Zeichen = Code Points).
+     */
+    static String preview(String content) {
+        if (content.codePointCount(0, content.length()) <= LAST_MESSAGE_PREVIEW_LENGTH) return content;
+        return content.substring(0, content.offsetByCodePoints(0, LAST_MESSAGE_PREVIEW_LENGTH));
+    }
+
+    /**
+     * Titel aus der ersten User-Nachricht (ersetzt "Neuer Chat").
+     */
+    static String autoTitle(String firstUserMessage) {
+        String t = (firstUserMessage == null) ? "" : firstUserMessage.trim();
+        if (t.length() > 42) t = t.substring(0, 42) + "…";
+        return t;
+    }
+
+    /**
+     * Mehrere Nachrichten eines Chats in einer Transaktion (Batch-Endpoint, Import).
+     *
+     * Zuerst das UPDATE auf chats (Anzahl, Vorschau, updated_at, automatischer Titel) mit der
+     * Ownership-Bedingung – es sperrt die Zeile und ersetzt den separaten Check –, danach die
+     * Inserts als JDBC-Batch. Bei älteren Nachrichten bleibt updated_at, der ETag ändert sich
+     * trotzdem über revision (V10).
+     *
+     * @return Titel des Chats danach
+     * @throws IllegalArgumentException wenn der Chat nicht existiert oder nicht dem User gehört
+     */
+    public String addMessagesBatch(UUID authUserId, UUID chatId, List<NewMessage> messages) {
+        return timedWrite("addMessagesBatch", authUserId, () -> {
+            // Neueste Nachricht (Vorschau) und erste User-Nachricht (Titel) ohne Annahme über die Reihenfolge
+            NewMessage last = messages.get(0);
+            String firstUserContent = null;
+            OffsetDateTime firstUserAt = null;
+            for (NewMessage m : messages) {
+                if (!m.createdAt().isBefore(last.createdAt())) last = m;
+                if (m.sender().equals("user") && (firstUserAt == null || m.createdAt().isBefore(firstUserAt))) {
+                    firstUserAt = m.createdAt();
+                    firstUserContent = m.content();
+                }
+            }
+            String autoTitle = (firstUserContent == null) ? null : autoTitle(firstUserContent);
+            NewMessage newest = last;
+
+            String sql = """
+                UPDATE public.chats
+                SET message_count = message_count + ?,
+                    last_message_preview = CASE WHEN ? >= updated_at THEN left(?, ?) ELSE last_message_preview END,
+                    updated_at = greatest(updated_at, ?),
+                    title = CASE
+                              WHEN ?::text IS NOT NULL AND lower(btrim(title)) = 'neuer chat' THEN ?::text
+                              ELSE title
+                            END
+                WHERE id = ? AND auth_user_id = ?
+                RETURNING title
+            """;
+
+            return transactionTemplate.execute(status -> {
+                List<String> titles = jdbcTemplate.queryForList(
+                        sql,
+                        String.class,
+                        messages.size(),
+                        newest.createdAt(),
+                        newest.content(),
+                        LAST_MESSAGE_PREVIEW_LENGTH,
+                        newest.createdAt(),
+                        autoTitle,
+                        autoTitle,
+                        chatId,
+                        authUserId
+                );
+                if (titles.isEmpty()) {
+                    throw new IllegalArgumentException("Chat nicht gefunden oder keine Berechtigung.");
+                }
+
+                jdbcTemplate.batchUpdate(
+                        """
+                        INSERT INTO public.chat_messages (id, chat_id, sender, content, created_at)
+                        VALUES (?, ?, ?, ?, ?)
+                        """,
+                        messages,
+                        INSERT_BATCH_SIZE,
+                        (ps, m) -> {
+                            ps.setObject(1, m.id());
+                            ps.setObject(2, chatId);
+                            ps.setString(3, m.sender());
+                            ps.setString(4, m.content());
+                            ps.setObject(5, m.createdAt());
+                        }
+                );
+
+                return titles.get(0);
+            });
+        });
+    }
+
+    /**
+     * Titel + Nachrichtenanzahl eines Chats, leer wenn der Chat nicht existiert oder nicht dem User gehört.
+     */
+    public Optional<ChatHead> findChatHead(UUID authUserId, UUID chatId) {
+        return timed("findChatHead", () -> {
+            String sql = """
+                SELECT title, message_count
+                FROM public.chats
+                WHERE id = ? AND auth_user_id = ?
+            """;
+
+            return jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new ChatHead(rs.getString("title"), rs.getInt("message_count")),
+                    chatId,
+                    authUserId
+            ).stream().findFirst();
+        });
+    }
+
+    /**
+     * Schreibt mehrere Nachrichten (auch verschiedener Chats) in einem Statement (Write-Behind).
+     *
+     * ids und Zeitstempel kommen aus Java, daher ist das Statement wiederholbar:
+     * schon vorhandene Nachrichten werden übersprungen (ON CONFLICT auf den Primärschlüssel
+     * (id, created_at), siehe V7), Nachrichten gelöschter Chats verworfen.
+     * chats (message_count, updated_at, Vorschau, automatischer Titel) wird nur für tatsächlich
+     * eingefügte Zeilen angepasst; Vorschau/updated_at nur, wenn die Nachrichten neuer sind.
+     */
+    public void insertMessageBatch(List<NewMessage> messages) {
+        timed("insertMessageBatch", () -> {
+            if (messages.isEmpty()) return;
+
+            StringBuilder values = new StringBuilder();
+            List<Object> args = new ArrayList<>(messages.size() * 6 + 1);
+            for (NewMessage m : messages) {
+                if (!values.isEmpty()) values.append(",\n  ");
+                values.append("(?, ?, ?::text, ?::text, ?::timestamptz, ?::text)");
+                args.add(m.id());
+                args.add(m.chatId());
+                args.add(m.sender());
+                args.add(m.content());
+                args.add(m.createdAt());
+                args.add(m.sender().equals("user") ? autoTitle(m.content()) : null);
+            }
+            args.add(LAST_MESSAGE_PREVIEW_LENGTH);
+
+            String sql = """
+                WITH v (id, chat_id, sender, content, created_at, auto_title) AS (
+                  VALUES
+                  %s
+                ),
+                ins AS (
+                  INSERT INTO public.chat_messages (id, chat_id, sender, content, created_at)
+                  SELECT v.id, v.chat_id, v.sender, v.content, v.created_at
+                  FROM v
+                  JOIN public.chats c ON c.id = v.chat_id
+                  ON CONFLICT (id, created_at) DO NOTHING
+                  RETURNING id
+                ),
+                agg AS (
+                  SELECT v.chat_id,
+                         count(*) AS cnt,
+                         max(v.created_at) AS last_at,
+                         (array_agg(v.content ORDER BY v.created_at DESC, v.id DESC))[1] AS last_content,
+                         (array_agg(v.auto_title ORDER BY v.created_at, v.id) FILTER (WHERE v.sender = 'user'))[1] AS auto_title
+                  FROM v
+                  JOIN ins ON ins.id = v.id
+                  GROUP BY v.chat_id
+                )
+                UPDATE public.chats c
+                SET message_count = c.message_count + a.cnt,
+                    updated_at = greatest(c.updated_at, a.last_at),
+                    last_message_preview = CASE
+                                             WHEN a.last_at >= c.updated_at THEN left(a.last_content, ?)
+                                             ELSE c.last_message_preview
+                                           END,
+                    title = CASE
+                              WHEN a.auto_title IS NOT NULL AND lower(btrim(c.title)) = 'neuer chat' THEN a.auto_title
+                              ELSE c.title
+                            END
+                FROM agg a
+                WHERE c.id = a.chat_id
+            """.formatted(values);
+
+            jdbcTemplate.update(sql, args.toArray());
+        });
     }
 
     public boolean deleteChat(UUID authUserId, UUID chatId) {
-        int affected = jdbcTemplate.update(
-                "DELETE FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
-                chatId.toString(),
-                authUserId.toString()
-        );
-        // chat_messages werden per ON DELETE CASCADE automatisch gelöscht
-        return affected > 0;
+        return timedWrite("deleteChat", authUserId, () -> {
+            int affected = jdbcTemplate.update(
+                    "DELETE FROM public.chats WHERE id = ? AND auth_user_id = ?",
+                    chatId,
+                    authUserId
+            );
+            // chat_messages werden per ON DELETE CASCADE automatisch gelöscht
+            return affected > 0;
+        });
     }
 
     /**
-     * Optional: setzt den Titel automatisch anhand der ersten User-Nachricht,
-     * aber nur wenn der Titel aktuell noch "Neuer Chat" ist.
+     * Alle Chats eines Users mit allen Nachrichten in einem Durchlauf, für den Export.
+     *
+     * Ein Statement über einen serverseitigen Cursor: PgJDBC holt nur mit autocommit=false
+     * portionsweise (fetchSize Zeilen), daher in einer read-only Transaktion. Reihenfolge wie
+     * in der Sidebar (neueste Chats zuerst), Nachrichten chronologisch. Der LATERAL-Join hält
+     * den Plan bei Index-Scan über chats + Nested Loop je Chat (Keyset-Indizes aus V3); ein
+     * normaler Join würde als Hash Join die ganze Historie sortieren, bevor die erste Zeile kommt.
+     * Chats ohne Nachrichten liefern eine Zeile mit messageId == null.
+     *
+     * Archivblöcke eines Chats kommen als eigene Zeilen (archived != null, message* null), einsortiert
+     * nach ihrer ersten Nachricht; das Zusammenführen mit den aktuellen Nachrichten macht ChatExporter.
+     *
+     * Exceptions aus dem sink (z.B. UncheckedIOException, Client weg) brechen ab und werden durchgereicht.
      */
-    public void maybeAutoTitle(UUID authUserId, UUID chatId, String firstUserMessage) {
-        String current;
-        try {
-            current = jdbcTemplate.queryForObject(
-                    "SELECT title FROM public.chats WHERE id = ?::uuid AND auth_user_id = ?::uuid",
+    public void exportChatHistory(UUID authUserId, int fetchSize, Consumer<ExportRow> sink) {
+        timed("exportChatHistory", () -> {
+            String sql = """
+                SELECT c.id::text AS chat_id,
+                       c.title,
+                       c.created_at::text AS chat_created_at,
+                       c.updated_at::text AS chat_updated_at,
+                       m.id::text AS message_id,
+                       m.sender,
+                       m.content,
+                       m.created_at::text AS message_created_at,
+                       m.codec,
+                       m.block
+                FROM public.chats c
+                LEFT JOIN LATERAL (
+                  SELECT m.id, m.sender, m.content, m.created_at, NULL::text AS codec, NULL::bytea AS block
+                  FROM public.chat_messages m
+                  WHERE m.chat_id = c.id
+                  UNION ALL
+                  SELECT NULL, NULL, NULL, a.first_created_at, a.codec, a.data
+                  FROM public.chat_message_archive a
+                  WHERE a.chat_id = c.id
+                ) m ON true
+                WHERE c.auth_user_id = ?
+                ORDER BY c.updated_at DESC, c.id DESC, m.created_at ASC, m.id ASC NULLS FIRST
+            """;
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            readOnly.setReadOnly(true);
+
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                    con -> {
+                        PreparedStatement ps = con.prepareStatement(
+                                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        ps.setFetchSize(fetchSize);
+                        ps.setObject(1, authUserId);
+                        return ps;
+                    },
+                    rs -> {
+                        byte[] block = rs.getBytes("block");
+                        sink.accept(new ExportRow(
+                                rs.getString("chat_id"),
+                                rs.getString("title"),
+                                rs.getString("chat_created_at"),
+                                rs.getString("chat_updated_at"),
+                                rs.getString("message_id"),
+                                rs.getString("sender"),
+                                rs.getString("content"),
+                                block == null ? rs.getString("message_created_at") : null,
+                                block == null ? null : MessageArchiveCodec.decode(rs.getString("codec"), block)
+                        ));
+                    }
+            ));
+        });
+    }
+
+    // =========================================================
+    // ARCHIV (MessageArchiver)
+    // =========================================================
+
+    /**
+     * Chats, die seit idleDays nicht mehr geändert wurden und noch aktuelle Nachrichten haben, älteste zuerst.
+     */
+    public List<UUID> findArchivableChats(int idleDays, int limit) {
+        return timed("findArchivableChats", () -> {
+            String sql = """
+                SELECT c.id
+                FROM public.chats c
+                WHERE c.updated_at < now() - make_interval(days => ?)
+                  AND EXISTS (SELECT 1 FROM public.chat_messages m WHERE m.chat_id = c.id)
+                ORDER BY c.updated_at ASC
+                LIMIT ?
+            """;
+
+            return jdbcTemplate.queryForList(sql, UUID.class, idleDays, limit);
+        });
+    }
+
+    /**
+     * Verschiebt alle Nachrichten eines ruhenden Chats in Blöcke zu je blockSize Nachrichten.
+     *
+     * Eine Transaktion: Chat-Zeile sperren (addMessage wartet solange, SKIP LOCKED überspringt Chats,
+     * die gerade bearbeitet werden), Inaktivität erneut prüfen, dann blockweise DELETE … RETURNING +
+     * INSERT ins Archiv. message_count/updated_at der Chats bleiben unverändert (ETags bleiben gültig).
+     *
+     * @return null, wenn der Chat gesperrt, inzwischen aktiv oder gelöscht ist
+     */
+    public ArchivedChat archiveChat(UUID chatId, int idleDays, int blockSize) {
+        return timed("archiveChat", () -> transactionTemplate.execute(status -> {
+            List<UUID> locked = jdbcTemplate.queryForList("""
+                SELECT c.id
+                FROM public.chats c
+                WHERE c.id = ? AND c.updated_at < now() - make_interval(days => ?)
+                FOR UPDATE SKIP LOCKED
+            """, UUID.class, chatId, idleDays);
+            if (locked.isEmpty()) return null;
+
+            String take = """
+                DELETE FROM public.chat_messages
+                WHERE (id, created_at) IN (
+                  SELECT m.id, m.created_at
+                  FROM public.chat_messages m
+                  WHERE m.chat_id = ?
+                  ORDER BY m.created_at ASC, m.id ASC
+                  LIMIT ?
+                )
+                RETURNING id::text AS id, sender, content, created_at::text AS created_at
+            """;
+            String insert = """
+                INSERT INTO public.chat_message_archive
+                  (chat_id, first_created_at, last_created_at, message_count, codec, raw_bytes, data, search_tsv)
+                VALUES (?, ?::timestamptz, ?::timestamptz, ?, ?, ?, ?,
+                        to_tsvector('german'::regconfig, ?) || to_tsvector('simple'::regconfig, ?))
+            """;
+
+            int messages = 0;
+            int blocks = 0;
+            long rawBytes = 0;
+            long storedBytes = 0;
+            while (true) {
+                List<ChatMessageDto> batch = new ArrayList<>(jdbcTemplate.query(take, CHAT_MESSAGE_MAPPER, chatId, blockSize));
+                if (batch.isEmpty()) break;
+
+                // RETURNING liefert keine garantierte Reihenfolge
+                batch.sort(MessageArchiveCodec.CHRONOLOGICAL);
+                MessageArchiveCodec.Block block = MessageArchiveCodec.encode(batch);
+                String searchText = MessageArchiveCodec.searchText(batch);
+                jdbcTemplate.update(insert,
+                        chatId,
+                        batch.get(0).getCreatedAt(),
+                        batch.get(batch.size() - 1).getCreatedAt(),
+                        batch.size(),
+                        MessageArchiveCodec.CODEC,
+                        block.rawBytes(),
+                        block.data(),
+                        searchText,
+                        searchText);
+
+                messages += batch.size();
+                blocks++;
+                rawBytes += block.rawBytes();
+                storedBytes += block.data().length;
+                if (batch.size() < blockSize) break;
+            }
+            return new ArchivedChat(messages, blocks, rawBytes, storedBytes);
+        }));
+    }
+
+    /**
+     * Archivblöcke ohne search_tsv (archiviert vor V9), für MessageArchiver.
+     */
+    public List<ArchiveBlock> findUnsearchableArchiveBlocks(int limit) {
+        return timed("findUnsearchableArchiveBlocks", () -> {
+            String sql = """
+                SELECT a.id, a.codec, a.data
+                FROM public.chat_message_archive a
+                WHERE a.search_tsv IS NULL
+                ORDER BY a.id
+                LIMIT ?
+            """;
+
+            return jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new ArchiveBlock(rs.getLong("id"), rs.getString("codec"), rs.getBytes("data")),
+                    limit
+            );
+        });
+    }
+
+    /**
+     * search_tsv eines Archivblocks setzen, Text aus MessageArchiveCodec.searchText.
+     */
+    public void updateArchiveSearch(long blockId, String searchText) {
+        timed("updateArchiveSearch", () -> {
+            jdbcTemplate.update("""
+                UPDATE public.chat_message_archive
+                SET search_tsv = to_tsvector('german'::regconfig, ?) || to_tsvector('simple'::regconfig, ?)
+                WHERE id = ?
+            """, searchText, searchText, blockId);
+        });
+    }
+
+    /**
+     * Umfang des Archivs und Platzbedarf beider Tabellen (inkl. TOAST und Indizes, chat_messages
+     * als Summe über alle Partitionen).
+     */
+    public ArchiveStorage archiveStorage() {
+        return timed("archiveStorage", () -> {
+            String sql = """
+                SELECT count(*) AS blocks,
+                       coalesce(sum(a.message_count), 0) AS messages,
+                       coalesce(sum(a.raw_bytes), 0) AS raw_bytes,
+                       coalesce(sum(octet_length(a.data)), 0) AS stored_bytes,
+                       pg_total_relation_size('public.chat_message_archive') AS archive_total_bytes,
+                       (SELECT coalesce(sum(pg_total_relation_size(p.relid)), 0)
+                        FROM pg_partition_tree('public.chat_messages') p WHERE p.isleaf) AS hot_total_bytes,
+                       (SELECT coalesce(sum(pg_indexes_size(p.relid)), 0)
+                        FROM pg_partition_tree('public.chat_messages') p WHERE p.isleaf) AS hot_index_bytes
+                FROM public.chat_message_archive a
+            """;
+
+            return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new ArchiveStorage(
+                    rs.getLong("blocks"),
+                    rs.getLong("messages"),
+                    rs.getLong("raw_bytes"),
+                    rs.getLong("stored_bytes"),
+                    rs.getLong("archive_total_bytes"),
+                    rs.getLong("hot_total_bytes"),
+                    rs.getLong("hot_index_bytes")
+            ));
+        });
+    }
+
+    // =========================================================
+    // PARTITIONEN (MessagePartitionMaintainer)
+    // =========================================================
+
+    /**
+     * Monatspartitionen von chat_messages bis monthsAhead Monate im Voraus anlegen (Funktion aus V7).
+     *
+     * @return Anzahl neu angelegter Partitionen
+     */
+    public int ensureMessagePartitions(int monthsAhead) {
+        return timed("ensureMessagePartitions", () -> {
+            Integer created = jdbcTemplate.queryForObject(
+                    "SELECT public.ensure_chat_message_partitions(?)",
+                    Integer.class,
+                    monthsAhead
+            );
+            return created == null ? 0 : created;
+        });
+    }
+
+    /**
+     * Volltextsuche über Titel und Nachrichten eines Users (GIN-Indizes aus V4), beste Treffer zuerst.
+     *
+     * Gesucht wird mit deutschen Stammformen (websearch-Syntax: "…", OR, -wort) oder per Präfix
+     * auf jedes Wort ("rückm" findet "Rückmeldung"). snippet = Ausschnitt der am besten passenden Nachricht.
+     * Archivierte Nachrichten werden über chat_message_archive.search_tsv (V9) gefunden, ohne Ausschnitt.
+     *
+     * @param tokens Suchwörter, nur Buchstaben/Ziffern (QuestionNormalizer)
+     * @return Seite mit nextCursor = nächster offset
+     */
+    public Page<ChatSummaryDto> searchChats(UUID authUserId, String q, List<String> tokens, int limit, int offset) {
+        return timedRead("searchChats", authUserId, () -> {
+            if (q == null || q.isBlank() || tokens.isEmpty()) return new Page<>(List.of(), null);
+
+            String prefixQuery = String.join(" & ", tokens.stream().map(t -> t + ":*").toList());
+
+            String sql = """
+                WITH q AS (
+                  SELECT websearch_to_tsquery('german', ?) || to_tsquery('simple', ?) AS query
+                ),
+                hits AS (
+                  SELECT DISTINCT ON (h.chat_id) h.chat_id, h.content, h.rank
+                  FROM (
+                    SELECT m.chat_id, m.content, ts_rank(m.search_tsv, q.query) AS rank, m.created_at AS at
+                    FROM public.chat_messages m
+                    JOIN public.chats c ON c.id = m.chat_id
+                    CROSS JOIN q
+                    WHERE c.auth_user_id = ?
+                      AND m.search_tsv @@ q.query
+                    UNION ALL
+                    SELECT a.chat_id, NULL, ts_rank(a.search_tsv, q.query, 1), a.last_created_at
+                    FROM public.chat_message_archive a
+                    JOIN public.chats c ON c.id = a.chat_id
+                    CROSS JOIN q
+                    WHERE c.auth_user_id = ?
+                      AND a.search_tsv @@ q.query
+                  ) h
+                  -- Aktuelle Nachricht vor Archivblock: nur sie hat einen Ausschnitt
+                  ORDER BY h.chat_id, h.content IS NULL, h.rank DESC, h.at DESC
+                ),
+                ranked AS (
+                  SELECT c.id, c.title, c.last_message_preview, c.updated_at, c.created_at, h.content,
+                         COALESCE(h.rank, 0)
+                           + CASE WHEN c.title_tsv @@ q.query THEN 1 ELSE 0 END AS score
+                  FROM public.chats c
+                  CROSS JOIN q
+                  LEFT JOIN hits h ON h.chat_id = c.id
+                  WHERE c.auth_user_id = ?
+                    AND (h.chat_id IS NOT NULL OR c.title_tsv @@ q.query)
+                  ORDER BY score DESC, c.updated_at DESC, c.id DESC
+                  LIMIT ? OFFSET ?
+                )
+                SELECT
+                  r.id::text AS id,
+                  r.title AS title,
+                  COALESCE(r.last_message_preview, '') AS last_message,
+                  r.updated_at::text AS updated_at,
+                  r.created_at::text AS created_at,
+                  CASE WHEN r.content IS NULL THEN NULL ELSE ts_headline(
+                    'german',
+                    replace(replace(replace(r.content, '&', '&amp;'), '<', '&lt;'), '>', '&gt;'),
+                    q.query,
+                    'StartSel=<mark>, StopSel=</mark>, MaxWords=24, MinWords=8, MaxFragments=1'
+                  ) END AS snippet
+                FROM ranked r
+                CROSS JOIN q
+                ORDER BY r.score DESC, r.updated_at DESC, r.id DESC
+            """;
+
+            List<ChatSummaryDto> rows = jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new ChatSummaryDto(
+                            rs.getString("id"),
+                            rs.getString("title"),
+                            rs.getString("last_message"),
+                            rs.getString("updated_at"),
+                            rs.getString("created_at"),
+                            rs.getString("snippet")
+                    ),
+                    q.trim(),
+                    prefixQuery,
+                    authUserId,
+                    authUserId,
+                    authUserId,
+                    limit + 1,
+                    offset
+            );
+
+            boolean hasMore = rows.size() > limit;
+            List<ChatSummaryDto> items = hasMore ? rows.subList(0, limit) : rows;
+            return new Page<>(items, hasMore ? String.valueOf(offset + limit) : null);
+        });
+    }
+
+    // =========================================================
+    // UHR (MessageWriteBehind)
+    // =========================================================
+
+    /**
+     * Uhrzeit der Datenbank in Mikrosekunden seit Epoch (clock_timestamp, nicht Transaktionsbeginn),
+     * für den Uhrenabgleich des Write-Behind.
+     */
+    public long databaseNow() {
+        return timed("databaseNow", () -> {
+            return jdbcTemplate.queryForObject(
+                    "SELECT (extract(epoch FROM clock_timestamp()) * 1000000)::bigint",
+                    Long.class
+            );
+        });
+    }
+
+    // =========================================================
+    // Top-FAQ (Nachlesen der User-Fragen für FaqAggregator)
+    // =========================================================
+
+    /**
+     * Zeitpunkt, bis zu dem nachgelesen wird: now() minus lag, damit gerade laufende Inserts nicht verloren gehen.
+     */
+    public String faqBoundary(int lagSeconds) {
+        return timed("faqBoundary", () -> {
+            return jdbcTemplate.queryForObject(
+                    "SELECT (now() - make_interval(secs => ?))::text",
                     String.class,
-                    chatId.toString(),
-                    authUserId.toString()
+                    lagSeconds
             );
-        } catch (EmptyResultDataAccessException e) {
-            return;
-        }
+        });
+    }
 
-        if (current == null) return;
-        if (!current.trim().equalsIgnoreCase("Neuer Chat")) return;
+    /**
+     * User-Fragen der letzten days Tage bis einschließlich boundary, schon nach Wortlaut gruppiert
+     * (Erstbefüllung). Die Untergrenze beschränkt die Abfrage auf die passenden Monatspartitionen.
+     */
+    public List<QuestionCount> countUserQuestionsUntil(String boundary, int days) {
+        return timed("countUserQuestionsUntil", () -> {
+            String sql = """
+                SELECT content,
+                       count(*) AS cnt,
+                       (extract(epoch FROM max(created_at)) * 1000)::bigint AS last_asked
+                FROM public.chat_messages
+                WHERE sender = 'user'
+                  AND created_at <= ?::timestamptz
+                  AND created_at > ?::timestamptz - make_interval(days => ?)
+                GROUP BY content
+            """;
 
-        String t = (firstUserMessage == null) ? "" : firstUserMessage.trim();
-        if (t.isBlank()) return;
-        if (t.length() > 42) t = t.substring(0, 42) + "…";
+            return jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new QuestionCount(rs.getString("content"), rs.getLong("cnt"), rs.getLong("last_asked")),
+                    boundary,
+                    boundary,
+                    days
+            );
+        });
+    }
 
-        jdbcTemplate.update(
-                "UPDATE public.chats SET title = ?, updated_at = now() WHERE id = ?::uuid AND auth_user_id = ?::uuid",
-                t,
-                chatId.toString(),
-                authUserId.toString()
-        );
-    }
-
-    public List<ChatSummaryDto> searchChats(UUID authUserId, String q) {
-        String query = (q == null) ? "" : q.trim();
-        if (query.isBlank()) return List.of();
-
-        String like = "%" + query + "%";
-
-        String sql = """
-            SELECT DISTINCT
-              c.id::text AS id,
-              c.title AS title,
-              COALESCE((
-                SELECT m2.content
-                FROM public.chat_messages m2
-                WHERE m2.chat_id = c.id
-                ORDER BY m2.created_at DESC
+    /**
+     * User-Fragen nach dem Cursor (created_at, id) bis einschließlich until, chronologisch.
+     */
+    public List<UserQuestion> userQuestionsAfter(PageCursor after, String until, int limit) {
+        return timed("userQuestionsAfter", () -> {
+            String sql = """
+                SELECT id::text AS id,
+                       created_at::text AS created_at,
+                       (extract(epoch FROM created_at) * 1000)::bigint AS created_at_millis,
+                       content
+                FROM public.chat_messages
+                WHERE sender = 'user'
+                  AND (created_at, id) > (?::timestamptz, ?)
+                  AND created_at >= ?::timestamptz
+                  AND created_at <= ?::timestamptz
+                ORDER BY created_at, id
+                LIMIT ?
+            """;
+
+            return jdbcTemplate.query(
+                    sql,
+                    (rs, rowNum) -> new UserQuestion(
+                            rs.getString("id"),
+                            rs.getString("created_at"),
+                            rs.getLong("created_at_millis"),
+                            rs.getString("content")
+                    ),
+                    after.timestamp(),
+                    after.id(),
+                    after.timestamp(),
+                    until,
+                    limit
+            );
+        });
+    }
+
+    /**
+     * Letzte Bot-Antwort auf genau diese Frage (erste Bot-Nachricht nach der jüngsten passenden User-Nachricht).
+     * Sucht über md5(content) im Index aus V8 (UserQuestionIndexMigration), der Vergleich auf content
+     * schließt Kollisionen aus.
+     */
+    public Optional<String> findLatestBotReply(String question) {
+        return timed("findLatestBotReply", () -> {
+            String sql = """
+                SELECT b.content
+                FROM public.chat_messages m
+                JOIN LATERAL (
+                  SELECT content
+                  FROM public.chat_messages b
+                  WHERE b.chat_id = m.chat_id
+                    AND b.sender = 'bot'
+                    AND (b.created_at, b.id) > (m.created_at, m.id)
+                    AND b.created_at >= m.created_at
+                  ORDER BY b.created_at, b.id
+                  LIMIT 1
+                ) b ON true
+                WHERE m.sender = 'user' AND md5(m.content) = md5(?) AND m.content = ?
+                ORDER BY m.created_at DESC
                 LIMIT 1
-              ), '') AS last_message,
-              c.updated_at::text AS updated_at,
-              c.created_at::text AS created_at
-            FROM public.chats c
-            LEFT JOIN public.chat_messages m ON m.chat_id = c.id
-            WHERE c.auth_user_id = ?::uuid
-              AND (c.title ILIKE ? OR m.content ILIKE ?)
-            ORDER BY c.updated_at DESC
-            LIMIT 50
-        """;
-
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
-                sql,
-                authUserId.toString(),
-                like,
-                like
-        );
-
-        List<ChatSummaryDto> result = new ArrayList<>();
-        for (Map<String, Object> r : rows) {
-            result.add(new ChatSummaryDto(
-                    String.valueOf(r.get("id")),
-                    String.valueOf(r.get("title")),
-                    String.valueOf(r.get("last_message")),
-                    String.valueOf(r.get("updated_at")),
-                    String.valueOf(r.get("created_at"))
-            ));
-        }
-        return result;
+            """;
+
+            return jdbcTemplate.queryForList(sql, String.class, question, question).stream().findFirst();
+        });
     }
 
+    /**
+     * Ergebnis von createChat; createdAt = created_at = updated_at (timestamptz::text).
+     */
+    public record CreatedChat(UUID id, String title, String createdAt) {}
+
+    /**
+     * Ergebnis von addMessage: neue Nachricht + Titel des Chats danach.
+     *
+     * @param messageCount Anzahl Nachrichten im Chat inkl. der neuen
+     */
+    public record AddedMessage(String id, String createdAt, String chatTitle, int messageCount) {}
+
+    /**
+     * Ergebnis von archiveChat; rawBytes = JSON vor, storedBytes = nach der Kompression.
+     */
+    public record ArchivedChat(int messages, int blocks, long rawBytes, long storedBytes) {}
+
+    public record ArchiveBlock(long id, String codec, byte[] data) {}
+
+    public record ArchiveStorage(
+            long blocks,
+            long messages,
+            long rawBytes,
+            long storedBytes,
+            long archiveTotalBytes,
+            long hotTotalBytes,
+            long hotIndexBytes
+    ) {}
+
+    public record ChatHead(String title, int messageCount) {}
+
+    /**
+     * Anzahl Zeilen + neuestes updated_at (Mikrosekunden seit Epoch) + Änderungszähler, Grundlage für ETags.
+     */
+    public record ContentVersion(long count, long updatedAtMicros, long revision) {}
+
+    /**
+     * Eine Zeile von exportChatHistory: Chat + eine seiner Nachrichten (message* null bei leerem Chat)
+     * oder ein entpackter Archivblock (archived != null, message* null).
+     */
+    public record ExportRow(
+            String chatId,
+            String chatTitle,
+            String chatCreatedAt,
+            String chatUpdatedAt,
+            String messageId,
+            String sender,
+            String content,
+            String messageCreatedAt,
+            List<ChatMessageDto> archived
+    ) {}
+
+    /**
+     * Nachricht für insertMessageBatch; id und createdAt vergibt der Aufrufer.
+     */
+    public record NewMessage(UUID id, UUID chatId, String sender, String content, OffsetDateTime createdAt) {}
+
+    public record QuestionCount(String content, long count, long lastAskedMillis) {}
+
+    public record UserQuestion(String id, String createdAt, long createdAtMillis, String content) {}
+
+    /**
+     * Eine Seite einer Keyset-Pagination; nextCursor = null wenn es keine weitere Seite gibt.
+     */
+    public record Page<T>(List<T> items, String nextCursor) {}
+
     /**
      * Kleiner DTO-Record für den Benutzer aus deiner eigenen Tabelle.
      */
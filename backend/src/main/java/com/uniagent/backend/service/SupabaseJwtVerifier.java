@@ -0,0 +1,319 @@
+// backend/src/main/java/com/uniagent/backend/service/SupabaseJwtVerifier.java
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.config.SupabaseConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prüft Supabase Access Tokens lokal (Signatur, Ablauf, Audience), damit nicht
+ * jeder Chat-Request einen GET /auth/v1/user an Supabase auslöst.
+ *
+ * Unterstützt:
+ *   HS256        – mit dem JWT-Secret des Projekts (supabase.jwt-secret)
+ *   ES256/RS256  – mit den öffentlichen Schlüsseln aus /auth/v1/.well-known/jwks.json
+ *
+ * Kann ein Token lokal nicht geprüft werden (kein Secret, unbekannte kid, ...),
+ * liefert verify() UNVERIFIABLE und der Aufrufer fällt auf den Remote-Call zurück.
+ */
+@Service
+@Slf4j
+public class SupabaseJwtVerifier {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final Base64.Decoder B64URL = Base64.getUrlDecoder();
+
+    // Toleranz für Uhrenabweichung zwischen Supabase und uns
+    private static final long CLOCK_SKEW_SECONDS = 30;
+    // JWKS höchstens alle 30 s laden (unbekannte kid, fehlgeschlagenes Laden)
+    private static final long MIN_JWKS_RELOAD_MILLIS = 30_000;
+
+    public enum Outcome { VALID, INVALID, UNVERIFIABLE }
+
+    public record Result(Outcome outcome, SupabaseAuthClient.SupabaseUser user, long expiresAtEpochSeconds) {
+
+        static Result valid(SupabaseAuthClient.SupabaseUser user, long exp) {
+            return new Result(Outcome.VALID, user, exp);
+        }
+
+        static Result invalid() {
+            return new Result(Outcome.INVALID, null, 0);
+        }
+
+        static Result unverifiable() {
+            return new Result(Outcome.UNVERIFIABLE, null, 0);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final RestTemplate restTemplate;
+
+    private final byte[] hmacSecret;
+    private final String audience;
+    private final String jwksUrl;
+    private final String anonKey;
+    private final long jwksRefreshMillis;
+
+    // kid -> Public Key; wird komplett ersetzt, nie verändert
+    private volatile Map<String, PublicKey> keysByKid = Map.of();
+    private volatile long keysLoadedAt = 0;
+    private volatile long lastReloadAttempt = 0;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public SupabaseJwtVerifier(SupabaseConfig config, RestTemplate restTemplate, ObjectMapper objectMapper) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        String secret = config.getJwtSecret();
+        this.hmacSecret = (secret == null || secret.isBlank()) ? null : secret.getBytes(StandardCharsets.UTF_8);
+        this.audience = config.getJwtAudience();
+        this.jwksUrl = config.getProjectUrl() + "/auth/v1/.well-known/jwks.json";
+        this.anonKey = config.getAnonKey();
+        this.jwksRefreshMillis = config.getJwksRefreshSeconds() * 1000;
+    }
+
+    public Result verify(String token) {
+        if (token == null) return Result.invalid();
+
+        int dot1 = token.indexOf('.');
+        int dot2 = (dot1 < 0) ? -1 : token.indexOf('.', dot1 + 1);
+        if (dot1 <= 0 || dot2 <= dot1 + 1 || token.indexOf('.', dot2 + 1) >= 0) {
+            // Kein JWS – lokal nicht prüfbar, Supabase entscheiden lassen
+            return Result.unverifiable();
+        }
+
+        try {
+            Map<String, Object> header = objectMapper.readValue(B64URL.decode(token.substring(0, dot1)), MAP_TYPE);
+            String alg = (String) header.get("alg");
+            String kid = (String) header.get("kid");
+
+            byte[] signingInput = token.substring(0, dot2).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = B64URL.decode(token.substring(dot2 + 1));
+
+            Boolean signatureOk = verifySignature(alg, kid, signingInput, signature);
+            if (signatureOk == null) return Result.unverifiable();
+            if (!signatureOk) {
+                log.warn("Access Token mit ungültiger Signatur (alg={}, kid={})", alg, kid);
+                return Result.invalid();
+            }
+
+            Map<String, Object> claims = objectMapper.readValue(B64URL.decode(token.substring(dot1 + 1, dot2)), MAP_TYPE);
+            return checkClaims(claims);
+
+        } catch (Exception e) {
+            // Kaputtes Base64/JSON o.ä. – lieber Supabase fragen als falsch ablehnen
+            log.debug("Access Token lokal nicht prüfbar", e);
+            return Result.unverifiable();
+        }
+    }
+
+    /**
+     * Liest nur den exp-Claim, ohne Signaturprüfung (für Cache-Ablauf nach einem
+     * erfolgreichen Remote-Check). 0 wenn nicht lesbar.
+     */
+    public long peekExpiry(String token) {
+        if (token == null) return 0;
+        int dot1 = token.indexOf('.');
+        int dot2 = (dot1 < 0) ? -1 : token.indexOf('.', dot1 + 1);
+        if (dot1 <= 0 || dot2 <= dot1 + 1) return 0;
+
+        try {
+            Map<String, Object> claims = objectMapper.readValue(B64URL.decode(token.substring(dot1 + 1, dot2)), MAP_TYPE);
+            Object exp = claims.get("exp");
+            return (exp instanceof Number) ? ((Number) exp).longValue() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Claims: exp, aud, sub
+    // --------------------------------------------------------------
+    private Result checkClaims(Map<String, Object> claims) {
+        Object expRaw = claims.get("exp");
+        if (!(expRaw instanceof Number)) return Result.invalid();
+        long exp = ((Number) expRaw).longValue();
+
+        long now = System.currentTimeMillis() / 1000;
+        if (exp + CLOCK_SKEW_SECONDS < now) return Result.invalid();
+
+        Object nbf = claims.get("nbf");
+        if (nbf instanceof Number && ((Number) nbf).longValue() - CLOCK_SKEW_SECONDS > now) {
+            return Result.invalid();
+        }
+
+        if (!audienceMatches(claims.get("aud"))) return Result.invalid();
+
+        Object sub = claims.get("sub");
+        if (!(sub instanceof String) || ((String) sub).isBlank()) return Result.invalid();
+
+        Object email = claims.get("email");
+        return Result.valid(
+                new SupabaseAuthClient.SupabaseUser((String) sub, (email instanceof String) ? (String) email : null),
+                exp
+        );
+    }
+
+    private boolean audienceMatches(Object aud) {
+        if (audience == null || audience.isBlank()) return true;
+        if (aud instanceof String) return audience.equals(aud);
+        if (aud instanceof Collection<?> list) return list.contains(audience);
+        return false;
+    }
+
+    // --------------------------------------------------------------
+    // Signatur: true = ok, false = falsch, null = lokal nicht prüfbar
+    // --------------------------------------------------------------
+    private Boolean verifySignature(String alg, String kid, byte[] signingInput, byte[] signature) throws Exception {
+        if ("HS256".equals(alg)) {
+            if (hmacSecret == null) return null;
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(hmacSecret, "HmacSHA256"));
+            return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+        }
+
+        String jcaAlg = switch (alg == null ? "" : alg) {
+            case "ES256" -> "SHA256withECDSAinP1363Format";
+            case "RS256" -> "SHA256withRSA";
+            default -> null;
+        };
+        if (jcaAlg == null || kid == null) return null;
+
+        PublicKey key = findKey(kid);
+        if (key == null) return null;
+
+        Signature verifier = Signature.getInstance(jcaAlg);
+        verifier.initVerify(key);
+        verifier.update(signingInput);
+        return verifier.verify(signature);
+    }
+
+    // --------------------------------------------------------------
+    // JWKS Key-Cache
+    // --------------------------------------------------------------
+    private PublicKey findKey(String kid) {
+        long now = System.currentTimeMillis();
+
+        if (now - keysLoadedAt > jwksRefreshMillis) {
+            reloadKeys();
+        }
+
+        PublicKey key = keysByKid.get(kid);
+        if (key == null) {
+            // Key-Rotation: neue kid -> einmal außer der Reihe nachladen
+            reloadKeys();
+            key = keysByKid.get(kid);
+        }
+        return key;
+    }
+
+    /**
+     * Lädt die JWKS neu. Nur ein Thread lädt, alle anderen arbeiten mit dem alten Stand weiter.
+     *
+     * Höchstens ein Versuch alle 30 s, auch wenn der letzte fehlgeschlagen ist: ist Supabase nicht
+     * erreichbar, wartet nicht jeder ES256/RS256-Request auf einen Timeout. Bis ein Laden wieder
+     * klappt, gelten die alten Schlüssel weiter.
+     */
+    public void reloadKeys() {
+        long now = System.currentTimeMillis();
+        if (now - lastReloadAttempt < MIN_JWKS_RELOAD_MILLIS) return;
+        if (!reloadLock.tryLock()) return;
+
+        try {
+            // Nach dem Lock nochmal: ein anderer Thread kann gerade geladen haben
+            if (now - lastReloadAttempt < MIN_JWKS_RELOAD_MILLIS) return;
+            lastReloadAttempt = now;
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("apikey", anonKey);
+
+            @SuppressWarnings("rawtypes")
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    jwksUrl,
+                    HttpMethod.GET,
+                    new HttpEntity<Void>(headers),
+                    Map.class
+            );
+
+            Object rawKeys = (response.getBody() == null) ? null : response.getBody().get("keys");
+            if (!(rawKeys instanceof List<?> jwks)) {
+                log.warn("Supabase JWKS ohne 'keys' erhalten");
+                return;
+            }
+
+            Map<String, PublicKey> loaded = new HashMap<>();
+            for (Object o : jwks) {
+                if (!(o instanceof Map<?, ?> jwk)) continue;
+                try {
+                    PublicKey key = toPublicKey(jwk);
+                    Object kid = jwk.get("kid");
+                    if (key != null && kid instanceof String) loaded.put((String) kid, key);
+                } catch (Exception e) {
+                    log.warn("JWK konnte nicht gelesen werden (kid={})", jwk.get("kid"), e);
+                }
+            }
+
+            keysByKid = Map.copyOf(loaded);
+            keysLoadedAt = now;
+            log.info("Supabase JWKS geladen: {} Schlüssel", loaded.size());
+
+        } catch (Exception e) {
+            // Alte Schlüssel behalten; Tokens ohne Schlüssel gehen an /auth/v1/user
+            log.warn("Supabase JWKS konnte nicht geladen werden: {}", e.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static PublicKey toPublicKey(Map<?, ?> jwk) throws Exception {
+        Object kty = jwk.get("kty");
+
+        if ("EC".equals(kty)) {
+            if (!"P-256".equals(jwk.get("crv"))) return null;
+            AlgorithmParameters params = AlgorithmParameters.getInstance("EC");
+            params.init(new ECGenParameterSpec("secp256r1"));
+            ECPoint point = new ECPoint(
+                    new BigInteger(1, B64URL.decode((String) jwk.get("x"))),
+                    new BigInteger(1, B64URL.decode((String) jwk.get("y")))
+            );
+            return KeyFactory.getInstance("EC")
+                    .generatePublic(new ECPublicKeySpec(point, params.getParameterSpec(ECParameterSpec.class)));
+        }
+
+        if ("RSA".equals(kty)) {
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    new BigInteger(1, B64URL.decode((String) jwk.get("n"))),
+                    new BigInteger(1, B64URL.decode((String) jwk.get("e")))
+            ));
+        }
+
+        return null;
+    }
+}
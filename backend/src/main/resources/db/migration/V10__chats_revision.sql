@@ -0,0 +1,34 @@
+-- =========================================================
+-- Änderungszähler pro Chat für die ETags (chatListVersion, messagesVersion).
+--   revision: bei jedem INSERT und UPDATE ein neuer Wert aus chats_revision_seq
+--
+-- Anzahl + neuestes updated_at reicht als Stand nicht: ein Batch-Import mit alten Zeitstempeln
+-- ändert Titel/Vorschau, aber nicht updated_at, und bei parallelen Transaktionen kann die später
+-- committete das kleinere now() haben. Die Summe der revision-Werte ändert sich bei jeder
+-- Änderung, auch wenn die Anzahl gleich bleibt (neue Werte sind größer als alle alten).
+--
+-- Ohne Default auf bestehenden Zeilen (NULL, zählt als 0): kein Neuschreiben der Tabelle.
+-- =========================================================
+
+SET LOCAL lock_timeout = '10s';
+
+CREATE SEQUENCE IF NOT EXISTS public.chats_revision_seq;
+
+ALTER TABLE public.chats ADD COLUMN IF NOT EXISTS revision bigint;
+
+ALTER TABLE public.chats ALTER COLUMN revision SET DEFAULT nextval('public.chats_revision_seq');
+
+CREATE OR REPLACE FUNCTION public.chats_revision()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.revision := nextval('public.chats_revision_seq');
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS chats_revision ON public.chats;
+CREATE TRIGGER chats_revision
+    BEFORE UPDATE ON public.chats
+    FOR EACH ROW EXECUTE FUNCTION public.chats_revision();
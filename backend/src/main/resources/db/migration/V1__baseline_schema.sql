@@ -0,0 +1,37 @@
+-- =========================================================
+-- Basis-Schema (Stand vor der Versionierung)
+-- users, chats, chat_messages wie im Supabase-Projekt angelegt.
+-- IF NOT EXISTS: auf der bestehenden Datenbank ein No-op.
+-- Ausgeführt per Flyway beim Start des Backends mit DB_MIGRATE=true (migration.properties), von Hand weiterhin
+-- in Versionsreihenfolge im Supabase SQL-Editor möglich.
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.users (
+    id           uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+    auth_user_id uuid NOT NULL UNIQUE,
+    first_name   text,
+    last_name    text,
+    role         text
+);
+
+CREATE TABLE IF NOT EXISTS public.chats (
+    id           uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+    auth_user_id uuid NOT NULL,
+    title        text NOT NULL DEFAULT 'Neuer Chat',
+    created_at   timestamptz NOT NULL DEFAULT now(),
+    updated_at   timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS chats_auth_user_updated_idx
+    ON public.chats (auth_user_id, updated_at DESC);
+
+CREATE TABLE IF NOT EXISTS public.chat_messages (
+    id         uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+    chat_id    uuid NOT NULL REFERENCES public.chats (id) ON DELETE CASCADE,
+    sender     text NOT NULL CHECK (sender IN ('user', 'bot')),
+    content    text NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS chat_messages_chat_created_idx
+    ON public.chat_messages (chat_id, created_at);
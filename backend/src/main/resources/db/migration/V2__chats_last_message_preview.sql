@@ -0,0 +1,27 @@
+-- =========================================================
+-- Letzte Nachricht + Anzahl direkt an chats speichern,
+-- damit listChats/searchChats keine Subquery pro Chat brauchen.
+-- Gepflegt von SupabaseDatabaseClient.addMessage (gleiche Transaktion).
+-- =========================================================
+
+ALTER TABLE public.chats
+    ADD COLUMN IF NOT EXISTS last_message_preview text,
+    ADD COLUMN IF NOT EXISTS message_count integer NOT NULL DEFAULT 0;
+
+-- Einmaliger Backfill für bestehende Chats
+-- (Länge 160 = SupabaseDatabaseClient.LAST_MESSAGE_PREVIEW_LENGTH).
+-- Nur noch nicht gezählte Chats: bei erneuter Ausführung (Flyway-Baseline) bleiben die Zähler
+-- archivierter Chats (V5) unverändert.
+UPDATE public.chats c
+SET last_message_preview = left(s.content, 160),
+    message_count        = s.cnt
+FROM (
+    SELECT DISTINCT ON (m.chat_id)
+           m.chat_id,
+           m.content,
+           count(*) OVER (PARTITION BY m.chat_id) AS cnt
+    FROM public.chat_messages m
+    ORDER BY m.chat_id, m.created_at DESC
+) s
+WHERE c.id = s.chat_id
+  AND c.message_count = 0;
@@ -0,0 +1,16 @@
+-- =========================================================
+-- Indizes für Keyset-Pagination:
+--   Chat-Liste:   (updated_at, id) pro User, neueste zuerst
+--   Nachrichten:  (created_at, id) pro Chat
+-- Ersetzen die Indizes aus V1 (gleiche führende Spalten).
+-- =========================================================
+
+CREATE INDEX IF NOT EXISTS chats_auth_user_updated_id_idx
+    ON public.chats (auth_user_id, updated_at DESC, id DESC);
+
+DROP INDEX IF EXISTS public.chats_auth_user_updated_idx;
+
+CREATE INDEX IF NOT EXISTS chat_messages_chat_created_id_idx
+    ON public.chat_messages (chat_id, created_at, id);
+
+DROP INDEX IF EXISTS public.chat_messages_chat_created_idx;
@@ -0,0 +1,127 @@
+-- =========================================================
+-- Volltextsuche für searchChats statt ILIKE '%q%' über alle Nachrichten.
+--   search_tsv: deutsche Stammformen ("fristen" -> "frist") + unveränderte Wörter
+--               (für Präfixsuche, Namen, Abkürzungen)
+-- Normale Spalten mit Trigger statt GENERATED … STORED: eine generierte Spalte schreibt die
+-- ganze Tabelle unter exklusiver Sperre neu. So ist ADD COLUMN reine Katalogarbeit, der Bestand
+-- wird in Blöcken mit eigenem COMMIT nachgetragen, die Indizes entstehen mit CONCURRENTLY.
+-- Läuft außerhalb einer Transaktion; nach einem Abbruch lässt sich jeder Schritt wiederholen
+-- (IF NOT EXISTS, bereits gefüllte Zeilen werden übersprungen).
+-- =========================================================
+
+ALTER TABLE public.chat_messages ADD COLUMN IF NOT EXISTS search_tsv tsvector;
+
+ALTER TABLE public.chats ADD COLUMN IF NOT EXISTS title_tsv tsvector;
+
+-- Von Hand angelegte generierte Spalten (frühere Fassung dieses Skripts) in normale umwandeln,
+-- ebenfalls ohne Neuschreiben der Tabelle
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'public.chat_messages'::regclass AND attname = 'search_tsv' AND attgenerated = 's') THEN
+        ALTER TABLE public.chat_messages ALTER COLUMN search_tsv DROP EXPRESSION;
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'public.chats'::regclass AND attname = 'title_tsv' AND attgenerated = 's') THEN
+        ALTER TABLE public.chats ALTER COLUMN title_tsv DROP EXPRESSION;
+    END IF;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION public.chat_messages_search_tsv()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.search_tsv := to_tsvector('german'::regconfig, coalesce(NEW.content, ''))
+                      || to_tsvector('simple'::regconfig, coalesce(NEW.content, ''));
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION public.chats_title_tsv()
+RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.title_tsv := to_tsvector('german'::regconfig, coalesce(NEW.title, ''))
+                     || to_tsvector('simple'::regconfig, coalesce(NEW.title, ''));
+    RETURN NEW;
+END
+$$;
+
+-- Ab hier hält der Trigger neue und geänderte Zeilen aktuell, der Nachtrag unten den Bestand
+DROP TRIGGER IF EXISTS chat_messages_search_tsv ON public.chat_messages;
+CREATE TRIGGER chat_messages_search_tsv
+    BEFORE INSERT OR UPDATE OF content ON public.chat_messages
+    FOR EACH ROW EXECUTE FUNCTION public.chat_messages_search_tsv();
+
+DROP TRIGGER IF EXISTS chats_title_tsv ON public.chats;
+CREATE TRIGGER chats_title_tsv
+    BEFORE INSERT OR UPDATE OF title ON public.chats
+    FOR EACH ROW EXECUTE FUNCTION public.chats_title_tsv();
+
+-- Nachtrag in Blöcken entlang des Primärschlüssels, jeder Block eine eigene kurze Transaktion
+DO $$
+DECLARE
+    last_id uuid := '00000000-0000-0000-0000-000000000000';
+    upto    uuid;
+BEGIN
+    LOOP
+        SELECT id INTO upto
+        FROM (
+            SELECT id FROM public.chat_messages
+            WHERE id > last_id
+            ORDER BY id
+            LIMIT 5000
+        ) batch
+        ORDER BY id DESC
+        LIMIT 1;
+        EXIT WHEN upto IS NULL;
+
+        UPDATE public.chat_messages
+        SET search_tsv = to_tsvector('german'::regconfig, coalesce(content, ''))
+                         || to_tsvector('simple'::regconfig, coalesce(content, ''))
+        WHERE id > last_id AND id <= upto
+          AND search_tsv IS NULL;
+
+        last_id := upto;
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+DO $$
+DECLARE
+    last_id uuid := '00000000-0000-0000-0000-000000000000';
+    upto    uuid;
+BEGIN
+    LOOP
+        SELECT id INTO upto
+        FROM (
+            SELECT id FROM public.chats
+            WHERE id > last_id
+            ORDER BY id
+            LIMIT 5000
+        ) batch
+        ORDER BY id DESC
+        LIMIT 1;
+        EXIT WHEN upto IS NULL;
+
+        UPDATE public.chats
+        SET title_tsv = to_tsvector('german'::regconfig, coalesce(title, ''))
+                        || to_tsvector('simple'::regconfig, coalesce(title, ''))
+        WHERE id > last_id AND id <= upto
+          AND title_tsv IS NULL;
+
+        last_id := upto;
+        COMMIT;
+    END LOOP;
+END
+$$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS chat_messages_search_tsv_idx
+    ON public.chat_messages USING gin (search_tsv);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS chats_title_tsv_idx
+    ON public.chats USING gin (title_tsv);
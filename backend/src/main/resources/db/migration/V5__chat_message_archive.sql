@@ -0,0 +1,27 @@
+-- =========================================================
+-- Archiv für alte Nachrichten (MessageArchiver, app.archive.enabled):
+-- Nachrichten von Chats, die länger als app.archive.idle-days ruhen, werden
+-- in Blöcken (bis app.archive.block-size Nachrichten) als deflate-komprimiertes
+-- JSON gespeichert und aus chat_messages gelöscht. getMessages/Export lesen beides.
+-- chats.message_count zählt weiterhin alle Nachrichten eines Chats.
+-- =========================================================
+
+CREATE TABLE IF NOT EXISTS public.chat_message_archive (
+    id               bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    chat_id          uuid NOT NULL REFERENCES public.chats (id) ON DELETE CASCADE,
+    first_created_at timestamptz NOT NULL,
+    last_created_at  timestamptz NOT NULL,
+    message_count    integer NOT NULL,
+    -- Format von data, siehe MessageArchiveCodec
+    codec            text NOT NULL,
+    -- Größe des JSON vor der Kompression
+    raw_bytes        integer NOT NULL,
+    data             bytea NOT NULL,
+    archived_at      timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS chat_message_archive_chat_idx
+    ON public.chat_message_archive (chat_id, first_created_at);
+
+-- data ist schon komprimiert: TOAST soll nur auslagern, nicht noch einmal komprimieren
+ALTER TABLE public.chat_message_archive ALTER COLUMN data SET STORAGE EXTERNAL;
@@ -0,0 +1,37 @@
+-- =========================================================
+-- Vorbereitung für V7 (chat_messages nach created_at partitioniert), ohne lange Sperren.
+-- Läuft außerhalb einer Transaktion (CREATE INDEX CONCURRENTLY), jedes Statement für sich.
+--
+-- Die bestehende Tabelle wird in V7 zur ersten Partition chat_messages_legacy mit dem Bereich
+-- (MINVALUE, Grenze). Dafür braucht sie vorher:
+--   - einen eindeutigen Index auf (id, created_at): Primärschlüssel einer partitionierten Tabelle
+--     muss den Partitionsschlüssel enthalten
+--   - einen validierten CHECK mit der Bereichsgrenze, damit ATTACH PARTITION die Tabelle nicht
+--     unter exklusiver Sperre durchsucht
+--
+-- Grenze = Beginn des übernächsten Monats (UTC). Der Abstand deckt die Zeit zwischen V6 und V7 ab;
+-- bis dahin landen neue Nachrichten weiter in der alten Tabelle.
+-- =========================================================
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS chat_messages_id_created_key
+    ON public.chat_messages (id, created_at);
+
+-- NOT VALID: nur kurze Sperre, geprüft wird erst beim VALIDATE
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM pg_constraint
+        WHERE conrelid = 'public.chat_messages'::regclass
+          AND conname = 'chat_messages_legacy_range'
+    ) THEN
+        EXECUTE format(
+            'ALTER TABLE public.chat_messages ADD CONSTRAINT chat_messages_legacy_range CHECK (created_at < %L) NOT VALID',
+            (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months') AT TIME ZONE 'UTC'
+        );
+    END IF;
+END
+$$;
+
+-- Durchsucht die Tabelle, blockiert dabei aber weder Lesen noch Schreiben
+ALTER TABLE public.chat_messages VALIDATE CONSTRAINT chat_messages_legacy_range;
@@ -0,0 +1,192 @@
+-- =========================================================
+-- chat_messages nach created_at partitioniert (RANGE, ein Monat pro Partition, UTC).
+--
+--   chat_messages_legacy    bisherige Tabelle, alles vor der Grenze aus V6
+--   chat_messages_YYYY_MM   Monatspartitionen ab der Grenze
+--   chat_messages_default   Auffangpartition für Zeitstempel ohne passende Partition
+--
+-- Umstellung in einer kurzen Transaktion: die alte Tabelle wird umbenannt und als Partition
+-- eingehängt, es werden keine Zeilen kopiert. Dank Index und CHECK aus V6 ist das reine
+-- Katalogarbeit; die exklusive Sperre hält nur für die Dauer dieses Skripts.
+--
+-- Primärschlüssel ist (id, created_at): Eindeutigkeit gilt pro Partition, die ids sind UUIDs
+-- aus gen_random_uuid() bzw. UUID.randomUUID().
+-- Neue Monatspartitionen legt ensure_chat_message_partitions() an (MessagePartitionMaintainer,
+-- täglich); alternativ per pg_cron: SELECT public.ensure_chat_message_partitions(3);
+-- =========================================================
+
+-- Lieber abbrechen (und beim nächsten Start erneut versuchen) als hinter langen Abfragen
+-- in der Sperr-Warteschlange alle anderen Zugriffe aufzuhalten
+SET LOCAL lock_timeout = '10s';
+
+ALTER TABLE public.chat_messages RENAME TO chat_messages_legacy;
+
+-- Primärschlüssel (id) -> (id, created_at), mit dem Index aus V6 (ohne Neuaufbau).
+-- Namen von Primärschlüssel, Indizes und CHECK hängen davon ab, wie die Tabelle entstanden ist
+-- (Supabase-Dashboard, SQL-Editor, V1): aus dem Katalog lesen statt feste Namen anzunehmen.
+DO $$
+DECLARE
+    legacy     regclass := 'public.chat_messages_legacy'::regclass;
+    pkey       text;
+    id_created text;
+    sender_chk text;
+BEGIN
+    SELECT conname INTO pkey
+    FROM pg_constraint
+    WHERE conrelid = legacy AND contype = 'p';
+
+    SELECT ic.relname INTO id_created
+    FROM pg_index i
+    JOIN pg_class ic ON ic.oid = i.indexrelid
+    WHERE i.indrelid = legacy
+      AND i.indisunique AND i.indisvalid AND NOT i.indisprimary
+      AND i.indpred IS NULL AND i.indexprs IS NULL
+      AND i.indnatts = 2
+      AND i.indkey[0] = (SELECT attnum FROM pg_attribute WHERE attrelid = legacy AND attname = 'id')
+      AND i.indkey[1] = (SELECT attnum FROM pg_attribute WHERE attrelid = legacy AND attname = 'created_at')
+    ORDER BY ic.relname
+    LIMIT 1;
+
+    IF id_created IS NULL THEN
+        RAISE EXCEPTION 'Eindeutiger Index auf chat_messages (id, created_at) fehlt, V6 ausführen';
+    END IF;
+
+    IF pkey IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE public.chat_messages_legacy DROP CONSTRAINT %I', pkey);
+    END IF;
+    IF id_created <> 'chat_messages_legacy_pkey' THEN
+        EXECUTE format('ALTER INDEX public.%I RENAME TO chat_messages_legacy_pkey', id_created);
+    END IF;
+    ALTER TABLE public.chat_messages_legacy
+        ADD CONSTRAINT chat_messages_legacy_pkey PRIMARY KEY USING INDEX chat_messages_legacy_pkey;
+
+    -- ATTACH verlangt die CHECK-Constraints der Elterntabelle unter demselben Namen
+    SELECT conname INTO sender_chk
+    FROM pg_constraint
+    WHERE conrelid = legacy AND contype = 'c'
+      AND pg_get_constraintdef(oid) LIKE '%sender%'
+    LIMIT 1;
+    IF sender_chk IS NOT NULL AND sender_chk <> 'chat_messages_sender_check' THEN
+        EXECUTE format('ALTER TABLE public.chat_messages_legacy RENAME CONSTRAINT %I TO chat_messages_sender_check',
+                       sender_chk);
+    END IF;
+
+    -- Die Elterntabelle legt ihre Indizes unter diesen Namen an; sind sie auf der alten Tabelle belegt,
+    -- dort umbenennen (ATTACH übernimmt die vorhandenen Indizes nach Definition, nicht nach Name)
+    IF to_regclass('public.chat_messages_chat_created_id_idx') IS NOT NULL THEN
+        ALTER INDEX public.chat_messages_chat_created_id_idx RENAME TO chat_messages_legacy_chat_created_id_idx;
+    END IF;
+    IF to_regclass('public.chat_messages_search_tsv_idx') IS NOT NULL THEN
+        ALTER INDEX public.chat_messages_search_tsv_idx RENAME TO chat_messages_legacy_search_tsv_idx;
+    END IF;
+END
+$$;
+
+-- Namen der Constraints wie in V1, damit ATTACH die vorhandenen übernimmt
+CREATE TABLE public.chat_messages (
+    id         uuid NOT NULL DEFAULT gen_random_uuid(),
+    chat_id    uuid NOT NULL,
+    sender     text NOT NULL,
+    content    text NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now(),
+    search_tsv tsvector,
+    CONSTRAINT chat_messages_pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT chat_messages_chat_id_fkey FOREIGN KEY (chat_id) REFERENCES public.chats (id) ON DELETE CASCADE,
+    CONSTRAINT chat_messages_sender_check CHECK (sender IN ('user', 'bot'))
+) PARTITION BY RANGE (created_at);
+
+-- Werden auf der alten Tabelle durch die vorhandenen Indizes erfüllt, auf neuen Partitionen angelegt
+CREATE INDEX chat_messages_chat_created_id_idx
+    ON public.chat_messages (chat_id, created_at, id);
+
+CREATE INDEX chat_messages_search_tsv_idx
+    ON public.chat_messages USING gin (search_tsv);
+
+-- search_tsv wie in V4 per Trigger; der Trigger der Elterntabelle gilt für alle Partitionen,
+-- der bisherige der alten Tabelle entfällt vor dem ATTACH (gleicher Name)
+DROP TRIGGER IF EXISTS chat_messages_search_tsv ON public.chat_messages_legacy;
+CREATE TRIGGER chat_messages_search_tsv
+    BEFORE INSERT OR UPDATE OF content ON public.chat_messages
+    FOR EACH ROW EXECUTE FUNCTION public.chat_messages_search_tsv();
+
+DO $$
+DECLARE
+    bound timestamptz;
+BEGIN
+    SELECT (regexp_match(pg_get_constraintdef(oid), '''([^'']+)'''))[1]::timestamptz
+    INTO bound
+    FROM pg_constraint
+    WHERE conrelid = 'public.chat_messages_legacy'::regclass
+      AND conname = 'chat_messages_legacy_range';
+
+    -- Der validierte CHECK deckt die Partitionsgrenze ab -> kein Durchsuchen der Tabelle
+    EXECUTE format(
+        'ALTER TABLE public.chat_messages ATTACH PARTITION public.chat_messages_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+        bound
+    );
+END
+$$;
+
+ALTER TABLE public.chat_messages_legacy DROP CONSTRAINT chat_messages_legacy_range;
+
+CREATE TABLE public.chat_messages_default PARTITION OF public.chat_messages DEFAULT;
+
+-- ---------------------------------------------------------
+-- Monatspartitionen bis months_ahead Monate nach dem aktuellen anlegen, lückenlos ab der bisher
+-- höchsten Grenze. Rückgabe: Anzahl neu angelegter Partitionen.
+--
+-- Neue Partition erst als eigene Tabelle, dann ATTACH: braucht auf chat_messages nur
+-- SHARE UPDATE EXCLUSIVE (Lesen und Schreiben laufen weiter), CREATE TABLE … PARTITION OF
+-- dagegen eine exklusive Sperre. Zeilen des Monats in chat_messages_default werden mit verschoben,
+-- samt search_tsv (die neue Tabelle hat vor dem ATTACH noch keinen Trigger).
+-- ---------------------------------------------------------
+CREATE OR REPLACE FUNCTION public.ensure_chat_message_partitions(months_ahead integer DEFAULT 3)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    target  timestamptz := (date_trunc('month', now() AT TIME ZONE 'UTC')
+                            + make_interval(months => months_ahead + 1)) AT TIME ZONE 'UTC';
+    lo      timestamptz;
+    hi      timestamptz;
+    name    text;
+    created integer := 0;
+BEGIN
+    PERFORM set_config('lock_timeout', '5s', true);
+    -- Serialisiert parallele Aufrufe (mehrere Instanzen)
+    LOCK TABLE public.chat_messages IN SHARE UPDATE EXCLUSIVE MODE;
+
+    SELECT max((regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \(''([^'']+)''\)'))[1]::timestamptz)
+    INTO lo
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'public.chat_messages'::regclass;
+
+    WHILE lo < target LOOP
+        hi := ((lo AT TIME ZONE 'UTC') + interval '1 month') AT TIME ZONE 'UTC';
+        name := 'chat_messages_' || to_char(lo AT TIME ZONE 'UTC', 'YYYY_MM');
+
+        EXECUTE format(
+            'CREATE TABLE public.%I (LIKE public.chat_messages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+            name
+        );
+        EXECUTE format(
+            'WITH moved AS (DELETE FROM public.chat_messages_default WHERE created_at >= %L AND created_at < %L '
+            || 'RETURNING id, chat_id, sender, content, created_at, search_tsv) '
+            || 'INSERT INTO public.%I (id, chat_id, sender, content, created_at, search_tsv) SELECT * FROM moved',
+            lo, hi, name
+        );
+        EXECUTE format(
+            'ALTER TABLE public.chat_messages ATTACH PARTITION public.%I FOR VALUES FROM (%L) TO (%L)',
+            name, lo, hi
+        );
+
+        created := created + 1;
+        lo := hi;
+    END LOOP;
+
+    RETURN created;
+END
+$$;
+
+SELECT public.ensure_chat_message_partitions(3);
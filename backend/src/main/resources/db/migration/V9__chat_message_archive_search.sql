@@ -0,0 +1,18 @@
+-- =========================================================
+-- Volltextsuche auch über archivierte Nachrichten (MessageArchiver).
+--   search_tsv: wie chat_messages.search_tsv, aber über alle Nachrichten eines Blocks;
+--               archiveChat füllt sie beim Archivieren, ältere Blöcke trägt MessageArchiver nach
+-- Die Blöcke sind komprimiert, daher auch kein Trigger wie in V4. searchChats liefert für Treffer
+-- im Archiv keinen Ausschnitt (snippet), nur den Chat.
+-- Läuft außerhalb einer Transaktion (CREATE INDEX CONCURRENTLY).
+-- =========================================================
+
+ALTER TABLE public.chat_message_archive
+    ADD COLUMN IF NOT EXISTS search_tsv tsvector;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS chat_message_archive_search_tsv_idx
+    ON public.chat_message_archive USING gin (search_tsv);
+
+-- Nachtragen der Blöcke ohne search_tsv
+CREATE INDEX CONCURRENTLY IF NOT EXISTS chat_message_archive_unindexed_idx
+    ON public.chat_message_archive (id) WHERE search_tsv IS NULL;
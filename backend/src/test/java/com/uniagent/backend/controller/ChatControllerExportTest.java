@@ -0,0 +1,52 @@
+package com.uniagent.backend.controller;
+
+import com.uniagent.backend.service.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class ChatControllerExportTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final ChatController controller = new ChatController(chatService);
+
+    @Test
+    void rejectedTokenBeforeFirstLineGives401() throws Exception {
+        doThrow(new IllegalArgumentException("Ungültiger Token"))
+                .when(chatService).exportChats(eq("token"), any(OutputStream.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.exportChats("Bearer token", response);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader("Content-Disposition")).isNull();
+    }
+
+    @Test
+    void errorAfterCommitAbortsTheStream() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"type\":\"chat\"}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            throw new IllegalArgumentException("Chat nicht gefunden");
+        }).when(chatService).exportChats(eq("token"), any(OutputStream.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> controller.exportChats("Bearer token", response))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+}
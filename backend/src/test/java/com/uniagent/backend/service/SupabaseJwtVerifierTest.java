@@ -0,0 +1,308 @@
+package com.uniagent.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniagent.backend.config.SupabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class SupabaseJwtVerifierTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret";
+    private static final String JWKS_URL = "http://supabase.test/auth/v1/.well-known/jwks.json";
+    private static final String SUB = "0b6f3c1e-6a4e-4d44-9a0e-2f1f5d6f7a01";
+    private static final Base64.Encoder B64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer jwks;
+    private SupabaseJwtVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        jwks = MockRestServiceServer.bindTo(restTemplate).build();
+        verifier = new SupabaseJwtVerifier(config(SECRET), restTemplate, objectMapper);
+    }
+
+    // --------------------------------------------------------------
+    // HS256, Algorithmus
+    // --------------------------------------------------------------
+
+    @Test
+    void acceptsValidHs256Token() throws Exception {
+        SupabaseJwtVerifier.Result result = verifier.verify(hs256(claims(now() + 3600), SECRET));
+
+        assertThat(result.outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+        assertThat(result.user().id()).isEqualTo(SUB);
+    }
+
+    @Test
+    void neverAcceptsAlgNone() throws Exception {
+        String token = encode(Map.of("alg", "none", "typ", "JWT")) + "." + encode(claims(now() + 3600)) + ".";
+
+        assertThat(verifier.verify(token).outcome()).isNotEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+    }
+
+    @Test
+    void unknownAlgIsLeftToSupabase() throws Exception {
+        String signingInput = encode(Map.of("alg", "HS512", "typ", "JWT")) + "." + encode(claims(now() + 3600));
+        String token = signingInput + "." + B64URL.encodeToString(hmac(signingInput, SECRET));
+
+        assertThat(verifier.verify(token).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.UNVERIFIABLE);
+    }
+
+    @Test
+    void rejectsWrongHs256Signature() throws Exception {
+        String token = hs256(claims(now() + 3600), "other-secret-other-secret-other-secret");
+
+        assertThat(verifier.verify(token).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    @Test
+    void rejectsTamperedClaims() throws Exception {
+        String token = hs256(claims(now() + 3600), SECRET);
+        String[] parts = token.split("\\.");
+        Map<String, Object> changed = claims(now() + 3600);
+        changed.put("sub", "ffffffff-ffff-ffff-ffff-ffffffffffff");
+
+        String tampered = parts[0] + "." + encode(changed) + "." + parts[2];
+
+        assertThat(verifier.verify(tampered).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    // --------------------------------------------------------------
+    // exp / nbf mit 30 s Toleranz
+    // --------------------------------------------------------------
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        assertThat(verifier.verify(hs256(claims(now() - 120), SECRET)).outcome())
+                .isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    @Test
+    void acceptsTokenExpiredWithinClockSkew() throws Exception {
+        assertThat(verifier.verify(hs256(claims(now() - 10), SECRET)).outcome())
+                .isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+    }
+
+    @Test
+    void rejectsTokenNotYetValid() throws Exception {
+        Map<String, Object> claims = claims(now() + 3600);
+        claims.put("nbf", now() + 120);
+
+        assertThat(verifier.verify(hs256(claims, SECRET)).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    @Test
+    void acceptsNbfWithinClockSkew() throws Exception {
+        Map<String, Object> claims = claims(now() + 3600);
+        claims.put("nbf", now() + 10);
+
+        assertThat(verifier.verify(hs256(claims, SECRET)).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+    }
+
+    @Test
+    void rejectsTokenWithoutExp() throws Exception {
+        Map<String, Object> claims = claims(0);
+        claims.remove("exp");
+
+        assertThat(verifier.verify(hs256(claims, SECRET)).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    @Test
+    void rejectsWrongAudience() throws Exception {
+        Map<String, Object> claims = claims(now() + 3600);
+        claims.put("aud", "anon");
+
+        assertThat(verifier.verify(hs256(claims, SECRET)).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    // --------------------------------------------------------------
+    // ES256 über JWKS
+    // --------------------------------------------------------------
+
+    @Test
+    void acceptsEs256TokenFromJwks() throws Exception {
+        KeyPair key = ecKey();
+        jwks.expect(once(), requestTo(JWKS_URL)).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(jwksJson("kid-1", key), MediaType.APPLICATION_JSON));
+
+        SupabaseJwtVerifier.Result first = verifier.verify(es256(claims(now() + 3600), "kid-1", key));
+        SupabaseJwtVerifier.Result second = verifier.verify(es256(claims(now() + 3600), "kid-1", key));
+
+        assertThat(first.outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+        assertThat(second.outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+        jwks.verify();
+    }
+
+    @Test
+    void rejectsEs256TokenSignedWithOtherKey() throws Exception {
+        KeyPair published = ecKey();
+        jwks.expect(once(), requestTo(JWKS_URL))
+                .andRespond(withSuccess(jwksJson("kid-1", published), MediaType.APPLICATION_JSON));
+
+        String token = es256(claims(now() + 3600), "kid-1", ecKey());
+
+        assertThat(verifier.verify(token).outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.INVALID);
+    }
+
+    @Test
+    void unknownKidReloadsJwksAtMostOnceIn30Seconds() throws Exception {
+        KeyPair key = ecKey();
+        jwks.expect(once(), requestTo(JWKS_URL))
+                .andRespond(withSuccess(jwksJson("kid-1", key), MediaType.APPLICATION_JSON));
+
+        verifier.verify(es256(claims(now() + 3600), "kid-1", key));
+        SupabaseJwtVerifier.Result result = verifier.verify(es256(claims(now() + 3600), "kid-2", key));
+
+        assertThat(result.outcome()).isEqualTo(SupabaseJwtVerifier.Outcome.UNVERIFIABLE);
+        jwks.verify();
+    }
+
+    // --------------------------------------------------------------
+    // JWKS nicht erreichbar
+    // --------------------------------------------------------------
+
+    @Test
+    void failedJwksFetchIsNotRepeatedForEveryRequest() throws Exception {
+        KeyPair key = ecKey();
+        jwks.expect(once(), requestTo(JWKS_URL)).andRespond(withServerError());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(verifier.verify(es256(claims(now() + 3600), "kid-1", key)).outcome())
+                    .isEqualTo(SupabaseJwtVerifier.Outcome.UNVERIFIABLE);
+        }
+        jwks.verify();
+    }
+
+    @Test
+    void keepsOldKeysWhenRefreshFails() throws Exception {
+        KeyPair key = ecKey();
+        verifier = new SupabaseJwtVerifier(config(SECRET, 0), restTemplate, objectMapper);
+        jwks.expect(once(), requestTo(JWKS_URL))
+                .andRespond(withSuccess(jwksJson("kid-1", key), MediaType.APPLICATION_JSON));
+        jwks.expect(once(), requestTo(JWKS_URL)).andRespond(withServerError());
+
+        assertThat(verifier.verify(es256(claims(now() + 3600), "kid-1", key)).outcome())
+                .isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+
+        // Sperre von 30 s abgelaufen: nächster Request lädt neu, das schlägt fehl
+        ReflectionTestUtils.setField(verifier, "lastReloadAttempt", System.currentTimeMillis() - 60_000);
+
+        assertThat(verifier.verify(es256(claims(now() + 3600), "kid-1", key)).outcome())
+                .isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+        assertThat(verifier.verify(es256(claims(now() + 3600), "kid-1", key)).outcome())
+                .isEqualTo(SupabaseJwtVerifier.Outcome.VALID);
+        jwks.verify();
+    }
+
+    // --------------------------------------------------------------
+    // Hilfen
+    // --------------------------------------------------------------
+
+    private static SupabaseConfig config(String secret) {
+        return config(secret, 600);
+    }
+
+    private static SupabaseConfig config(String secret, long jwksRefreshSeconds) {
+        SupabaseConfig config = new SupabaseConfig();
+        ReflectionTestUtils.setField(config, "projectUrl", "http://supabase.test");
+        ReflectionTestUtils.setField(config, "anonKey", "anon");
+        ReflectionTestUtils.setField(config, "jwtSecret", secret);
+        ReflectionTestUtils.setField(config, "jwtAudience", "authenticated");
+        ReflectionTestUtils.setField(config, "jwksRefreshSeconds", jwksRefreshSeconds);
+        return config;
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+
+    private static Map<String, Object> claims(long exp) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", SUB);
+        claims.put("aud", "authenticated");
+        claims.put("email", "test@uni.de");
+        claims.put("exp", exp);
+        return claims;
+    }
+
+    private String encode(Map<String, Object> json) throws Exception {
+        return B64URL.encodeToString(objectMapper.writeValueAsBytes(json));
+    }
+
+    private String hs256(Map<String, Object> claims, String secret) throws Exception {
+        String signingInput = encode(Map.of("alg", "HS256", "typ", "JWT")) + "." + encode(claims);
+        return signingInput + "." + B64URL.encodeToString(hmac(signingInput, secret));
+    }
+
+    private static byte[] hmac(String signingInput, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String es256(Map<String, Object> claims, String kid, KeyPair key) throws Exception {
+        String signingInput = encode(Map.of("alg", "ES256", "typ", "JWT", "kid", kid)) + "." + encode(claims);
+        Signature signer = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signer.initSign(key.getPrivate());
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + B64URL.encodeToString(signer.sign());
+    }
+
+    private static KeyPair ecKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private String jwksJson(String kid, KeyPair key) throws Exception {
+        ECPublicKey publicKey = (ECPublicKey) key.getPublic();
+        Map<String, Object> jwk = Map.of(
+                "kty", "EC",
+                "crv", "P-256",
+                "kid", kid,
+                "x", B64URL.encodeToString(unsigned32(publicKey.getW().getAffineX())),
+                "y", B64URL.encodeToString(unsigned32(publicKey.getW().getAffineY()))
+        );
+        return objectMapper.writeValueAsString(Map.of("keys", List.of(jwk)));
+    }
+
+    private static byte[] unsigned32(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == 32) return bytes;
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return padded;
+    }
+}
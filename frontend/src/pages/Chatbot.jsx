@@ -1,34 +1,27 @@
 // src/pages/Chatbot.jsx
 import React, { useEffect, useRef, useState } from "react";
 import { useLocation } from "react-router-dom";
-import {
-  N8N_WEBHOOK_URL as ENV_N8N_WEBHOOK_URL,
-  API_BASE_URL as ENV_API_BASE_URL,
-} from "../config";
+import { API_BASE_URL as ENV_API_BASE_URL } from "../config";
 
 export default function Chatbot() {
   const [messages, setMessages] = useState([]);
   const [input, setInput] = useState("");
   const [isLoading, setIsLoading] = useState(false);
+  const [isStreaming, setIsStreaming] = useState(false);
 
   const location = useLocation();
 
   const initialHandledRef = useRef(false);
-  const sessionIdRef = useRef("session-" + Date.now());
   const chatIdRef = useRef(null);
   const bottomRef = useRef(null);
 
   // ----------------------------------
   // URLs
   // ----------------------------------
-  const N8N_URL =
-    (ENV_N8N_WEBHOOK_URL && String(ENV_N8N_WEBHOOK_URL).trim()) ||
-    "https://bw13.app.n8n.cloud/webhook/b1a8fcf2-9b73-4f0b-b038-ffa30af05522/chat";
-
   const API_BASE_URL =
     (ENV_API_BASE_URL && String(ENV_API_BASE_URL).trim()) || "";
 
-  const isReadyToSend = input.trim().length > 0 && !isLoading;
+  const isReadyToSend = input.trim().length > 0 && !isLoading && !isStreaming;
 
   // ----------------------------------
   // Auto-Scroll
@@ -59,29 +52,6 @@ export default function Chatbot() {
     return token ? { Authorization: `Bearer ${token}` } : {};
   };
 
-  // ----------------------------------
-  // Bot-Text extrahieren
-  // ----------------------------------
-  const extractBotText = (data) => {
-    if (!data) return null;
-    if (typeof data === "string") return data;
-
-    if (typeof data.output === "string") return data.output;
-    if (typeof data.BotResponse === "string") return data.BotResponse;
-
-    if (Array.isArray(data) && data[0]) {
-      if (typeof data[0].output === "string") return data[0].output;
-      if (typeof data[0].BotResponse === "string") return data[0].BotResponse;
-      if (data[0].json) {
-        if (typeof data[0].json.output === "string") return data[0].json.output;
-        if (typeof data[0].json.BotResponse === "string")
-          return data[0].json.BotResponse;
-      }
-    }
-
-    return null;
-  };
-
   // ----------------------------------
   // Messages laden
   // ----------------------------------
@@ -168,23 +138,40 @@ export default function Chatbot() {
   };
 
   // ----------------------------------
-  // Message speichern
+  // SSE-Stream vom Backend lesen (POST /api/chats/{id}/ask)
   // ----------------------------------
-  const saveMessage = async (chatId, sender, content) => {
-    if (!chatId || !API_BASE_URL) return;
-    const token = getToken();
-    if (!token) return;
-
-    await fetch(`${API_BASE_URL}/api/chats/${chatId}/messages`, {
-      method: "POST",
-      headers: {
-        "Content-Type": "application/json",
-        ...authHeaders(),
-      },
-      body: JSON.stringify({ sender, content }),
-    });
-
-    window.dispatchEvent(new Event("uniagent:chatsChanged"));
+  const readEventStream = async (res, onEvent) => {
+    const reader = res.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = "";
+
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) break;
+      buffer += decoder.decode(value, { stream: true });
+
+      let sep;
+      while ((sep = buffer.indexOf("\n\n")) >= 0) {
+        const block = buffer.slice(0, sep);
+        buffer = buffer.slice(sep + 2);
+
+        let event = "message";
+        const dataLines = [];
+        for (const line of block.split("\n")) {
+          if (line.startsWith("event:")) event = line.slice(6).trim();
+          else if (line.startsWith("data:")) dataLines.push(line.slice(5));
+        }
+        if (dataLines.length === 0) continue;
+
+        let data;
+        try {
+          data = JSON.parse(dataLines.join("\n"));
+        } catch {
+          data = dataLines.join("\n");
+        }
+        onEvent(event, data);
+      }
+    }
   };
 
   // ----------------------------------
@@ -197,43 +184,63 @@ export default function Chatbot() {
     setMessages((prev) => [...prev, { sender: "user", text: trimmed }]);
     setIsLoading(true);
 
-    let chatId = null;
+    // Bot-Antwort wächst mit jedem "token"-Event (ist dabei immer die letzte Nachricht)
+    let botStarted = false;
+    let botText = "";
+    const renderBot = (text) => {
+      const first = !botStarted;
+      botStarted = true;
+      setIsLoading(false);
+      setMessages((prev) =>
+        first
+          ? [...prev, { sender: "bot", text }]
+          : [...prev.slice(0, -1), { sender: "bot", text }]
+      );
+    };
+
+    const appendBotText = (chunk) => {
+      botText += chunk;
+      renderBot(botText);
+    };
+
+    const showError = (msg) => renderBot(msg);
+
+    setIsStreaming(true);
 
     try {
-      chatId = await createChatIfNeeded(trimmed);
-      await saveMessage(chatId, "user", trimmed);
+      const chatId = await createChatIfNeeded(trimmed);
 
-      const res = await fetch(N8N_URL, {
+      // Backend speichert Frage + Antwort selbst und streamt die Antwort
+      const res = await fetch(`${API_BASE_URL}/api/chats/${chatId}/ask`, {
         method: "POST",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({
-          chatInput: trimmed,
-          sessionId: sessionIdRef.current,
-        }),
+        headers: {
+          "Content-Type": "application/json",
+          Accept: "text/event-stream",
+          ...authHeaders(),
+        },
+        body: JSON.stringify({ question: trimmed }),
       });
 
-      if (!res.ok) throw new Error("n8n Fehler");
-
-      const raw = await res.text();
-      let data;
-      try {
-        data = JSON.parse(raw);
-      } catch {
-        data = raw;
-      }
-
-      const botText =
-        extractBotText(data) ||
-        "Entschuldigung, ich konnte nicht helfen.";
+      if (!res.ok || !res.body) throw new Error("Bot Fehler");
+
+      await readEventStream(res, (event, data) => {
+        if (event === "user") {
+          window.dispatchEvent(new Event("uniagent:chatsChanged"));
+        } else if (event === "token") {
+          appendBotText(data?.text ?? "");
+        } else if (event === "done") {
+          if (!botStarted) appendBotText(data?.content ?? "");
+        } else if (event === "error") {
+          showError(data?.message || "Technischer Fehler beim Bot. Bitte später erneut versuchen.");
+        }
+      });
 
-      setMessages((prev) => [...prev, { sender: "bot", text: botText }]);
-      await saveMessage(chatId, "bot", botText);
+      window.dispatchEvent(new Event("uniagent:chatsChanged"));
     } catch (e) {
-      const msg = "Technischer Fehler beim Bot. Bitte später erneut versuchen.";
-      setMessages((prev) => [...prev, { sender: "bot", text: msg }]);
-      if (chatId) await saveMessage(chatId, "bot", msg);
+      showError("Technischer Fehler beim Bot. Bitte später erneut versuchen.");
     } finally {
       setIsLoading(false);
+      setIsStreaming(false);
     }
   };
 
@@ -1,6 +1,7 @@
 // src/pages/Haufig.jsx
 import React, { useEffect, useState } from "react";
 import "../styles/scrollAnimations.css";
+import { API_BASE_URL } from "../config";
 
 export default function Haufig() {
   const [faqs, setFaqs] = useState([]); // { q, a, rank, count, lastAsked }
@@ -29,11 +30,11 @@ export default function Haufig() {
       }
     };
 
-    // ✅ TopFAQ Endpoint (liefert bei dir: [ { success:true, topQuestions:[...]} ])
-    const TOPFAQ_URL = "https://bw13.app.n8n.cloud/webhook/api/top-faq";
+    // ✅ TopFAQ aus dem Backend (liefert: { success:true, topQuestions:[...] })
+    const TOPFAQ_URL = `${API_BASE_URL}/api/faq/top`;
 
     const normalizeTopFaqResponse = (raw) => {
-      // ✅ wenn n8n ein Array liefert -> erstes Element nehmen
+      // ✅ falls ein Array kommt -> erstes Element nehmen
       const data = Array.isArray(raw) ? raw[0] : raw;
 
       if (data?.success && Array.isArray(data?.topQuestions)) {